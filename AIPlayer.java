@@ -2,77 +2,41 @@ import java.util.*;
 
 public class AIPlayer extends Player {
 
+    /** Cached best move per position (board + layout + rack + opening flag), shared by all AI players. */
+    private static final TranspositionCache<Move> BEST_MOVES = new TranspositionCache<>(1 << 16, 16);
+
+    private transient MoveGenerator generator;
+    private transient Dictionary generatorDictionary;
+    private transient boolean lastSearchCached;
+
     public AIPlayer(String name) {
         super(name);
     }
 
     public boolean makeMove(GameModel model) {
-        Board board = model.getBoard();
-        boolean firstMove = model.isFirstMove();
-        String bestWord = null;
-        int bestRow = -1, bestCol = -1;
-        boolean bestHorizontal = true;
-        int maxScore = -1;
-
-        // Build the rack with '*' representing blanks
-        List<Character> rackLetters = new ArrayList<>();
-        for (Tile t : getRack()) {
-            rackLetters.add(t.isBlank() ? '*' : t.getLetter());
-        }
-
-        // Test every dictionary word
-        for (String w : model.getDictionary().getAllWords()) {
-            String word = w.toUpperCase();
-
-            // Must be buildable from rack (+ blanks)
-            if (!canFormWord(word, rackLetters)) continue;
-
-            for (int r = 0; r < 15; r++) {
-                for (int c = 0; c < 15; c++) {
-                    for (boolean horizontal : new boolean[]{true, false}) {
-
-                        // First move forced to center
-                        if (firstMove) {
-                            r = 7;
-                            c = 7;
-                        } else {
-                            // Must attach to a tile on the board
-                            if (!connectsToBoard(board, word, r, c, horizontal)) continue;
-                        }
-
-                        // Must be placeable using rack (blank substitution handled inside your board logic)
-                        if (!board.canPlaceWordWithRack(word, r, c, horizontal, this)) continue;
-
-                        // NEW letters cannot be adjacent perpendicularly to existing letters
-                        if (!checkNeighbors(board, word, r, c, horizontal)) continue;
-
-                        // Score move
-                        int score = model.computeWordScore(word, r, c, horizontal, null);
-
-                        // Track best scoring move
-                        if (score > maxScore) {
-                            maxScore = score;
-                            bestWord = word;
-                            bestRow = r;
-                            bestCol = c;
-                            bestHorizontal = horizontal;
-                        }
-
-                        if (firstMove) break;
-                    }
-                    if (firstMove) break;
-                }
-                if (firstMove) break;
-            }
+        AISearchEvent event = new AISearchEvent();
+        event.begin();
+        Move best = findBestMove(model);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = getName();
+            event.cacheHit = lastSearchCached;
+            boolean searched = !lastSearchCached && generator != null;
+            event.candidates = searched ? generator.getCandidates() : 0;
+            event.pruned = searched ? generator.getPruned() : 0;
+            event.bestWord = best == null ? null : best.getWord();
+            event.bestScore = best == null ? -1 : best.getScore();
+            event.commit();
         }
 
         // If we found a move → place it
-        if (bestWord != null) {
-            System.out.println("AI placing word: " + bestWord +
-                    " at (" + bestRow + "," + bestCol + ")" +
-                    (bestHorizontal ? " horizontally" : " vertically"));
+        if (best != null) {
+            System.out.println("AI placing word: " + best.getWord() +
+                    " at (" + best.getRow() + "," + best.getCol() + ")" +
+                    (best.isHorizontal() ? " horizontally" : " vertically"));
 
-            model.placeWord(bestWord, bestRow, bestCol, bestHorizontal);
+            model.placeWord(best.getWord(), best.getRow(), best.getCol(), best.isHorizontal());
             return true;
         }
 
@@ -81,57 +45,109 @@ public class AIPlayer extends Player {
         return false;
     }
 
-    // --------------------------
-    //    BLANK TILE SUPPORT
-    // --------------------------
-
-    private boolean canFormWord(String word, List<Character> rackLetters) {
-        List<Character> copy = new ArrayList<>(rackLetters);
-
-        for (char c : word.toCharArray()) {
-            if (copy.contains(c)) {
-                copy.remove((Character) c);
-            } else if (copy.contains('*')) {
-                copy.remove((Character) '*'); // blank used
-            } else {
-                return false;
-            }
+    /**
+     * Finds the best move for this player's rack: the highest score plus leave
+     * equity while tiles remain in the bag, the highest score once it is empty,
+     * or the EndgameSolver's choice once the bag is empty in a two-player game.
+     * Positions already searched (e.g. after undo/redo) are answered from the
+     * transposition cache. A cached move is re-checked against the board rules
+     * and the rack and re-scored on the board before it is used, and positions
+     * with no move are not cached, so a hash collision costs at most a fresh search.
+     *
+     * @param model Game to search
+     * @return Best move, or null if no move is available
+     */
+    public Move findBestMove(GameModel model) {
+        Player opponent = soleOpponent(model);
+        if (model.getBag().isEmpty() && opponent != null && !model.isFirstMove()) {
+            // Both racks are known: search the endgame instead of playing greedily
+            lastSearchCached = false;
+            return new EndgameSolver(model.getDictionary())
+                    .solve(model.getBoard(), getRack(), opponent.getRack()).getBestMove();
         }
-        return true;
+
+        Board board = model.getBoard();
+        boolean firstMove = model.isFirstMove();
+        MoveGenerator gen = getGenerator(model.getDictionary());
+
+        long key = positionKey(model);
+        Move cached = BEST_MOVES.get(key);
+        lastSearchCached = true;
+        if (cached != null && isPlayable(model, cached) && rescore(board, cached) == cached.getScore()) return cached;
+
+        lastSearchCached = false;
+        // Keeping good tiles only matters while there is something left to draw
+        LeaveTable leaves = model.getBag().isEmpty() ? null : LeaveTable.getDefault();
+        Move best = gen.findBest(board, getRack(), firstMove, leaves);
+        if (best != null) BEST_MOVES.put(key, best);
+        return best;
     }
 
-    // Must touch at least one tile on board (except first move)
-    private boolean connectsToBoard(Board board, String word, int row, int col, boolean horizontal) {
+    /**
+     * Whether a move is legal on the model's board and can be made from this rack.
+     */
+    private boolean isPlayable(GameModel model, Move move) {
+        Board board = model.getBoard();
+        return model.getValidator().check(board, move.getWord(), move.getRow(), move.getCol(),
+                move.isHorizontal()).isLegal()
+                && board.canPlaceWordWithRack(move.getWord(), move.getRow(), move.getCol(), move.isHorizontal(),
+                getRack());
+    }
+
+    /**
+     * Scores a move on the board as the generator would: this rack's exact
+     * letters are used before its blanks, and playing every tile adds the bingo bonus.
+     */
+    private int rescore(Board board, Move move) {
+        String word = move.getWord();
+        int[] counts = new int[LeaveTable.SYMBOLS];
+        for (Tile t : getRack()) counts[LeaveTable.symbolOf(t)]++;
+        int blankMask = 0, placed = 0;
         for (int i = 0; i < word.length(); i++) {
-            int r = row + (horizontal ? 0 : i);
-            int c = col + (horizontal ? i : 0);
-            if (board.squareHasTile(r, c)) return true;
+            int r = move.getRow() + (move.isHorizontal() ? 0 : i);
+            int c = move.getCol() + (move.isHorizontal() ? i : 0);
+            if (board.isOccupied(r, c)) continue;
+            placed++;
+            if (counts[word.charAt(i) - 'A'] > 0) counts[word.charAt(i) - 'A']--;
+            else blankMask |= 1 << i;
         }
-        return false;
+        int score = board.scoreMove(word, move.getRow(), move.getCol(), move.isHorizontal(), blankMask);
+        return placed == MoveStack.MAX_TILES ? score + 50 : score;
     }
 
-    // New letters cannot have perpendicular neighbors
-    private boolean checkNeighbors(Board board, String word, int row, int col, boolean horizontal) {
-        for (int i = 0; i < word.length(); i++) {
+    /**
+     * Returns the other player in a two-player game, or null otherwise.
+     */
+    private Player soleOpponent(GameModel model) {
+        List<Player> players = model.getPlayers();
+        if (players.size() != 2) return null;
+        return players.get(0) == this ? players.get(1) : players.get(0);
+    }
 
-            int r = row + (horizontal ? 0 : i);
-            int c = col + (horizontal ? i : 0);
-
-            // Do NOT check neighbors for letters already on the board
-            if (board.squareHasTile(r, c)) continue;
-
-            if (horizontal) {
-                if ((r > 0 && board.squareHasTile(r - 1, c)) ||
-                        (r < 14 && board.squareHasTile(r + 1, c))) {
-                    return false;
-                }
-            } else {
-                if ((c > 0 && board.squareHasTile(r, c - 1)) ||
-                        (c < 14 && board.squareHasTile(r, c + 1))) {
-                    return false;
-                }
-            }
+    /**
+     * Hash of everything the search result depends on: tiles on the board, the
+     * layout's premium squares, rack contents, whether this is the opening move,
+     * whether the bag is empty (leaves are ignored then) and the dictionary used.
+     */
+    private long positionKey(GameModel model) {
+        long key = model.getBoard().getHash() ^ Zobrist.rack(getRack()) ^ Zobrist.mix(model.getBoard().getLayoutHash());
+        if (model.isFirstMove()) key ^= Zobrist.FIRST_MOVE;
+        if (model.getBag().isEmpty()) key = Zobrist.mix(key);
+        return key ^ Zobrist.mix(System.identityHashCode(model.getDictionary()));
+    }
+
+    private MoveGenerator getGenerator(Dictionary dictionary) {
+        if (generator == null || generatorDictionary != dictionary) {
+            generator = new MoveGenerator(dictionary);
+            generatorDictionary = dictionary;
         }
-        return true;
+        return generator;
+    }
+
+    /**
+     * Returns the cache shared by all AI players, e.g. to inspect hit rates.
+     */
+    public static TranspositionCache<Move> getMoveCache() {
+        return BEST_MOVES;
     }
 }
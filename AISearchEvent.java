@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted once per AIPlayer.makeMove search.
+ * Candidates are the placements that were scored, pruned are the
+ * placements rejected before scoring.
+ */
+@Name("scrabble.AISearch")
+@Label("AI Search")
+@Category({"Scrabble", "AI"})
+@Description("Move search performed by AIPlayer.makeMove")
+public class AISearchEvent extends Event {
+
+    @Label("Player")
+    String player;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Candidates")
+    long candidates;
+
+    @Label("Pruned")
+    long pruned;
+
+    @Label("Best Word")
+    String bestWord;
+
+    @Label("Best Score")
+    int bestScore;
+}
@@ -0,0 +1,370 @@
+import java.io.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * AnagramIndex answers "which words can be formed from these letters" without
+ * scanning the word list. Words are grouped by letter signature (their letter
+ * counts) and the groups are kept in primitive arrays behind an open-addressing
+ * hash table keyed on an additive signature hash. A query enumerates the
+ * sub-multisets of the available letters, updating the hash incrementally per
+ * letter, and looks each one up, so its cost depends on the rack, not on the
+ * size of the lexicon.
+ *
+ * Blanks and board letters make that enumeration grow quickly, so such queries
+ * are answered by a scan instead. The letter counts of every group are stored as one
+ * contiguous array of byte lanes, eight letters per long, and a SWAR (SIMD
+ * within a register) test computes eight per-letter shortfalls at once: a
+ * group is formable when its total shortfall is covered by the blanks.
+ *
+ * Usage (benchmark): java AnagramIndex [wordlist.txt]
+ */
+public class AnagramIndex {
+
+    private static final int LETTERS = 26;
+    private static final int MAX_COUNT = 31;  // most copies of one letter a signature may contain
+    private static final int LANE_WORDS = 4;  // longs per signature: 26 byte lanes, padded to 32
+    private static final long GUARD = 0x8080808080808080L;
+    private static final long LOW_BYTES = 0x0101010101010101L;
+    /**
+     * Largest index, by number of blanks on the rack (0, 1, 2+), for which a scan
+     * beats enumeration. From the benchmark below: a scan costs about 10 ns per
+     * signature, enumeration about 15 us with no blank, 140 us with one and 800 us
+     * with two. Board letters widen the enumeration at least as much as two
+     * blanks, so queries using them take the last entry.
+     */
+    private static final int[] SCAN_MAX_SIGNATURES = {0, 14_000, 80_000};
+    private static final long[][] KEYS = new long[LETTERS][MAX_COUNT + 1];
+
+    static {
+        for (int l = 0; l < LETTERS; l++)
+            for (int c = 1; c <= MAX_COUNT; c++)
+                KEYS[l][c] = Zobrist.mix(0xA54FF53A5F1D36F1L + l * 64L + c);
+    }
+
+    private final String[] words;       // words, grouped by signature
+    private final int[] groupStart;     // words of group g are [groupStart[g], groupStart[g + 1])
+    private final long[] groupLanes;    // letter counts of group g, one byte per letter, at [g * 4, g * 4 + 4)
+    private final int[] groupLength;
+    private final long[] slotKeys;      // hash table: signature hash per slot
+    private final int[] slotGroups;     // hash table: group per slot, -1 when empty
+    private final int mask;
+    private final int maxLength;
+
+    /**
+     * Builds the index. Words containing anything other than A-Z are skipped.
+     *
+     * @param lexicon Upper-case words
+     */
+    public AnagramIndex(Collection<String> lexicon) {
+        Map<String, List<String>> bySignature = new HashMap<>();
+        int longest = 0;
+        for (String w : lexicon) {
+            if (!isIndexable(w)) continue;
+            char[] letters = w.toCharArray();
+            Arrays.sort(letters);
+            bySignature.computeIfAbsent(new String(letters), k -> new ArrayList<>()).add(w);
+            longest = Math.max(longest, w.length());
+        }
+        maxLength = longest;
+
+        int groups = bySignature.size();
+        int total = 0;
+        for (List<String> g : bySignature.values()) total += g.size();
+        words = new String[total];
+        groupStart = new int[groups + 1];
+        groupLanes = new long[groups * LANE_WORDS];
+        groupLength = new int[groups];
+
+        int tableSize = Integer.highestOneBit(Math.max(4, groups * 2 - 1)) << 1;
+        slotKeys = new long[tableSize];
+        slotGroups = new int[tableSize];
+        Arrays.fill(slotGroups, -1);
+        mask = tableSize - 1;
+
+        int g = 0, next = 0;
+        for (Map.Entry<String, List<String>> e : bySignature.entrySet()) {
+            groupStart[g] = next;
+            List<String> list = e.getValue();
+            Collections.sort(list);
+            for (String w : list) words[next++] = w;
+
+            long hash = 0;
+            int[] counts = new int[LETTERS];
+            for (char ch : e.getKey().toCharArray()) counts[ch - 'A']++;
+            packLanes(counts, groupLanes, g * LANE_WORDS);
+            groupLength[g] = e.getKey().length();
+            for (int l = 0; l < LETTERS; l++) hash += KEYS[l][counts[l]];
+            int slot = (int) Zobrist.mix(hash) & mask;
+            while (slotGroups[slot] >= 0) slot = (slot + 1) & mask;
+            slotKeys[slot] = hash;
+            slotGroups[slot] = g;
+            g++;
+        }
+        groupStart[groups] = next;
+    }
+
+    private static boolean isIndexable(String w) {
+        if (w.isEmpty()) return false;
+        int[] counts = new int[LETTERS];
+        for (int i = 0; i < w.length(); i++) {
+            char ch = w.charAt(i);
+            if (ch < 'A' || ch > 'Z' || ++counts[ch - 'A'] > MAX_COUNT) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the words that can be formed from a rack, optionally using letters
+     * already on the board.
+     *
+     * @param rackLetters Rack letters, with '*' or '?' for blanks
+     * @param boardLetters Letters available on the board (may be empty)
+     * @param maxBoardLetters Most board letters a word may use
+     * @return Matching words, sorted
+     */
+    public List<String> formable(String rackLetters, String boardLetters, int maxBoardLetters) {
+        int[] rack = new int[LETTERS];
+        int blanks = 0;
+        for (char ch : rackLetters.toUpperCase().toCharArray()) {
+            if (ch == '*' || ch == '?') blanks++;
+            else if (ch >= 'A' && ch <= 'Z') rack[ch - 'A']++;
+        }
+        int[] board = new int[LETTERS];
+        for (char ch : boardLetters.toUpperCase().toCharArray()) {
+            if (ch >= 'A' && ch <= 'Z') board[ch - 'A']++;
+        }
+        List<String> result = new ArrayList<>();
+        forEachFormable(rack, blanks, board, maxBoardLetters, result::add);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Calls the action once for every word formable from the rack letters,
+     * blanks (which can be any letter) and at most maxBoardLetters of the board
+     * letters. Rack letters are used before board letters, board letters before blanks.
+     *
+     * @param rack Count of each letter A-Z on the rack
+     * @param blanks Number of blanks on the rack
+     * @param board Count of each letter A-Z available on the board, or null
+     * @param maxBoardLetters Most board letters a word may use
+     * @param action Receives each matching word exactly once
+     */
+    public void forEachFormable(int[] rack, int blanks, int[] board, int maxBoardLetters, Consumer<String> action) {
+        boolean useBoard = board != null && maxBoardLetters > 0;
+        if (signatureCount() <= SCAN_MAX_SIGNATURES[useBoard ? 2 : Math.min(blanks, 2)]) {
+            scan(rack, blanks, useBoard ? board : null, maxBoardLetters, action);
+            return;
+        }
+        int[] boardCounts = board == null ? new int[LETTERS] : board;
+        Query q = new Query(rack, blanks, boardCounts, maxBoardLetters, action);
+        q.search(0, 0, 0, blanks, maxBoardLetters);
+    }
+
+    /** Number of distinct letter signatures indexed. */
+    public int signatureCount() {
+        return groupStart.length - 1;
+    }
+
+    public int wordCount() {
+        return words.length;
+    }
+
+    private int findGroup(long hash, int[] counts) {
+        int slot = (int) Zobrist.mix(hash) & mask;
+        while (slotGroups[slot] >= 0) {
+            if (slotKeys[slot] == hash && sameCounts(slotGroups[slot], counts)) return slotGroups[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean sameCounts(int group, int[] counts) {
+        int base = group * LANE_WORDS;
+        for (int w = 0; w < LANE_WORDS; w++) {
+            long lanes = 0;
+            for (int l = w * 8, end = Math.min(LETTERS, l + 8); l < end; l++) {
+                if (counts[l] > MAX_COUNT) return false;
+                lanes |= (long) counts[l] << ((l & 7) * 8);
+            }
+            if (groupLanes[base + w] != lanes) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Packs letter counts (capped at MAX_COUNT) into byte lanes, letter l in byte l % 8 of long l / 8.
+     */
+    private static void packLanes(int[] counts, long[] out, int offset) {
+        for (int w = 0; w < LANE_WORDS; w++) out[offset + w] = 0;
+        for (int l = 0; l < LETTERS; l++) {
+            out[offset + (l >>> 3)] |= (long) Math.min(counts[l], MAX_COUNT) << ((l & 7) * 8);
+        }
+    }
+
+    // --------------------------
+    //      SCAN
+    // --------------------------
+
+    /**
+     * Emits the words of every group the rack can form, testing the groups' lanes in order.
+     *
+     * With board letters a group needs two tests: its shortfall against rack plus
+     * board must be covered by the blanks, and its shortfall against the rack
+     * alone by the blanks plus maxBoardLetters (blanks can stand in for board
+     * letters beyond the limit). Together they are exactly the enumeration's rule.
+     *
+     * @param board Count of each board letter, or null for none
+     */
+    private void scan(int[] rack, int blanks, int[] board, int maxBoardLetters, Consumer<String> action) {
+        long[] rackLanes = new long[LANE_WORDS];
+        packLanes(rack, rackLanes, 0);
+        long[] allLanes = rackLanes;
+        int letters = blanks;
+        for (int l = 0; l < LETTERS; l++) letters += rack[l];
+        int rackAllowance = blanks;
+        if (board != null) {
+            int[] all = new int[LETTERS];
+            int boardLetters = 0;
+            for (int l = 0; l < LETTERS; l++) {
+                all[l] = rack[l] + board[l];
+                boardLetters += board[l];
+            }
+            allLanes = new long[LANE_WORDS];
+            packLanes(all, allLanes, 0);
+            letters += Math.min(boardLetters, maxBoardLetters);
+            rackAllowance += maxBoardLetters;
+        }
+        long r0 = rackLanes[0], r1 = rackLanes[1], r2 = rackLanes[2], r3 = rackLanes[3];
+        long a0 = allLanes[0], a1 = allLanes[1], a2 = allLanes[2], a3 = allLanes[3];
+        for (int g = 0, base = 0; g < groupLength.length; g++, base += LANE_WORDS) {
+            if (groupLength[g] > letters) continue;
+            int shortfall = shortfall(groupLanes[base], r0) + shortfall(groupLanes[base + 1], r1)
+                    + shortfall(groupLanes[base + 2], r2) + shortfall(groupLanes[base + 3], r3);
+            if (shortfall > rackAllowance) continue;
+            if (board != null && shortfall(groupLanes[base], a0) + shortfall(groupLanes[base + 1], a1)
+                    + shortfall(groupLanes[base + 2], a2) + shortfall(groupLanes[base + 3], a3) > blanks) continue;
+            for (int i = groupStart[g]; i < groupStart[g + 1]; i++) action.accept(words[i]);
+        }
+    }
+
+    /**
+     * Sum over eight byte lanes of max(word - rack, 0), both lanes at most MAX_COUNT.
+     * The guard bit of each lane survives the subtraction exactly when word >= rack,
+     * and no lane borrows from its neighbour.
+     */
+    static int shortfall(long word, long rack) {
+        long diff = (word | GUARD) - rack;
+        long keep = ((diff & GUARD) >>> 7) * 0x7F;
+        return (int) (((diff & keep) * LOW_BYTES) >>> 56);
+    }
+
+    /**
+     * Same test as the scan, one letter at a time.
+     */
+    boolean formableScalar(int group, int[] rack, int blanks) {
+        int shortfall = 0;
+        for (int l = 0; l < LETTERS; l++) {
+            int need = (int) (groupLanes[group * LANE_WORDS + (l >>> 3)] >>> ((l & 7) * 8) & 0xFF);
+            shortfall += Math.max(0, need - rack[l]);
+        }
+        return shortfall <= blanks;
+    }
+
+    /**
+     * Depth-first enumeration over letters A-Z choosing how many of each the word uses.
+     */
+    private class Query {
+        final int[] rack;
+        final int[] board;
+        final int[] current = new int[LETTERS];
+        final Consumer<String> action;
+        final boolean mayRepeat;    // a signature can be reached twice when board letters and blanks overlap
+        BitSet emitted;
+
+        Query(int[] rack, int blanks, int[] board, int maxBoardLetters, Consumer<String> action) {
+            this.rack = rack;
+            this.board = board;
+            this.action = action;
+            this.mayRepeat = blanks > 0 && maxBoardLetters > 0;
+        }
+
+        void search(int letter, long hash, int length, int blanksLeft, int boardLeft) {
+            if (letter == LETTERS) {
+                if (length == 0) return;
+                int group = findGroup(hash, current);
+                if (group < 0) return;
+                if (mayRepeat) {
+                    if (emitted == null) emitted = new BitSet();
+                    if (emitted.get(group)) return;
+                    emitted.set(group);
+                }
+                for (int i = groupStart[group]; i < groupStart[group + 1]; i++) action.accept(words[i]);
+                return;
+            }
+            int fromRack = rack[letter];
+            int fromBoard = Math.min(board[letter], boardLeft);
+            int most = Math.min(Math.min(fromRack + fromBoard + blanksLeft, maxLength - length), MAX_COUNT);
+            for (int c = 0; c <= most; c++) {
+                int rest = Math.max(0, c - fromRack);
+                // Split what the rack cannot cover between board letters and blanks
+                int boardUse = Math.min(rest, fromBoard);
+                int lowestBoardUse = Math.max(0, rest - blanksLeft);
+                for (int b = boardUse; b >= lowestBoardUse; b--) {
+                    current[letter] = c;
+                    search(letter + 1, hash + KEYS[letter][c], length + c, blanksLeft - (rest - b), boardLeft - b);
+                    if (!mayRepeat) break; // without both resources the split is forced
+                }
+            }
+            current[letter] = 0;
+        }
+    }
+
+    // --------------------------
+    //      BENCHMARK
+    // --------------------------
+
+    /**
+     * Times the three ways of answering a rack query (enumeration, SWAR scan and
+     * a scalar scan) over random racks with 0, 1 and 2 blanks.
+     */
+    public static void main(String[] args) throws IOException {
+        String file = args.length > 0 ? args[0] : "dictionary.txt";
+        List<String> lexicon = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim().toUpperCase();
+                if (!line.isEmpty()) lexicon.add(line);
+            }
+        }
+        AnagramIndex index = new AnagramIndex(lexicon);
+        System.out.println(file + ": " + index.wordCount() + " words, " + index.signatureCount() + " signatures");
+
+        Random random = new Random(1);
+        String tiles = "AAAAAAAAABBCCDDDDEEEEEEEEEEEEFFGGGHHIIIIIIIIIJKLLLLMMNNNNNNOOOOOOOOPPQRRRRRRSSSSTTTTTTUUUUVVWWXYYZ";
+        for (int blanks = 0; blanks <= 2; blanks++) {
+            int[][] racks = new int[2000][LETTERS];
+            for (int[] rack : racks)
+                for (int i = blanks; i < 7; i++) rack[tiles.charAt(random.nextInt(tiles.length())) - 'A']++;
+            int b = blanks;
+            long[] found = new long[1];
+            Consumer<String> count = w -> found[0]++;
+            long enumerate = time(racks, rack -> index.new Query(rack, b, new int[LETTERS], 0, count).search(0, 0, 0, b, 0));
+            long swar = time(racks, rack -> index.scan(rack, b, null, 0, count));
+            long scalar = time(racks, rack -> {
+                for (int g = 0; g < index.signatureCount(); g++) if (index.formableScalar(g, rack, b)) found[0]++;
+            });
+            System.out.printf("  %d blank(s): enumerate %6d ns, SWAR scan %6d ns, scalar scan %6d ns per rack%n",
+                    blanks, enumerate, swar, scalar);
+        }
+    }
+
+    private static long time(int[][] racks, Consumer<int[]> query) {
+        for (int round = 0; round < 3; round++) for (int[] rack : racks) query.accept(rack);   // warm up
+        long start = System.nanoTime();
+        for (int round = 0; round < 5; round++) for (int[] rack : racks) query.accept(rack);
+        return (System.nanoTime() - start) / (5L * racks.length);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * BloomFilter is a compact, approximate membership test over the lexicon used
+ * to reject non-words before the authoritative HashSet is consulted. It is a
+ * blocked filter: all probes for a word land in one 512-bit block (a single
+ * cache line), so a lookup touches one line of memory and never allocates.
+ * A negative answer is always right; a positive answer is wrong with a small,
+ * configurable probability.
+ */
+public class BloomFilter {
+
+    private static final int BLOCK_LONGS = 8;       // 8 x 64 bits = one cache line
+    private static final int BLOCK_BITS = BLOCK_LONGS * 64;
+
+    private final long[] bits;
+    private final int blockMask;
+    private final int probes;
+    private final int count;
+
+    /**
+     * Builds a filter over the given words.
+     *
+     * @param words Words to add (compared case-insensitively)
+     * @param bitsPerWord Memory budget per word; 10 gives about 1% false positives
+     * @param probes Bits set per word
+     */
+    public BloomFilter(Iterable<String> words, int bitsPerWord, int probes) {
+        int n = 0;
+        for (String ignored : words) n++;
+        long wanted = Math.max(1L, (long) n * bitsPerWord / BLOCK_BITS);
+        int blocks = Integer.highestOneBit((int) Math.min(wanted, 1 << 24));
+        if (blocks < wanted) blocks <<= 1;
+        this.bits = new long[blocks * BLOCK_LONGS];
+        this.blockMask = blocks - 1;
+        this.probes = probes;
+        this.count = n;
+        for (String w : words) add(hash(w, 0, w.length()));
+    }
+
+    /**
+     * Hashes the upper-cased characters in [from, to) of a string without copying it.
+     */
+    public static long hash(CharSequence s, int from, int to) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = from; i < to; i++) {
+            h = (h ^ Character.toUpperCase(s.charAt(i))) * 0x100000001B3L;
+        }
+        return Zobrist.mix(h);
+    }
+
+    private void add(long h) {
+        int base = ((int) (h >>> 32) & blockMask) * BLOCK_LONGS;
+        int step = (int) h | 1;
+        int bit = (int) h;
+        for (int i = 0; i < probes; i++) {
+            int b = (bit >>> 23) & (BLOCK_BITS - 1);
+            bits[base + (b >>> 6)] |= 1L << b;
+            bit += step;
+            bit *= 0x9E3779B1;
+        }
+    }
+
+    /**
+     * Returns false if the word with this hash is certainly absent, true if it may be present.
+     */
+    public boolean mightContain(long h) {
+        int base = ((int) (h >>> 32) & blockMask) * BLOCK_LONGS;
+        int step = (int) h | 1;
+        int bit = (int) h;
+        for (int i = 0; i < probes; i++) {
+            int b = (bit >>> 23) & (BLOCK_BITS - 1);
+            if ((bits[base + (b >>> 6)] & (1L << b)) == 0) return false;
+            bit += step;
+            bit *= 0x9E3779B1;
+        }
+        return true;
+    }
+
+    /** Size of the filter in bytes. */
+    public int sizeInBytes() {
+        return bits.length * Long.BYTES;
+    }
+
+    /**
+     * Returns the false-positive rate expected from the filter's size and load
+     * (the textbook estimate, ignoring the small penalty of blocking).
+     */
+    public double expectedFalsePositiveRate() {
+        double m = bits.length * 64.0;
+        return Math.pow(1 - Math.exp(-probes * count / m), probes);
+    }
+}
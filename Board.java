@@ -1,61 +1,52 @@
-import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
-import javax.xml.parsers.*;
-import org.w3c.dom.*;
 
 public class Board implements Serializable {
     private static final long serialVersionUID = 1L;
     private String name;
-    private static final int SIZE = 15;
+    public static final int DEFAULT_SIZE = 15;  // Used when the layout has no size attribute
+    private static final Tile[] PLACED_BLANKS = new Tile[26];  // Shared blanks for applyMove, never mutated
+
+    static {
+        for (int i = 0; i < 26; i++) PLACED_BLANKS[i] = Tile.placedBlank((char) ('A' + i));
+    }
+
+    private int size;                        // Squares per side, from the layout (0 in saves from older versions)
     private final Square[][] grid;
-    private Map<String, List<int[]>> bonuses;
     private String boardFile;
+    private int moveCount;                   // Number of successful placeWord calls on this board
+    private int[] lastPlaced = new int[0];   // Squares (row * size + col) filled by the last placeWord
+    private int[] previousPlaced = new int[0]; // lastPlaced before that, restored by withdrawLastPlacement
+    private transient long hash;             // Zobrist hash of the tiles on the board
+    private transient long layoutHash;       // Hash of the size and every square's bonus
+    private transient long[] rowBits;        // Occupied squares of each row, bit c for column c
+    private transient long[] colBits;        // Occupied squares of each column, bit r for row r
+    private transient long[] rowHash;        // Zobrist hash of the tiles in each row
+    private transient long[] colHash;        // Zobrist hash of the tiles in each column
+    private transient int tileCount;         // Tiles on the board
 
+    /**
+     * Creates an empty board from a layout file. The layout is compiled once and
+     * cached (see BoardLayout), so further boards on the same layout are cheap.
+     *
+     * @param boardFile Layout XML file
+     * @throws IllegalArgumentException if the layout cannot be read or is invalid
+     */
     public Board(String boardFile) {
         this.boardFile = boardFile;
-        grid = new Square[SIZE][SIZE];
-        for (int i = 0; i < SIZE; i++)
-            for (int j = 0; j < SIZE; j++)
+        BoardLayout layout = BoardLayout.load(boardFile);
+        name = layout.getName();
+        size = layout.getSize();
+        grid = new Square[size][size];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++) {
                 grid[i][j] = new Square();
-        bonuses = new HashMap<>();
-        loadBoardFromXML(boardFile);
-        applyBonuses();
-    }
-
-    // Load board and bonuses from XML file
-    private void loadBoardFromXML(String fileName) {
-        try {
-            File file = new File(fileName);
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(file);
-            doc.getDocumentElement().normalize();
-
-            Element boardElement = doc.getDocumentElement();
-            name = boardElement.getAttribute("name");
-
-            NodeList bonusList = boardElement.getElementsByTagName("bonus");
-            for (int i = 0; i < bonusList.getLength(); i++) {
-                Element bonus = (Element) bonusList.item(i);
-                String type = bonus.getAttribute("type");
-                int row = Integer.parseInt(bonus.getAttribute("row"));
-                int col = Integer.parseInt(bonus.getAttribute("col"));
-                bonuses.computeIfAbsent(type, k -> new ArrayList<>()).add(new int[]{row, col});
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void applyBonuses() {
-        for (Map.Entry<String, List<int[]>> entry : bonuses.entrySet()) {
-            String type = entry.getKey();
-            for (int[] pos : entry.getValue()) {
-                int row = pos[0], col = pos[1];
-                grid[row][col].setBonus(Square.Bonus.valueOf(type));
+                grid[i][j].setBonus(layout.bonusAt(i, j));
             }
-        }
+        layoutHash = computeLayoutHash();
+        initOccupancy();
     }
 
     public boolean squareHasTile(int row, int col) {
@@ -63,12 +54,128 @@ public class Board implements Serializable {
     }
 
     public boolean inBounds(int row, int col) {
-        return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+
+    // --------------------------
+    //     OCCUPANCY MASKS
+    // --------------------------
+
+    private void initOccupancy() {
+        rowBits = new long[size];
+        colBits = new long[size];
+        rowHash = new long[size];
+        colHash = new long[size];
+        tileCount = 0;
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                if (grid[r][c].hasTile()) {
+                    occupy(r, c);
+                    Tile t = grid[r][c].getTile();
+                    long key = Zobrist.square(r * size + c, t.getLetter(), t.isBlank());
+                    rowHash[r] ^= key;
+                    colHash[c] ^= key;
+                }
+    }
+
+    private void occupy(int r, int c) {
+        rowBits[r] |= 1L << c;
+        colBits[c] |= 1L << r;
+        tileCount++;
+    }
+
+    private void vacate(int r, int c) {
+        rowBits[r] &= ~(1L << c);
+        colBits[c] &= ~(1L << r);
+        tileCount--;
+    }
+
+    /**
+     * Returns whether a square holds a tile, from the occupancy masks; false off the board.
+     */
+    public boolean isOccupied(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size
+                && (rowBits[row] & (1L << col)) != 0;
+    }
+
+    /**
+     * Returns the number of tiles on the board.
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Adds or removes a tile's key in the board hash and its row and column hashes.
+     */
+    private void toggleHash(int r, int c, char letter, boolean blank) {
+        long key = Zobrist.square(r * size + c, letter, blank);
+        hash ^= key;
+        rowHash[r] ^= key;
+        colHash[c] ^= key;
+    }
+
+    /**
+     * Returns the Zobrist hash of the tiles in one row (or column), 0 for an
+     * empty line or one off the board. Together with its neighbours' hashes it
+     * identifies everything move generation along the line depends on.
+     */
+    public long lineHash(int line, boolean horizontal) {
+        if (line < 0 || line >= size) return 0;
+        return horizontal ? rowHash[line] : colHash[line];
+    }
+
+    /**
+     * Returns whether a row (or column) holds no tiles, from its occupancy mask.
+     *
+     * @param line Row index when horizontal, column index otherwise
+     * @param horizontal Whether line is a row
+     */
+    public boolean isLineEmpty(int line, boolean horizontal) {
+        return (horizontal ? rowBits : colBits)[line] == 0;
+    }
+
+    /**
+     * Returns whether any square from..to-1 along a row (or column) holds a tile,
+     * using the occupancy masks rather than visiting the squares.
+     *
+     * @param line Row index when horizontal, column index otherwise
+     * @param horizontal Whether line is a row
+     * @param from First position along the line (inclusive)
+     * @param to Last position along the line (exclusive)
+     */
+    public boolean lineHasTile(int line, boolean horizontal, int from, int to) {
+        from = Math.max(from, 0);
+        to = Math.min(to, size);
+        if (from >= to) return false;
+        long mask = (-1L << from) & ~(-1L << to);   // to <= BoardLayout.MAX_SIZE < 64
+        return ((horizontal ? rowBits : colBits)[line] & mask) != 0;
+    }
+
+    /**
+     * Returns the line from a square to the board edge as a pattern for
+     * Dictionary.matchPattern: placed letters stay fixed, empty squares are '?'.
+     *
+     * @param row Starting row
+     * @param col Starting column
+     * @param horizontal Whether the line runs across (true) or down (false)
+     * @return Pattern such as "??A?S", empty if the square is off the board
+     */
+    public String linePattern(int row, int col, boolean horizontal) {
+        StringBuilder sb = new StringBuilder();
+        for (int r = row, c = col; inBounds(r, c); r += horizontal ? 0 : 1, c += horizontal ? 1 : 0) {
+            sb.append(grid[r][c].hasTile() ? grid[r][c].getTile().getLetter() : WordTrie.OPEN);
+        }
+        return sb.toString();
     }
 
     public boolean canPlaceWordWithRack(String word, int row, int col, boolean horizontal, Player p) {
+        return canPlaceWordWithRack(word, row, col, horizontal, p.getRack());
+    }
+
+    public boolean canPlaceWordWithRack(String word, int row, int col, boolean horizontal, List<Tile> rack) {
         List<Character> rackCopy = new ArrayList<>();
-        for (Tile t : p.getRack()) rackCopy.add(t.isBlank() ? '*' : t.getLetter());
+        for (Tile t : rack) rackCopy.add(t.isBlank() ? '*' : t.getLetter());
 
         for (int i = 0; i < word.length(); i++) {
             int r = row + (horizontal ? 0 : i);
@@ -84,9 +191,52 @@ public class Board implements Serializable {
         return true;
     }
 
+    /**
+     * Lists the words a move would create, without changing the board: the main
+     * word extended through any tiles touching its ends, then each cross word
+     * of two or more letters through a newly placed tile.
+     *
+     * @param move Move to inspect
+     * @return Words formed, main word first
+     */
+    public List<String> wordsFormed(Move move) {
+        List<String> formed = new ArrayList<>();
+        boolean h = move.isHorizontal();
+        formed.add(lineThrough(move, move.getRow(), move.getCol(), h));
+        String word = move.getWord();
+        for (int i = 0; i < word.length(); i++) {
+            int r = move.getRow() + (h ? 0 : i);
+            int c = move.getCol() + (h ? i : 0);
+            if (squareHasTile(r, c)) continue;
+            String cross = lineThrough(move, r, c, !h);
+            if (cross.length() > 1) formed.add(cross);
+        }
+        return formed;
+    }
+
+    // Letters of the run through (row, col) along one direction, with the move's letters overlaid
+    private String lineThrough(Move move, int row, int col, boolean horizontal) {
+        int dr = horizontal ? 0 : 1, dc = horizontal ? 1 : 0;
+        int r = row, c = col;
+        while (letterWithMove(move, r - dr, c - dc) != 0) { r -= dr; c -= dc; }
+        StringBuilder sb = new StringBuilder();
+        for (char ch; (ch = letterWithMove(move, r, c)) != 0; r += dr, c += dc) sb.append(ch);
+        return sb.toString();
+    }
+
+    private char letterWithMove(Move move, int r, int c) {
+        if (!inBounds(r, c)) return 0;
+        if (grid[r][c].hasTile()) return grid[r][c].getTile().getLetter();
+        int i = move.isHorizontal() ? c - move.getCol() : r - move.getRow();
+        boolean onLine = move.isHorizontal() ? r == move.getRow() : c == move.getCol();
+        return onLine && i >= 0 && i < move.getWord().length() ? move.getWord().charAt(i) : 0;
+    }
+
     public boolean placeWord(String word, int row, int col, boolean horizontal, Player p) {
         if (!canPlaceWordWithRack(word, row, col, horizontal, p)) return false;
 
+        int[] placed = new int[word.length()];
+        int count = 0;
         for (int i = 0; i < word.length(); i++) {
             int r = row + (horizontal ? 0 : i);
             int c = col + (horizontal ? i : 0);
@@ -97,11 +247,313 @@ public class Board implements Serializable {
                 if (removed == null) return false;
                 if (removed.isBlank()) grid[r][c].setTile(Tile.placedBlank(letter));
                 else grid[r][c].setTile(removed);
+                occupy(r, c);
+                placed[count++] = r * size + c;
+                toggleHash(r, c, letter, removed.isBlank());
             }
         }
+        previousPlaced = getLastPlacedSquares();
+        lastPlaced = Arrays.copyOf(placed, count);
+        moveCount++;
         return true;
     }
 
+    /**
+     * Takes back the tiles of the last placeWord, as when a play is withdrawn
+     * after a challenge, and rewinds the move counter and last placement to
+     * what they were before it. Only one placement can be taken back.
+     *
+     * @return The removed tiles, blanks still carrying their assigned letter
+     */
+    public List<Tile> withdrawLastPlacement() {
+        List<Tile> removed = new ArrayList<>();
+        for (int idx : getLastPlacedSquares()) {
+            removed.add(removeTileAt(idx / size, idx % size));
+        }
+        if (moveCount > 0) moveCount--;
+        lastPlaced = previousPlaced == null ? new int[0] : previousPlaced; // null in saves from older versions
+        previousPlaced = new int[0];
+        return removed;
+    }
+
+    /**
+     * Returns the number of squares per side, as given by the layout file.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /** Path of the XML layout this board was loaded from. */
+    public String getLayoutFile() {
+        return boardFile;
+    }
+
+    /**
+     * Returns a hash of the board's size and premium squares. Boards on the same
+     * layout share it whatever their file name; tiles do not change it.
+     */
+    public long getLayoutHash() {
+        return layoutHash;
+    }
+
+    private long computeLayoutHash() {
+        long h = Zobrist.mix(size);
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                h = Zobrist.mix(h ^ grid[r][c].getBonus().ordinal());
+        return h;
+    }
+
+    /**
+     * Returns the Zobrist hash of the tiles on the board, maintained incrementally by placeWord.
+     * Two boards with the same tiles on the same squares have the same hash.
+     *
+     * @return 64-bit position hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Puts a tile on an empty square without any rack or word checks, keeping the
+     * hash up to date. Used by search code together with removeTileAt.
+     */
+    public void setTileAt(int row, int col, Tile tile) {
+        grid[row][col].setTile(tile);
+        occupy(row, col);
+        toggleHash(row, col, tile.getLetter(), tile.isBlank());
+    }
+
+    /**
+     * Takes a tile back off a square, reversing setTileAt.
+     *
+     * @return The removed tile
+     */
+    public Tile removeTileAt(int row, int col) {
+        Tile tile = grid[row][col].removeTile();
+        vacate(row, col);
+        toggleHash(row, col, tile.getLetter(), tile.isBlank());
+        return tile;
+    }
+
+    /**
+     * Scores a word without placing it. Premium squares only count where the
+     * square is still empty. blankIndices lists positions (0-based) of blanks used.
+     */
+    public int scoreWord(String word, int row, int col, boolean horizontal, List<Integer> blankIndices) {
+        int blankMask = 0;
+        if (blankIndices != null) for (int i : blankIndices) blankMask |= 1 << i;
+        return scoreWord(word, row, col, horizontal, blankMask);
+    }
+
+    /**
+     * Same as scoreWord with a list, with blank positions given as a bit mask
+     * (bit i set when letter i is a blank), for callers that must not allocate.
+     */
+    public int scoreWord(String word, int row, int col, boolean horizontal, int blankMask) {
+        int wordMultiplier = 1;
+        int total = 0;
+
+        for (int i = 0; i < word.length(); i++) {
+            int r = row + (horizontal ? 0 : i);
+            int c = col + (horizontal ? i : 0);
+            char ch = word.charAt(i);
+
+            Square sq = getSquare(r, c);
+            int letterScore = (blankMask & (1 << i)) != 0 ? 0 : GameModel.LETTER_VALUES.getOrDefault(ch, 0);
+            if (!sq.hasTile()) {
+                switch (sq.getBonus()) {
+                    case DL: letterScore *= 2; break;
+                    case TL: letterScore *= 3; break;
+                    case DW: wordMultiplier *= 2; break;
+                    case TW: wordMultiplier *= 3; break;
+                }
+            }
+            total += letterScore;
+        }
+        return total * wordMultiplier;
+    }
+
+    /**
+     * Scores a play without placing it: the main word, extended through any tiles
+     * touching its ends, plus every cross-word through a newly placed tile.
+     * Premium squares count only under new tiles, and tiles already on the board
+     * score their face value (nothing for a blank). The bingo bonus is not included.
+     * Nothing is allocated.
+     *
+     * @param blankMask Bit i set when letter i of the word is played with a blank
+     */
+    public int scoreMove(String word, int row, int col, boolean horizontal, int blankMask) {
+        int dr = horizontal ? 0 : 1, dc = horizontal ? 1 : 0;
+        int len = word.length();
+        int main = 0, mainMultiplier = 1, mainLength = len, crosses = 0;
+        boolean anyCross = false;
+        for (int r = row - dr, c = col - dc; isOccupied(r, c); r -= dr, c -= dc, mainLength++) main += tileValue(r, c);
+        for (int r = row + dr * len, c = col + dc * len; isOccupied(r, c); r += dr, c += dc, mainLength++) {
+            main += tileValue(r, c);
+        }
+
+        for (int i = 0; i < len; i++) {
+            int r = row + dr * i, c = col + dc * i;
+            if (isOccupied(r, c)) {
+                main += tileValue(r, c);
+                continue;
+            }
+            int letterScore = (blankMask & (1 << i)) != 0 ? 0 : GameModel.LETTER_VALUES.getOrDefault(word.charAt(i), 0);
+            int wordMultiplier = 1;
+            switch (grid[r][c].getBonus()) {
+                case DL: letterScore *= 2; break;
+                case TL: letterScore *= 3; break;
+                case DW: wordMultiplier = 2; break;
+                case TW: wordMultiplier = 3; break;
+            }
+            main += letterScore;
+            mainMultiplier *= wordMultiplier;
+
+            // Cross-word through the new tile, perpendicular to the play
+            int cross = 0;
+            boolean formed = false;
+            for (int cr = r - dc, cc = c - dr; isOccupied(cr, cc); cr -= dc, cc -= dr, formed = true) cross += tileValue(cr, cc);
+            for (int cr = r + dc, cc = c + dr; isOccupied(cr, cc); cr += dc, cc += dr, formed = true) cross += tileValue(cr, cc);
+            if (formed) {
+                crosses += (cross + letterScore) * wordMultiplier;
+                anyCross = true;
+            }
+        }
+        // A lone tile only scores the words it forms across
+        if (mainLength < 2 && anyCross) return crosses;
+        return main * mainMultiplier + crosses;
+    }
+
+    private int tileValue(int r, int c) {
+        Tile t = grid[r][c].getTile();
+        return t.isBlank() ? 0 : GameModel.LETTER_VALUES.getOrDefault(t.getLetter(), 0);
+    }
+
+    /**
+     * Plays a move in place: takes the needed tiles out of the rack (exact letters
+     * before blanks, like Player.takeTileForLetter), puts them on the board and
+     * records everything on the stack so undoMove can restore it exactly.
+     * Nothing is allocated.
+     *
+     * @param move Move to play
+     * @param rack Rack to take tiles from (modified)
+     * @param stack Stack receiving the undo record
+     * @return Points scored, including the bingo bonus
+     * @throws IllegalArgumentException if the move does not fit the board or the rack; nothing is changed
+     */
+    public int applyMove(Move move, List<Tile> rack, MoveStack stack) {
+        String word = move.getWord();
+        boolean horizontal = move.isHorizontal();
+        int frame = stack.push();
+        int blankMask = 0;
+
+        // Take tiles off the rack first so scoring still sees the empty squares
+        for (int i = 0; i < word.length(); i++) {
+            int r = move.getRow() + (horizontal ? 0 : i);
+            int c = move.getCol() + (horizontal ? i : 0);
+            char letter = word.charAt(i);
+            if (!inBounds(r, c)) return rejectMove(move, rack, stack);
+            if (grid[r][c].hasTile()) {
+                if (grid[r][c].getLetter() != letter) return rejectMove(move, rack, stack);
+                continue;
+            }
+            int index = rackIndexFor(rack, letter);
+            if (index < 0 || stack.tileCount(frame) == MoveStack.MAX_TILES) return rejectMove(move, rack, stack);
+            Tile tile = rack.remove(index);
+            if (tile.isBlank()) blankMask |= 1 << i;
+            stack.addTile(frame, r, c, tile, index);
+        }
+
+        int count = stack.tileCount(frame);
+        int score = scoreMove(word, move.getRow(), move.getCol(), horizontal, blankMask);
+        if (count == MoveStack.MAX_TILES) score += 50; // bingo
+
+        for (int k = 0; k < count; k++) {
+            int r = stack.row(frame, k), c = stack.col(frame, k);
+            Tile tile = stack.rackTile(frame, k);
+            char letter = word.charAt(horizontal ? c - move.getCol() : r - move.getRow());
+            setTileAt(r, c, tile.isBlank() ? PLACED_BLANKS[letter - 'A'] : tile);
+        }
+        stack.setScore(frame, score);
+        return score;
+    }
+
+    /**
+     * Reverses the most recent applyMove: clears its squares and puts the tiles
+     * back into the rack at their original positions.
+     *
+     * @param rack Rack the tiles were taken from (modified)
+     * @param stack Stack holding the undo record
+     */
+    public void undoMove(List<Tile> rack, MoveStack stack) {
+        int frame = stack.top();
+        restoreRack(rack, stack, frame);
+        for (int k = 0; k < stack.tileCount(frame); k++) {
+            removeTileAt(stack.row(frame, k), stack.col(frame, k));
+        }
+        stack.pop();
+    }
+
+    private int rejectMove(Move move, List<Tile> rack, MoveStack stack) {
+        restoreRack(rack, stack, stack.top());
+        stack.pop();
+        throw new IllegalArgumentException("Move does not fit the board or rack: " + move);
+    }
+
+    private static void restoreRack(List<Tile> rack, MoveStack stack, int frame) {
+        for (int k = stack.tileCount(frame) - 1; k >= 0; k--) {
+            rack.add(stack.rackIndex(frame, k), stack.rackTile(frame, k));
+        }
+    }
+
+    private static int rackIndexFor(List<Tile> rack, char letter) {
+        int blank = -1;
+        for (int i = 0; i < rack.size(); i++) {
+            Tile t = rack.get(i);
+            if (!t.isBlank() && t.getLetter() == letter) return i;
+            if (t.isBlank() && blank < 0) blank = i;
+        }
+        return blank;
+    }
+
+    private long computeHash() {
+        long h = 0;
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                if (grid[r][c].hasTile()) {
+                    Tile t = grid[r][c].getTile();
+                    h ^= Zobrist.square(r * size + c, t.getLetter(), t.isBlank());
+                }
+        return h;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (size == 0) size = grid.length; // saves from before the size field
+        hash = computeHash();
+        layoutHash = computeLayoutHash();
+        initOccupancy();
+    }
+
+    /**
+     * Returns the number of words placed on this board, used by views to detect changes.
+     *
+     * @return Count of successful placeWord calls
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the squares filled by the most recent placeWord, encoded as row * size + col.
+     *
+     * @return Copy of the last placed square indices
+     */
+    public int[] getLastPlacedSquares() {
+        return lastPlaced == null ? new int[0] : lastPlaced.clone(); // null in saves from older versions
+    }
+
     public Square getSquare(int row, int col) {
         if (!inBounds(row, col)) throw new IndexOutOfBoundsException();
         return grid[row][col];
@@ -116,13 +568,13 @@ public class Board implements Serializable {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("   ");
-        for (char c = 'A'; c <= 'O'; c++) sb.append(c).append(" ");
+        for (int c = 0; c < size; c++) sb.append((char) ('A' + c)).append(" ");
         sb.append("\n");
 
-        for (int i = 0; i < SIZE; i++) {
+        for (int i = 0; i < size; i++) {
             if (i + 1 < 10) sb.append(" ");
             sb.append(i + 1).append(" ");
-            for (int j = 0; j < SIZE; j++)
+            for (int j = 0; j < size; j++)
                 sb.append(grid[i][j].toString()).append(" ");
             sb.append("\n");
         }
@@ -137,25 +589,67 @@ public class Board implements Serializable {
     }
 
     public Board copy() {
-        Board b = new Board(this.boardFile);
+        return new Board(this, true);
+    }
 
-        // deep copy squares
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                b.grid[r][c] = this.grid[r][c].copy();
+    /**
+     * Returns a board with this board's layout and no tiles. Only the premium
+     * squares are read, and they never change, so any thread may call this
+     * while the board is being played on.
+     */
+    public Board emptyCopy() {
+        return new Board(this, false);
+    }
+
+    /**
+     * Sets the move counter and last placement of a board rebuilt from a
+     * snapshot (see PersistentGameState), so views see the same history as the
+     * board the snapshot was taken from.
+     */
+    public void setMoveRecord(int moveCount, int[] lastPlaced) {
+        this.moveCount = moveCount;
+        this.lastPlaced = lastPlaced.clone();
+        this.previousPlaced = new int[0];
+    }
+
+    /**
+     * Copy constructor used by copy() and emptyCopy(): duplicates the squares
+     * (with their bonuses) without reading the layout file again, so search code
+     * can clone cheaply.
+     */
+    private Board(Board other, boolean withTiles) {
+        this.boardFile = other.boardFile;
+        this.name = other.name;
+        this.size = other.size;
+        grid = new Square[size][size];
+        layoutHash = other.layoutHash;
+
+        if (!withTiles) {
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    grid[r][c] = new Square();
+                    grid[r][c].setBonus(other.grid[r][c].getBonus());
+                }
             }
+            initOccupancy();
+            return;
         }
 
-        // deep copy bonuses map
-        b.bonuses = new HashMap<>();
-        for (String key : this.bonuses.keySet()) {
-            List<int[]> newList = new ArrayList<>();
-            for (int[] pos : this.bonuses.get(key)) {
-                newList.add(new int[]{pos[0], pos[1]});
+        // deep copy squares
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                grid[r][c] = other.grid[r][c].copy();
             }
-            b.bonuses.put(key, newList);
         }
 
-        return b;
+        hash = other.hash;
+        rowBits = other.rowBits.clone();
+        colBits = other.colBits.clone();
+        rowHash = other.rowHash.clone();
+        colHash = other.colHash.clone();
+        tileCount = other.tileCount;
+        moveCount = other.moveCount;
+        lastPlaced = other.getLastPlacedSquares();
+        previousPlaced = other.previousPlaced == null ? new int[0] : other.previousPlaced.clone();
     }
 }
@@ -0,0 +1,282 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * BoardLayout is a board layout file compiled into an immutable array of
+ * premium squares. Layouts are parsed with a streaming (StAX) reader that
+ * checks every bonus entry and fails with the file, line and column of the
+ * first problem. Compiled layouts are cached in memory by file (path, size and
+ * modification time) and by content hash, and optionally on disk by content
+ * hash, so creating another game on the same layout costs a cache lookup.
+ *
+ * Layout format:
+ * <pre>
+ * &lt;board name="Standard Scrabble Board" size="15"&gt;
+ *     &lt;bonus type="TW" row="0" col="0"/&gt;
+ *     ...
+ * &lt;/board&gt;
+ * </pre>
+ */
+public final class BoardLayout {
+
+    /** Largest board side; columns are named by a single letter A-Z. */
+    public static final int MAX_SIZE = 26;
+
+    private static final int MAGIC = 0x4C415954;   // "LAYT"
+    private static final int FORMAT_VERSION = 1;
+    private static final Square.Bonus[] BONUSES = Square.Bonus.values();
+
+    private static final Map<String, BoardLayout> BY_FILE = new ConcurrentHashMap<>();
+    private static final Map<String, BoardLayout> BY_CONTENT = new ConcurrentHashMap<>();
+    private static volatile File diskCacheDir = initialDiskCacheDir();
+
+    private final String name;
+    private final int size;
+    private final byte[] premiums;   // Bonus ordinal per square, row * size + col
+    private final String contentHash;
+
+    private BoardLayout(String name, int size, byte[] premiums, String contentHash) {
+        this.name = name;
+        this.size = size;
+        this.premiums = premiums;
+        this.contentHash = contentHash;
+    }
+
+    public String getName() { return name; }
+    public int getSize() { return size; }
+
+    /** Hex SHA-256 of the layout file the layout was compiled from. */
+    public String getContentHash() { return contentHash; }
+
+    public Square.Bonus bonusAt(int row, int col) {
+        return BONUSES[premiums[row * size + col]];
+    }
+
+    // --------------------------
+    //         LOADING
+    // --------------------------
+
+    /**
+     * Returns the compiled layout of a file, from a cache when possible.
+     *
+     * @param fileName Layout XML file
+     * @return Compiled layout
+     * @throws IllegalArgumentException if the file cannot be read or is not a valid layout
+     * @throws UncheckedIOException if the disk cache is enabled and cannot be written
+     */
+    public static BoardLayout load(String fileName) {
+        File file = new File(fileName);
+        String fileKey = file.getAbsolutePath() + '|' + file.length() + '|' + file.lastModified();
+        BoardLayout cached = BY_FILE.get(fileKey);
+        if (cached != null) return cached;
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read board layout " + fileName + ": " + e.getMessage(), e);
+        }
+        BoardLayout layout = compile(fileName, content);
+        BY_FILE.put(fileKey, layout);
+        return layout;
+    }
+
+    /**
+     * Compiles layout XML, going through the content-hash caches.
+     *
+     * @param source Name used in error messages
+     * @param content Layout XML
+     * @return Compiled layout
+     * @throws IllegalArgumentException if the content is not a valid layout
+     * @throws UncheckedIOException if the disk cache is enabled and cannot be written
+     */
+    public static BoardLayout compile(String source, byte[] content) {
+        String hash = sha256(content);
+        BoardLayout layout = BY_CONTENT.get(hash);
+        if (layout != null) return layout;
+
+        File dir = diskCacheDir;
+        File cacheFile = dir == null ? null : new File(dir, hash + ".layout");
+        if (cacheFile != null && cacheFile.isFile()) {
+            try {
+                layout = readCompiled(cacheFile, hash);
+            } catch (IOException e) {
+                layout = null; // stale or damaged entry: recompile and overwrite it
+            }
+        }
+        if (layout == null) {
+            layout = parse(source, content, hash);
+            if (cacheFile != null) {
+                try {
+                    writeCompiled(layout, cacheFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot write layout cache " + cacheFile, e);
+                }
+            }
+        }
+        BY_CONTENT.put(hash, layout);
+        return layout;
+    }
+
+    /**
+     * Enables the on-disk cache of compiled layouts, or disables it with null.
+     *
+     * @param dir Directory to keep compiled layouts in (created if needed)
+     */
+    public static void setDiskCacheDir(File dir) {
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create layout cache directory " + dir);
+        }
+        diskCacheDir = dir;
+    }
+
+    // The disk cache is off unless the scrabble.layoutCache system property names a directory
+    private static File initialDiskCacheDir() {
+        String dir = System.getProperty("scrabble.layoutCache");
+        if (dir == null || dir.isEmpty()) return null;
+        File f = new File(dir);
+        return f.isDirectory() || f.mkdirs() ? f : null;
+    }
+
+    /** Forgets every layout cached in memory (the disk cache is left alone). */
+    public static void clearMemoryCache() {
+        BY_FILE.clear();
+        BY_CONTENT.clear();
+    }
+
+    // --------------------------
+    //         PARSING
+    // --------------------------
+
+    private static BoardLayout parse(String source, byte[] content, String hash) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        String name = null;
+        int size = -1;
+        byte[] premiums = null;
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(new ByteArrayInputStream(content));
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT) continue;
+                    String element = xml.getLocalName();
+                    if (premiums == null) {
+                        if (!element.equals("board")) throw error(source, xml.getLocation(), "root element must be <board>, found <" + element + ">");
+                        name = attribute(xml, "name", "");
+                        String sizeText = attribute(xml, "size", Integer.toString(Board.DEFAULT_SIZE));
+                        size = number(source, xml, "size", sizeText);
+                        if (size < 1 || size > MAX_SIZE) throw error(source, xml.getLocation(), "size must be 1-" + MAX_SIZE + ", was " + size);
+                        premiums = new byte[size * size];
+                    } else if (element.equals("bonus")) {
+                        readBonus(source, xml, size, premiums);
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed board layout " + source + ": " + e.getMessage(), e);
+        }
+        if (premiums == null) throw new IllegalArgumentException("Board layout " + source + " has no <board> element");
+        return new BoardLayout(name, size, premiums, hash);
+    }
+
+    private static void readBonus(String source, XMLStreamReader xml, int size, byte[] premiums) {
+        Location at = xml.getLocation();
+        String type = attribute(xml, "type", null);
+        if (type == null) throw error(source, at, "bonus without a type");
+        Square.Bonus bonus;
+        try {
+            bonus = Square.Bonus.valueOf(type.trim());
+        } catch (IllegalArgumentException e) {
+            bonus = Square.Bonus.NONE;
+        }
+        if (bonus == Square.Bonus.NONE) throw error(source, at, "unknown bonus type \"" + type + "\"");
+
+        int row = number(source, xml, "row", attribute(xml, "row", null));
+        int col = number(source, xml, "col", attribute(xml, "col", null));
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            throw error(source, at, "bonus at row " + row + ", col " + col + " is off the " + size + "x" + size + " board");
+        }
+        int square = row * size + col;
+        if (premiums[square] != 0) {
+            throw error(source, at, "duplicate bonus at row " + row + ", col " + col
+                    + " (already " + BONUSES[premiums[square]] + ")");
+        }
+        premiums[square] = (byte) bonus.ordinal();
+    }
+
+    private static String attribute(XMLStreamReader xml, String name, String fallback) {
+        String value = xml.getAttributeValue(null, name);
+        return value == null ? fallback : value;
+    }
+
+    private static int number(String source, XMLStreamReader xml, String name, String text) {
+        if (text == null) throw error(source, xml.getLocation(), "missing " + name + " attribute");
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw error(source, xml.getLocation(), name + " is not a number: \"" + text + "\"");
+        }
+    }
+
+    private static IllegalArgumentException error(String source, Location at, String message) {
+        return new IllegalArgumentException("Invalid board layout " + source + " (line " + at.getLineNumber()
+                + ", column " + at.getColumnNumber() + "): " + message);
+    }
+
+    // --------------------------
+    //    COMPILED DISK FORMAT
+    // --------------------------
+
+    private static BoardLayout readCompiled(File file, String hash) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) throw new IOException("Not a compiled layout: " + file);
+            String name = in.readUTF();
+            int size = in.readUnsignedByte();
+            if (size < 1 || size > MAX_SIZE) throw new IOException("Corrupt compiled layout: " + file);
+            byte[] premiums = new byte[size * size];
+            in.readFully(premiums);
+            for (byte b : premiums) {
+                if (b < 0 || b >= BONUSES.length) throw new IOException("Corrupt compiled layout: " + file);
+            }
+            return new BoardLayout(name, size, premiums, hash);
+        }
+    }
+
+    private static void writeCompiled(BoardLayout layout, File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(layout.name);
+            out.writeByte(layout.size);
+            out.write(layout.premiums);
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) throw new IOException("Cannot move " + tmp + " to " + file);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * BoardPanel draws the board as a grid of squares and repaints incrementally.
+ * When the board has only advanced by one move since the last render, only the
+ * squares filled by that move are updated; otherwise the cached contents are
+ * diffed and only squares that changed are touched.
+ */
+public class BoardPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private static final Color EMPTY_COLOR = new Color(238, 232, 214);
+    private static final Color TILE_COLOR = new Color(250, 216, 140);
+    private static final Color DL_COLOR = new Color(173, 216, 230);
+    private static final Color TL_COLOR = new Color(70, 130, 180);
+    private static final Color DW_COLOR = new Color(255, 182, 193);
+    private static final Color TW_COLOR = new Color(220, 60, 60);
+
+    private JLabel[] cells = new JLabel[0];
+    private static final int TILE = 1 << 16, BLANK = 1 << 17;
+
+    private int[] shown = new int[0];       // State currently displayed in each cell: symbol plus TILE / BLANK flags
+    private int size;
+    private boolean rendered;
+    private int renderedMoveCount = -1;
+    private long renderedHash;
+
+    public BoardPanel() {
+        setBackground(Color.DARK_GRAY);
+    }
+
+    /**
+     * Brings the grid up to date with the given board.
+     * Must be called on the event dispatch thread.
+     *
+     * @param board Board to render
+     */
+    public void render(Board board) {
+        if (board.getSize() != size) {
+            buildGrid(board.getSize());
+        }
+
+        // Observers get a fresh board each time, so compare contents, never identity
+        int moveCount = board.getMoveCount();
+        long hash = board.getHash();
+        if (rendered && moveCount == renderedMoveCount && hash == renderedHash) {
+            return; // nothing placed since the last render
+        }
+        int[] placed = board.getLastPlacedSquares();
+        if (rendered && moveCount == renderedMoveCount + 1 && hash == (renderedHash ^ placedKeys(board, placed))) {
+            // Exactly the last placement was added to what is shown
+            for (int index : placed) {
+                renderSquare(board, index / size, index % size);
+            }
+        } else {
+            // Undo, redo, load or several moves at once: diff every square
+            for (int r = 0; r < size; r++)
+                for (int c = 0; c < size; c++)
+                    renderSquare(board, r, c);
+        }
+        rendered = true;
+        renderedMoveCount = moveCount;
+        renderedHash = hash;
+    }
+
+    /**
+     * Zobrist keys of the tiles on the given squares, XORed: what placing them
+     * added to the board hash.
+     */
+    private static long placedKeys(Board board, int[] squares) {
+        long keys = 0;
+        for (int index : squares) {
+            Tile t = board.getSquare(index / board.getSize(), index % board.getSize()).getTile();
+            if (t == null) return 0; // the placement has since been taken back
+            keys ^= Zobrist.square(index, t.getLetter(), t.isBlank());
+        }
+        return keys;
+    }
+
+    private void buildGrid(int newSize) {
+        removeAll();
+        size = newSize;
+        cells = new JLabel[size * size];
+        shown = new int[size * size];
+        setLayout(new GridLayout(size + 1, size + 1, 1, 1));
+
+        add(headerLabel(""));
+        for (int c = 0; c < size; c++) add(headerLabel(String.valueOf((char) ('A' + c))));
+        for (int r = 0; r < size; r++) {
+            add(headerLabel(String.valueOf(r + 1)));
+            for (int c = 0; c < size; c++) {
+                JLabel cell = new JLabel("", SwingConstants.CENTER);
+                cell.setOpaque(true);
+                cell.setFont(new Font("Monospaced", Font.BOLD, 14));
+                cells[r * size + c] = cell;
+                add(cell);
+            }
+        }
+        rendered = false;
+        renderedMoveCount = -1;
+        revalidate();
+    }
+
+    private JLabel headerLabel(String text) {
+        JLabel label = new JLabel(text, SwingConstants.CENTER);
+        label.setForeground(Color.WHITE);
+        label.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        return label;
+    }
+
+    private void renderSquare(Board board, int r, int c) {
+        Square sq = board.getSquare(r, c);
+        int index = r * size + c;
+        char symbol = sq.toString().charAt(0);
+        int state = symbol;
+        if (sq.hasTile()) state |= sq.getTile().isBlank() ? TILE | BLANK : TILE;
+        if (shown[index] == state) return;
+
+        JLabel cell = cells[index];
+        shown[index] = state;
+        if (sq.hasTile()) {
+            cell.setText(String.valueOf(symbol));
+            cell.setBackground(TILE_COLOR);
+            cell.setForeground(sq.getTile().isBlank() ? Color.GRAY : Color.BLACK);
+        } else {
+            cell.setText(symbol == '.' ? "" : String.valueOf(symbol));
+            cell.setBackground(bonusColor(sq.getBonus()));
+            cell.setForeground(Color.BLACK);
+        }
+    }
+
+    private Color bonusColor(Square.Bonus bonus) {
+        switch (bonus) {
+            case DL: return DL_COLOR;
+            case TL: return TL_COLOR;
+            case DW: return DW_COLOR;
+            case TW: return TW_COLOR;
+            default: return EMPTY_COLOR;
+        }
+    }
+}
@@ -1,18 +1,56 @@
 import java.io.*;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Dictionary implements Serializable {
     private static final long serialVersionUID = 1L;
     private Set<String> words;
+    private transient volatile AnagramIndex anagramIndex;
+    private transient volatile WordTrie trie;
+    private transient volatile BloomFilter bloom;
+    private boolean bloomDisabled;
+
+    private static final int BLOOM_BITS_PER_WORD = 10;
+    private static final int BLOOM_PROBES = 7;
 
     public Dictionary(String filename) {
-        words = new HashSet<>();
+        this(filename, false);
+    }
+
+    /**
+     * Loads a word list, optionally into a succinct LOUDS trie instead of a
+     * HashSet. The succinct form takes a small fraction of the memory, which
+     * matters when several large lexicons are loaded at once, at the cost of
+     * slower lookups; the anagram index is then built only when first needed.
+     *
+     * @param filename Word list, one word per line
+     * @param succinct Whether to store the words in a LoudsTrie
+     */
+    public Dictionary(String filename, boolean succinct) {
+        Collection<String> loaded = succinct ? new ArrayList<>() : new HashSet<>();
+        readWords(filename, loaded);
+        if (succinct) {
+            words = new LoudsTrie(loaded).asSet();
+        } else {
+            words = (Set<String>) loaded;
+            anagramIndex = new AnagramIndex(words);
+        }
+        bloom = new BloomFilter(words, BLOOM_BITS_PER_WORD, BLOOM_PROBES);
+    }
+
+    private Dictionary(LoudsTrie trie) {
+        words = trie.asSet();
+        bloom = new BloomFilter(words, BLOOM_BITS_PER_WORD, BLOOM_PROBES);
+    }
+
+    private static void readWords(String filename, Collection<String> into) {
         try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
             String line;
             while ((line = br.readLine()) != null) {
                 line = line.trim(); // remove leading/trailing whitespace and newlines
                 if (!line.isEmpty()) {
-                    words.add(line.toUpperCase());
+                    into.add(line.toUpperCase());
                 }
             }
         } catch (IOException e) {
@@ -20,14 +58,165 @@ public class Dictionary implements Serializable {
         }
     }
 
+    // --------------------------
+    //      OFF-HEAP LEXICONS
+    // --------------------------
+
+    /**
+     * Compiles a word list into a file that openCompiled() can map.
+     *
+     * @param wordList Word list, one word per line
+     * @param compiledFile File to write
+     */
+    public static void compile(String wordList, String compiledFile) throws IOException {
+        List<String> loaded = new ArrayList<>();
+        readWords(wordList, loaded);
+        new LoudsTrie(loaded).writeTo(new File(compiledFile));
+    }
+
+    /**
+     * Opens a compiled lexicon by memory-mapping it. The word data stays outside
+     * the Java heap, so it adds nothing to GC work however large it is, and the
+     * mapping is shared read-only by every thread using this Dictionary.
+     *
+     * @param compiledFile File written by compile()
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a compiled lexicon
+     */
+    public static Dictionary openCompiled(String compiledFile) throws IOException {
+        return new Dictionary(LoudsTrie.map(new File(compiledFile)));
+    }
+
     public Set<String> getAllWords() {
         return new HashSet<>(words); // returns a copy of all words
     }
 
+    /**
+     * Returns a read-only view of the words, without copying them.
+     */
+    public Set<String> getWordsView() {
+        return Collections.unmodifiableSet(words);
+    }
+
     public boolean isValidWord(String word) {
         if (word == null) return false;
+        EngineMetrics.WORD_LOOKUPS.increment();
+
+        if (!bloomDisabled) {
+            // Same bounds as trim(), hashed in place so rejected words cost no allocation
+            int start = 0, end = word.length();
+            while (start < end && word.charAt(start) <= ' ') start++;
+            while (end > start && word.charAt(end - 1) <= ' ') end--;
+            if (!getBloomFilter().mightContain(BloomFilter.hash(word, start, end))) {
+                EngineMetrics.BLOOM_REJECTS.increment();
+                return false;
+            }
+        }
+
         word = word.trim().toUpperCase(); // trim spaces and convert to uppercase
-        return words.contains(word);
+        boolean found = words.contains(word);
+        if (!bloomDisabled) {
+            if (found) EngineMetrics.BLOOM_HITS.increment();
+            else EngineMetrics.BLOOM_FALSE_POSITIVES.increment();
+        }
+        return found;
+    }
+
+    /**
+     * Turns the Bloom filter in front of isValidWord on or off. Answers are the
+     * same either way; only the cost of rejecting non-words changes.
+     */
+    public void setBloomFilterEnabled(boolean enabled) {
+        bloomDisabled = !enabled;
+    }
+
+    /**
+     * Returns the Bloom filter over these words, rebuilding it after deserialization.
+     */
+    public BloomFilter getBloomFilter() {
+        BloomFilter f = bloom;
+        if (f == null) {
+            synchronized (this) {
+                f = bloom;
+                if (f == null) bloom = f = new BloomFilter(words, BLOOM_BITS_PER_WORD, BLOOM_PROBES);
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Returns the anagram index over these words, rebuilding it after deserialization.
+     */
+    public AnagramIndex getAnagramIndex() {
+        AnagramIndex index = anagramIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = anagramIndex;
+                if (index == null) anagramIndex = index = new AnagramIndex(words);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns every word that can be made from the given rack letters alone.
+     *
+     * @param rackLetters Rack letters, with '*' or '?' for blanks
+     * @return Matching words, sorted
+     */
+    public List<String> wordsFromRack(String rackLetters) {
+        return getAnagramIndex().formable(rackLetters, "", 0);
+    }
+
+    // --------------------------
+    //      PATTERN QUERIES
+    // --------------------------
+
+    /**
+     * Returns the trie used for pattern queries, building it on first use.
+     */
+    public WordTrie getTrie() {
+        WordTrie t = trie;
+        if (t == null) {
+            synchronized (this) {
+                t = trie;
+                if (t == null) trie = t = new WordTrie(words);
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Returns the words of exactly the pattern's length matching it, e.g. "?A??S".
+     *
+     * @param pattern Letters for fixed squares and '?' for open slots
+     * @return Lazy iterator over matches in alphabetical order
+     */
+    public Iterator<String> matchPattern(String pattern) {
+        return matchPattern(pattern, pattern.length(), null);
+    }
+
+    /**
+     * Returns the words matching a pattern with a length range and a rack limit.
+     * Words may be shorter than the pattern (down to minLength) and must agree
+     * with it letter by letter; open slots must be filled from rackLetters.
+     *
+     * @param pattern Letters for fixed squares and '?' for open slots
+     * @param minLength Shortest word wanted
+     * @param rackLetters Letters to fill open slots from, '*' for blanks, or null for any letter
+     * @return Lazy iterator over matches in alphabetical order
+     */
+    public Iterator<String> matchPattern(String pattern, int minLength, String rackLetters) {
+        return getTrie().match(pattern, minLength, rackLetters);
+    }
+
+    /**
+     * Stream form of {@link #matchPattern(String, int, String)}.
+     */
+    public Stream<String> streamPattern(String pattern, int minLength, String rackLetters) {
+        Iterator<String> it = matchPattern(pattern, minLength, rackLetters);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
     }
 
 }
@@ -0,0 +1,439 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EndgameSolver plays out positions where the bag is empty and both racks are
+ * known. It runs a negamax alpha-beta search over the spread (own points minus
+ * opponent points) with iterative deepening, score-ordered moves and a shared
+ * transposition table. Moves are made and unmade in place (Board.applyMove and
+ * undoMove) on one board per worker, so no position is copied during the search. Root moves after the first are
+ * searched in parallel on all cores.
+ *
+ * Only words spelled from the letters on the board and both racks are tried,
+ * and the last ply before the horizon is scored straight from the generator's
+ * packed moves, without making them.
+ *
+ * End of game follows the usual rules: a player who goes out gains the value
+ * of the opponent's rack twice over in spread, and after two consecutive
+ * passes each player loses the value of their own rack.
+ */
+public class EndgameSolver {
+
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+
+    private static final int INFINITY = 1_000_000;
+    private static final int EXACT = 0, LOWER = 1, UPPER = 2;
+    private static final long[] SIDE_SEEDS = {0x510E527FADE682D1L, 0x9B05688C2B3E6C1FL};
+    private static final long SIDE_TO_MOVE = Zobrist.mix(0x1F83D9ABFB41BD6BL);
+    private static final long ONE_PASS = Zobrist.mix(0x5BE0CD19137E2179L);
+
+    private static final int[] TILE_VALUES = new int[26];
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) TILE_VALUES[c - 'A'] = GameModel.LETTER_VALUES.getOrDefault(c, 0);
+    }
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "scrabble-endgame");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Thrown through the search when the time budget runs out; preallocated and stackless. */
+    private static final RuntimeException TIMEOUT = new RuntimeException("Endgame search timed out", null, false, false) {
+    };
+
+    private final Dictionary dictionary;
+    private final long timeBudgetMillis;
+    private final TranspositionCache<Entry> table = new TranspositionCache<>(1 << 18, 64);
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicBoolean reachedHorizon = new AtomicBoolean();
+    private volatile long deadline;
+
+    public EndgameSolver(Dictionary dictionary) {
+        this(dictionary, DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    public EndgameSolver(Dictionary dictionary, long timeBudgetMillis) {
+        this.dictionary = dictionary;
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Finds the best move for the player to move.
+     *
+     * @param board Current board (not modified)
+     * @param rack Rack of the player to move
+     * @param opponentRack Rack of the opponent
+     * @return Best move found, with its spread and search statistics
+     */
+    public Result solve(Board board, List<Tile> rack, List<Tile> opponentRack) {
+        long start = System.nanoTime();
+        deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        nodes.set(0);
+
+        int tilesLeft = rack.size() + opponentRack.size();
+        AnagramIndex lexicon = reachableWords(board, rack, opponentRack);
+        Position root = new Position(board.copy(), new ArrayList<>(rack), new ArrayList<>(opponentRack), 2 * tilesLeft + 2, lexicon);
+        Move bestMove = null;
+        int bestValue = 0, completedDepth = 0;
+        boolean exact = false;
+
+        // Each move plays at least one tile, so the game ends within this many plies (passes included)
+        int maxDepth = 2 * tilesLeft + 2;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            reachedHorizon.set(false);
+            try {
+                RootResult r = searchRoot(root, depth, bestMove);
+                bestMove = r.move;
+                bestValue = r.value;
+                completedDepth = depth;
+            } catch (RuntimeException e) {
+                if (e != TIMEOUT) throw e;
+                break; // keep the result of the last completed depth
+            }
+            if (!reachedHorizon.get()) {
+                exact = true; // every line reached the end of the game
+                break;
+            }
+        }
+        if (completedDepth == 0) {
+            // Not even one ply finished in time: play the highest scoring move rather than pass
+            List<Move> moves = orderedMoves(root, 0, null);
+            bestMove = moves.isEmpty() ? null : moves.get(0);
+            bestValue = bestMove == null ? 0 : bestMove.getScore();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(bestMove, bestValue, completedDepth, nodes.get(), exact, elapsed);
+    }
+
+    /**
+     * Indexes the only words either side can still play: those spelled from the
+     * letters on the board and on both racks, since every tile placed from now on
+     * comes from one of the racks. Scanning this index instead of the whole
+     * lexicon makes each line searched during the solve much cheaper.
+     */
+    private AnagramIndex reachableWords(Board board, List<Tile> rack, List<Tile> opponentRack) {
+        int[] rackLetters = new int[26], boardLetters = new int[26];
+        int blanks = 0, onBoard = 0;
+        for (List<Tile> tiles : List.of(rack, opponentRack)) {
+            for (Tile t : tiles) {
+                if (t.isBlank()) blanks++;
+                else rackLetters[t.getLetter() - 'A']++;
+            }
+        }
+        for (int r = 0; r < board.getSize(); r++) {
+            for (int c = 0; c < board.getSize(); c++) {
+                if (!board.isOccupied(r, c)) continue;
+                boardLetters[board.getLetterAt(r, c) - 'A']++;
+                onBoard++;
+            }
+        }
+        List<String> words = new ArrayList<>();
+        dictionary.getAnagramIndex().forEachFormable(rackLetters, blanks, boardLetters, onBoard, words::add);
+        return new AnagramIndex(words);
+    }
+
+    /**
+     * Searches the root: the first move (the previous best) serially to get a
+     * bound, then the remaining moves in parallel against the shared bound.
+     */
+    private RootResult searchRoot(Position root, int depth, Move previousBest) {
+        List<Move> moves = orderedMoves(root, 0, previousBest);
+        moves.add(null); // passing is always legal
+
+        RootResult best = new RootResult();
+        best.value = searchRootMove(root, moves.get(0), depth, -INFINITY);
+        best.move = moves.get(0);
+        best.index = 0;
+
+        if (moves.size() > 1) {
+            ConcurrentLinkedQueue<Position> positions = new ConcurrentLinkedQueue<>();
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 1; i < moves.size(); i++) {
+                int index = i;
+                Move move = moves.get(i);
+                tasks.add(() -> {
+                    // Reuse one position per worker; make/unmake leaves it unchanged
+                    Position pos = positions.poll();
+                    if (pos == null) pos = root.copy();
+                    try {
+                        int alpha;
+                        synchronized (best) {
+                            alpha = best.value;
+                        }
+                        // Fail-soft: a value above alpha is exact (beta is infinite), one at or below it only a bound
+                        int value = searchRootMove(pos, move, depth, alpha);
+                        boolean exact = value > alpha;
+                        if (!exact && value == alpha && index < bestIndex(best)) {
+                            // May tie the best move, which it would then displace: settle it with a lower window
+                            value = searchRootMove(pos, move, depth, alpha - 1);
+                            exact = value > alpha - 1;
+                        }
+                        synchronized (best) {
+                            if (value > best.value || (exact && value == best.value && index < best.index)) {
+                                best.value = value;
+                                best.move = move;
+                                best.index = index;
+                            }
+                        }
+                    } finally {
+                        positions.add(pos);
+                    }
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> f : WORKERS.invokeAll(tasks)) f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw TIMEOUT;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return best;
+    }
+
+    private static int bestIndex(RootResult best) {
+        synchronized (best) {
+            return best.index;
+        }
+    }
+
+    private int searchRootMove(Position pos, Move move, int depth, int alpha) {
+        if (move == null) return -negamax(pos, 1, depth - 1, -INFINITY, -alpha, 1);
+        int score = pos.apply(0, move);
+        try {
+            if (pos.rackEmpty(0)) return score + 2 * pos.rackValue(1);
+            return score - negamax(pos, 1, depth - 1, score - INFINITY, score - alpha, 0);
+        } finally {
+            pos.undo(0);
+        }
+    }
+
+    /**
+     * Returns the best spread the side to move can achieve from here.
+     *
+     * @param side 0 for the solving player, 1 for the opponent
+     * @param passes Number of consecutive passes just made
+     */
+    private int negamax(Position pos, int side, int depth, int alpha, int beta, int passes) {
+        nodes.incrementAndGet();
+        if (System.nanoTime() > deadline) throw TIMEOUT; // cheap next to move generation
+        int other = 1 - side;
+
+        long key = pos.key(side, passes);
+        Entry entry = table.get(key);
+        int alphaOrig = alpha;
+        if (entry != null && entry.depth >= depth) {
+            if (entry.flag == EXACT) return entry.value;
+            if (entry.flag == LOWER) alpha = Math.max(alpha, entry.value);
+            else beta = Math.min(beta, entry.value);
+            if (alpha >= beta) return entry.value;
+        }
+        if (depth == 0) {
+            reachedHorizon.set(true);
+            return pos.rackValue(other) - pos.rackValue(side); // tiles likely to be stuck
+        }
+
+        int best = -INFINITY;
+        Move bestMove = null;
+        if (depth == 1) {
+            // Every reply ends the search, so score the packed moves without making them
+            MoveBuffer moves = pos.moves;
+            pos.generator.generateInto(pos.board, pos.rackTiles(side), false, null, moves);
+            int rackValue = pos.rackValue(side), otherValue = pos.rackValue(other), rackSize = pos.rackTiles(side).size();
+            int bestIndex = -1;
+            boolean horizon = false;
+            for (int i = 0; i < moves.size(); i++) {
+                long meta = moves.meta(i);
+                int value = PackedMove.score(meta) + otherValue;
+                if (PackedMove.tileCount(meta) == rackSize) value += otherValue;
+                else {
+                    value -= rackValue - placedValue(meta, moves.tiles(i));
+                    horizon = true;
+                }
+                if (value > best) {
+                    best = value;
+                    bestIndex = i;
+                }
+            }
+            if (horizon) reachedHorizon.set(true);
+            if (bestIndex >= 0) bestMove = PackedMove.toMove(moves.meta(bestIndex), moves.tiles(bestIndex), pos.board);
+            alpha = Math.max(alpha, best);
+        }
+        else for (Move m : orderedMoves(pos, side, entry == null ? null : entry.bestMove)) {
+            int score = pos.apply(side, m);
+            int value;
+            try {
+                if (pos.rackEmpty(side)) value = score + 2 * pos.rackValue(other);
+                else value = score - negamax(pos, other, depth - 1, score - beta, score - alpha, 0);
+            } finally {
+                pos.undo(side);
+            }
+
+            if (value > best) {
+                best = value;
+                bestMove = m;
+            }
+            alpha = Math.max(alpha, value);
+            if (alpha >= beta) break;
+        }
+
+        if (alpha < beta) {
+            int value;
+            if (passes == 1) value = pos.rackValue(other) - pos.rackValue(side); // second pass ends the game
+            else value = -negamax(pos, other, depth - 1, -beta, -alpha, passes + 1);
+            if (value > best) {
+                best = value;
+                bestMove = null;
+            }
+        }
+
+        int flag = best <= alphaOrig ? UPPER : best >= beta ? LOWER : EXACT;
+        table.put(key, new Entry(best, depth, flag, bestMove));
+        return best;
+    }
+
+    /** Face value of the tiles a packed move places, blanks counting 0. */
+    private static int placedValue(long meta, long tiles) {
+        int total = 0;
+        for (int i = 0, n = PackedMove.tileCount(meta); i < n; i++) {
+            if (!PackedMove.isBlank(meta, i)) total += TILE_VALUES[PackedMove.tile(tiles, i) - 'A'];
+        }
+        return total;
+    }
+
+    /**
+     * Generates the moves for one side, the transposition table's best move first
+     * and the rest by decreasing score. The ranked generator serves every line a
+     * move did not touch from its line cache, and sibling positions differ by one
+     * move, so most lines are not searched again.
+     */
+    private List<Move> orderedMoves(Position pos, int side, Move first) {
+        List<Move> moves = pos.generator.topMoves(pos.board, pos.rackTiles(side), false, null, Integer.MAX_VALUE);
+        if (first != null && moves.remove(first)) moves.add(0, first);
+        return moves;
+    }
+
+    /**
+     * Board and both racks, changed in place with Board.applyMove and restored
+     * with undoMove through a preallocated MoveStack.
+     */
+    private class Position {
+        final Board board;
+        final List<List<Tile>> racks;
+        final MoveStack stack;
+        final AnagramIndex lexicon;
+        final MoveGenerator generator;
+        final MoveBuffer moves = new MoveBuffer(1024);
+
+        Position(Board board, List<Tile> rack, List<Tile> opponentRack, int maxDepth, AnagramIndex lexicon) {
+            this.board = board;
+            this.racks = List.of(rack, opponentRack);
+            this.stack = new MoveStack(maxDepth + 1);
+            this.lexicon = lexicon;
+            this.generator = new MoveGenerator(dictionary, lexicon);
+        }
+
+        Position copy() {
+            int tiles = racks.get(0).size() + racks.get(1).size();
+            return new Position(board.copy(), new ArrayList<>(racks.get(0)), new ArrayList<>(racks.get(1)), 2 * tiles + 2, lexicon);
+        }
+
+        /** Plays the move for the given side and returns the points scored. */
+        int apply(int side, Move m) {
+            return board.applyMove(m, racks.get(side), stack);
+        }
+
+        void undo(int side) {
+            board.undoMove(racks.get(side), stack);
+        }
+
+        boolean rackEmpty(int side) {
+            return racks.get(side).isEmpty();
+        }
+
+        int rackValue(int side) {
+            int total = 0;
+            for (Tile t : racks.get(side)) {
+                if (!t.isBlank()) total += GameModel.LETTER_VALUES.getOrDefault(t.getLetter(), 0);
+            }
+            return total;
+        }
+
+        List<Tile> rackTiles(int side) {
+            return racks.get(side);
+        }
+
+        long key(int side, int passes) {
+            long key = board.getHash()
+                    ^ Zobrist.mix(SIDE_SEEDS[0] ^ Zobrist.rack(racks.get(0)))
+                    ^ Zobrist.mix(SIDE_SEEDS[1] ^ Zobrist.rack(racks.get(1)));
+            if (side == 1) key ^= SIDE_TO_MOVE;
+            if (passes > 0) key ^= ONE_PASS;
+            return key;
+        }
+    }
+
+    private static class Entry {
+        final int value;
+        final int depth;
+        final int flag;
+        final Move bestMove;
+
+        Entry(int value, int depth, int flag, Move bestMove) {
+            this.value = value;
+            this.depth = depth;
+            this.flag = flag;
+            this.bestMove = bestMove;
+        }
+    }
+
+    private static class RootResult {
+        Move move;
+        int value;
+        int index;
+    }
+
+    /**
+     * Outcome of a solve call.
+     */
+    public static class Result {
+        private final Move bestMove;
+        private final int spread;
+        private final int depth;
+        private final long nodes;
+        private final boolean exact;
+        private final long elapsedMillis;
+
+        Result(Move bestMove, int spread, int depth, long nodes, boolean exact, long elapsedMillis) {
+            this.bestMove = bestMove;
+            this.spread = spread;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.exact = exact;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /** Best move, or null if passing is best. */
+        public Move getBestMove() { return bestMove; }
+
+        /** Spread the player to move can secure from here (exact if isExact). */
+        public int getSpread() { return spread; }
+
+        /** Deepest fully searched depth, in plies; 0 if the move is the static best. */
+        public int getDepth() { return depth; }
+
+        public long getNodes() { return nodes; }
+
+        /** True if the search reached the end of the game on every line. */
+        public boolean isExact() { return exact; }
+
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EngineMetrics holds process-wide counters for the word-lookup and search
+ * machinery. Counters are LongAdders so hot paths on several threads can bump
+ * them without contention; snapshot() reads them all for display or logging.
+ */
+public final class EngineMetrics {
+
+    /** Dictionary lookups made through isValidWord. */
+    public static final LongAdder WORD_LOOKUPS = new LongAdder();
+    /** Lookups the Bloom filter answered "absent" without touching the word set. */
+    public static final LongAdder BLOOM_REJECTS = new LongAdder();
+    /** Lookups the Bloom filter passed that were found in the word set. */
+    public static final LongAdder BLOOM_HITS = new LongAdder();
+    /** Lookups the Bloom filter passed that were not in the word set. */
+    public static final LongAdder BLOOM_FALSE_POSITIVES = new LongAdder();
+
+    private EngineMetrics() {
+    }
+
+    /**
+     * Returns the share of non-words that got past the Bloom filter so far.
+     *
+     * @return Observed false-positive rate, or 0 before any non-word was looked up
+     */
+    public static double bloomFalsePositiveRate() {
+        long falsePositives = BLOOM_FALSE_POSITIVES.sum();
+        long nonWords = falsePositives + BLOOM_REJECTS.sum();
+        return nonWords == 0 ? 0 : (double) falsePositives / nonWords;
+    }
+
+    /**
+     * Returns the current value of every counter, by name.
+     */
+    public static Map<String, Number> snapshot() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        values.put("wordLookups", WORD_LOOKUPS.sum());
+        values.put("bloomRejects", BLOOM_REJECTS.sum());
+        values.put("bloomHits", BLOOM_HITS.sum());
+        values.put("bloomFalsePositives", BLOOM_FALSE_POSITIVES.sum());
+        values.put("bloomFalsePositiveRate", bloomFalsePositiveRate());
+        return values;
+    }
+
+    /**
+     * Sets every counter back to zero.
+     */
+    public static void reset() {
+        WORD_LOOKUPS.reset();
+        BLOOM_REJECTS.reset();
+        BLOOM_HITS.reset();
+        BLOOM_FALSE_POSITIVES.reset();
+    }
+}
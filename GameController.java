@@ -1,5 +1,6 @@
 import java.io.*;
-import java.util.Stack;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -14,10 +15,9 @@ public class GameController {
     private final GameViewGUI view;
 
     // -----------------------
-    // UNDO / REDO STACKS
+    // UNDO / REDO HISTORY
     // -----------------------
-    private final Stack<GameState> undoStack = new Stack<>();
-    private final Stack<GameState> redoStack = new Stack<>();
+    private UndoHistory history = new UndoHistory();
 
     public GameController(GameModel model, GameViewGUI view) {
         this.model = model;
@@ -62,6 +62,30 @@ public class GameController {
 
         String[] parts = input.split("\\s+");
 
+        // -----------------------
+        // HINT
+        // -----------------------
+        if (parts[0].equals("HINT")) {
+            int n = 5;
+            if (parts.length == 2) {
+                try {
+                    n = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException e) {
+                    view.displayMessage("Invalid hint command! Use: HINT [N]");
+                    return;
+                }
+            }
+            List<MoveAnalysis> hints = model.analyzeMoves(current, n);
+            if (hints.isEmpty()) view.displayMessage("No moves found for your rack.");
+            for (MoveAnalysis a : hints) {
+                view.displayMessage(String.format("%s %d %c %s - %d pts, leave %s",
+                        a.getWord(), a.getRow() + 1, (char) ('A' + a.getCol()),
+                        a.isHorizontal() ? "H" : "V", a.getScore(),
+                        a.getLeave().isEmpty() ? "-" : a.getLeave()));
+            }
+            return;
+        }
+
         // -----------------------
         // SWAP
         // -----------------------
@@ -71,14 +95,14 @@ public class GameController {
                 return;
             }
             String tilesToSwap = parts[1];
-            if (current.swapTiles(tilesToSwap, model.getBag())) {
-                saveState(); // <-- save for undo
-                view.displayMessage("Tiles swapped successfully.");
-                model.passTurn();
-                maybeDoAITurn();
-            } else {
+            if (!current.hasTilesForWord(tilesToSwap)) {
                 view.displayMessage("Invalid swap! You don't have these tiles.");
+                return;
             }
+            saveState(); // <-- save for undo
+            model.exchangeTiles(tilesToSwap);
+            view.displayMessage("Tiles swapped successfully.");
+            maybeDoAITurn();
             return;
         }
 
@@ -105,14 +129,15 @@ public class GameController {
                     return;
                 }
 
+                int center = model.getBoard().getSize() / 2;
                 boolean success;
                 if (parts.length == 4) {
                     String blanks = parts[3];
                     saveState(); // <-- save for undo
-                    success = model.placeWordWithBlanks(word, 7, 7, horizontal, blanks);
+                    success = model.placeWordWithBlanks(word, center, center, horizontal, blanks);
                 } else {
                     saveState(); // <-- save for undo
-                    success = model.placeWord(word, 7, 7, horizontal);
+                    success = model.placeWord(word, center, center, horizontal);
                 }
 
                 if (success) model.setFirstMoveDone();
@@ -127,13 +152,14 @@ public class GameController {
             }
 
             String word = parts[1];
+            int size = model.getBoard().getSize();
 
             // Parse row
             int row;
             try {
                 row = Integer.parseInt(parts[2]) - 1;
-                if (row < 0 || row > 14) {
-                    view.displayMessage("Row must be 1–15.");
+                if (row < 0 || row >= size) {
+                    view.displayMessage("Row must be 1-" + size + ".");
                     return;
                 }
             } catch (NumberFormatException e) {
@@ -143,8 +169,8 @@ public class GameController {
 
             // Parse column
             int col = colLetterToIndex(parts[3]);
-            if (col < 0 || col > 14) {
-                view.displayMessage("Column must be A–O.");
+            if (col < 0 || col >= size) {
+                view.displayMessage("Column must be A-" + (char) ('A' + size - 1) + ".");
                 return;
             }
 
@@ -195,14 +221,12 @@ public class GameController {
     // UNDO / REDO METHODS
     // -----------------------
     private void saveState() {
-        undoStack.push(model.createStateSnapshot());
-        redoStack.clear(); // clear redo after new move
+        history.push(model.createStateSnapshot()); // also clears redo after a new move
     }
 
     public void undoMove() {
-        if (!undoStack.isEmpty()) {
-            GameState lastState = undoStack.pop();
-            redoStack.push(model.createStateSnapshot());
+        if (history.canUndo()) {
+            GameState lastState = history.undo(model.createStateSnapshot());
             model.restoreState(lastState);
             view.update(model.getBoard(), model.getPlayers(), model.getCurrentPlayer());
             view.displayMessage("Undo performed.");
@@ -212,9 +236,8 @@ public class GameController {
     }
 
     public void redoMove() {
-        if (!redoStack.isEmpty()) {
-            GameState nextState = redoStack.pop();
-            undoStack.push(model.createStateSnapshot());
+        if (history.canRedo()) {
+            GameState nextState = history.redo(model.createStateSnapshot());
             model.restoreState(nextState);
             view.update(model.getBoard(), model.getPlayers(), model.getCurrentPlayer());
             view.displayMessage("Redo performed.");
@@ -223,6 +246,13 @@ public class GameController {
         }
     }
 
+    /**
+     * Returns the undo history, e.g. to change its depth or memory limits.
+     */
+    public UndoHistory getUndoHistory() {
+        return history;
+    }
+
     // -----------------------
     // TURN TIMER TIMEOUT
     // -----------------------
@@ -260,17 +290,25 @@ public class GameController {
                 fileToSave = new File(filePath);
             }
 
+            GamePersistenceEvent event = new GamePersistenceEvent();
+            event.begin();
+            boolean saved = false;
             try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(fileToSave))) {
-                // Create a save state containing model and undo/redo stacks
-                SaveState saveState = new SaveState(model, undoStack, redoStack);
+                // Create a save state containing model and undo/redo history
+                SaveState saveState = new SaveState(model, history);
                 oos.writeObject(saveState);
-                view.displayMessage("Game saved successfully to: " + fileToSave.getName());
-                JOptionPane.showMessageDialog(view, "Game saved successfully!", "Save Game", JOptionPane.INFORMATION_MESSAGE);
+                saved = true;
             } catch (IOException e) {
                 view.displayMessage("Error saving game: " + e.getMessage());
                 JOptionPane.showMessageDialog(view, "Error saving game: " + e.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
                 e.printStackTrace();
             }
+            commitPersistenceEvent(event, "save", fileToSave, saved);
+
+            if (saved) {
+                view.displayMessage("Game saved successfully to: " + fileToSave.getName());
+                JOptionPane.showMessageDialog(view, "Game saved successfully!", "Save Game", JOptionPane.INFORMATION_MESSAGE);
+            }
         }
     }
 
@@ -288,6 +326,8 @@ public class GameController {
 
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             File fileToLoad = fileChooser.getSelectedFile();
+            GamePersistenceEvent event = new GamePersistenceEvent();
+            event.begin();
 
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(fileToLoad))) {
                 SaveState saveState = (SaveState) ois.readObject();
@@ -298,27 +338,29 @@ public class GameController {
                 // Copy loaded model state to current model
                 model.restoreState(loadedModel.createStateSnapshot());
 
-                // Restore undo/redo stacks
-                undoStack.clear();
-                undoStack.addAll(saveState.undoStack);
-                redoStack.clear();
-                redoStack.addAll(saveState.redoStack);
+                // Restore undo/redo history (saves from older versions have none)
+                history = saveState.history != null ? saveState.history : new UndoHistory();
 
                 // Re-register observer
                 loadedModel.addObserver(view);
 
+                commitPersistenceEvent(event, "load", fileToLoad, true);
+
                 // Update view
                 view.update(model.getBoard(), model.getPlayers(), model.getCurrentPlayer());
                 view.displayMessage("Game loaded successfully from: " + fileToLoad.getName());
                 JOptionPane.showMessageDialog(view, "Game loaded successfully!", "Load Game", JOptionPane.INFORMATION_MESSAGE);
             } catch (FileNotFoundException e) {
+                commitPersistenceEvent(event, "load", fileToLoad, false);
                 view.displayMessage("File not found: " + e.getMessage());
                 JOptionPane.showMessageDialog(view, "File not found!", "Load Error", JOptionPane.ERROR_MESSAGE);
             } catch (IOException e) {
+                commitPersistenceEvent(event, "load", fileToLoad, false);
                 view.displayMessage("Error loading game: " + e.getMessage());
                 JOptionPane.showMessageDialog(view, "Error loading game: " + e.getMessage(), "Load Error", JOptionPane.ERROR_MESSAGE);
                 e.printStackTrace();
             } catch (ClassNotFoundException e) {
+                commitPersistenceEvent(event, "load", fileToLoad, false);
                 view.displayMessage("Invalid save file format: " + e.getMessage());
                 JOptionPane.showMessageDialog(view, "Invalid save file format!", "Load Error", JOptionPane.ERROR_MESSAGE);
                 e.printStackTrace();
@@ -326,6 +368,81 @@ public class GameController {
         }
     }
 
+    /**
+     * Exports the game so far as a GCG record.
+     * Opens a file chooser dialog for the user to specify the location.
+     */
+    public void exportGcg() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export GCG");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("GCG Game Records (*.gcg)", "gcg"));
+        fileChooser.setSelectedFile(new File("scrabble_game.gcg"));
+
+        if (fileChooser.showSaveDialog(view) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            if (!file.getName().endsWith(".gcg")) file = new File(file.getAbsolutePath() + ".gcg");
+
+            GamePersistenceEvent event = new GamePersistenceEvent();
+            event.begin();
+            boolean saved = false;
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                model.exportGcg(out);
+                saved = true;
+            } catch (IOException e) {
+                view.displayMessage("Error exporting game: " + e.getMessage());
+                e.printStackTrace();
+            }
+            commitPersistenceEvent(event, "export-gcg", file, saved);
+            if (saved) view.displayMessage("Game exported to: " + file.getName());
+        }
+    }
+
+    /**
+     * Replaces the current game with one replayed from a GCG record.
+     * Opens a file chooser dialog for the user to select the record.
+     */
+    public void importGcg() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import GCG");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("GCG Game Records (*.gcg)", "gcg"));
+
+        if (fileChooser.showOpenDialog(view) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            GamePersistenceEvent event = new GamePersistenceEvent();
+            event.begin();
+            try (GcgReader reader = new GcgReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                GcgGame game = reader.next();
+                if (game == null || !game.isWellFormed()) {
+                    throw new IOException(game == null ? "no game in file" : game.getError());
+                }
+                Board empty = new Board(model.getBoard().getLayoutFile());
+                GameModel imported = GameModel.fromGcg(game, empty, model.getDictionary());
+                model.restoreState(imported.createStateSnapshot());
+                history.clear();
+                commitPersistenceEvent(event, "import-gcg", file, true);
+                view.displayMessage("Game imported from: " + file.getName());
+            } catch (IOException | IllegalArgumentException e) {
+                commitPersistenceEvent(event, "import-gcg", file, false);
+                view.displayMessage("Error importing game: " + e.getMessage());
+                JOptionPane.showMessageDialog(view, "Error importing game: " + e.getMessage(), "Import Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Commits a GamePersistenceEvent if it is enabled in the running recording.
+     */
+    private void commitPersistenceEvent(GamePersistenceEvent event, String operation, File file, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.succeeded = succeeded;
+            event.file = file.getName();
+            event.bytes = file.length();
+            event.commit();
+        }
+    }
+
     /**
      * Inner class to encapsulate the complete save state including model and undo/redo history.
      */
@@ -333,15 +450,11 @@ public class GameController {
         private static final long serialVersionUID = 1L;
 
         GameModel model;
-        Stack<GameState> undoStack;
-        Stack<GameState> redoStack;
+        UndoHistory history;
 
-        SaveState(GameModel model, Stack<GameState> undoStack, Stack<GameState> redoStack) {
+        SaveState(GameModel model, UndoHistory history) {
             this.model = model;
-            this.undoStack = new Stack<>();
-            this.undoStack.addAll(undoStack);
-            this.redoStack = new Stack<>();
-            this.redoStack.addAll(redoStack);
+            this.history = history;
         }
     }
 }
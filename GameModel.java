@@ -1,5 +1,8 @@
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.Writer;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * GameModel represents the state of a Scrabble game.
@@ -13,9 +16,14 @@ public class GameModel implements Serializable {
     private List<Player> players;            // List of players in the game
     private Queue<Tile> bag;                 // Bag of remaining tiles
     private int currentPlayerIndex;          // Index of the player whose turn it is
-    private transient List<GameObserver> observers;    // List of registered observers (not serialized)
+    private transient volatile ObserverDispatcher dispatcher; // Delivers changes to registered observers (not serialized)
+    private transient volatile long stateVersion; // Incremented on every published state change
+    private transient volatile PersistentGameState persistentState; // Immutable view as of stateVersion
     private Dictionary dictionary;           // Game dictionary for word validation
     private boolean firstMove = true;        // ability to tell if we are on the first move
+    private List<RecordedMove> history = new ArrayList<>(); // Every turn taken, for GCG export (null in older saves)
+    private transient volatile TranspositionCache<List<MoveAnalysis>> analysisCache; // Recent analyzeMoves results
+    private transient MoveValidator validator;  // Placement rules, built on first use
 
     // Official Scrabble letter values (blanks = 0)
     public static final Map<Character, Integer> LETTER_VALUES = Map.ofEntries(
@@ -38,11 +46,33 @@ public class GameModel implements Serializable {
      * @param dictionaryFile Path to dictionary file for valid words
      */
     public GameModel(String boardFile, List<String> names, String dictionaryFile) {
-        board = new Board(boardFile);
+        this(new Board(boardFile), names, new Dictionary(dictionaryFile));
+    }
+
+    /**
+     * Constructs a new GameModel that pins the lexicon manager's current
+     * dictionary; later reloads do not affect this game.
+     *
+     * @param names List of player names
+     * @param lexicons Source of the current word list
+     */
+    public GameModel(String boardFile, List<String> names, LexiconManager lexicons) {
+        this(new Board(boardFile), names, lexicons.getDictionary());
+    }
+
+    /**
+     * Constructs a new GameModel on an existing board and dictionary, so many
+     * games (e.g. replays) can share one loaded dictionary.
+     *
+     * @param board Empty board to play on
+     * @param names List of player names
+     * @param dictionary Dictionary for valid words
+     */
+    public GameModel(Board board, List<String> names, Dictionary dictionary) {
+        this.board = board;
         players = new ArrayList<>();
-        observers = new ArrayList<>();
         bag = createTileBag();
-        dictionary = new Dictionary(dictionaryFile);
+        this.dictionary = dictionary;
 
         for (String name : names) {
             Player p = new Player(name);
@@ -73,7 +103,7 @@ public class GameModel implements Serializable {
         for (int i = 0; i < 2; i++) tiles.add(Tile.blankTile());
 
         Collections.shuffle(tiles);
-        return new LinkedList<>(tiles);
+        return new ArrayDeque<>(tiles); // array-backed, so tiles can be returned to the front without allocating
     }
 
     /**
@@ -99,7 +129,14 @@ public class GameModel implements Serializable {
     }
 
     public boolean isFirstMove() { return firstMove; }
-    public void setFirstMoveDone() { firstMove = false; }
+    public void setFirstMoveDone() {
+        if (!firstMove) return;
+        firstMove = false;
+        if (persistentState != null) { // keep the snapshot in step without publishing a new version
+            persistentState = PersistentGameState.next(persistentState, stateVersion, board, players, bag,
+                    currentPlayerIndex, firstMove);
+        }
+    }
     public Board getBoard() {
         return board;
     }
@@ -113,29 +150,100 @@ public class GameModel implements Serializable {
         return bag;
     }
 
+    /**
+     * Returns the tile bag as a Deque, for applyMove/undoMove which return
+     * drawn tiles to its front. Bags are always created as deques.
+     *
+     * @return The tile bag
+     */
+    public Deque<Tile> getBagDeque() {
+        return (Deque<Tile>) bag;
+    }
+
     /**
      * Registers an observer to be notified of game state changes.
      *
      * @param obs Observer implementing GameObserver interface
      */
     public void addObserver(GameObserver obs) {
-        if (observers == null) {
-            observers = new ArrayList<>();
+        getDispatcher().addObserver(obs);
+    }
+
+    /**
+     * Registers a listener to receive immutable snapshots of the game state.
+     *
+     * @param listener Listener to add
+     */
+    public void addStateListener(GameStateListener listener) {
+        getDispatcher().addListener(listener);
+    }
+
+    /**
+     * Returns an immutable snapshot of the game as of the latest published change.
+     * This is O(1): the snapshot is maintained incrementally and shares all
+     * unchanged rows, racks and counts with earlier snapshots, so it can be kept
+     * and read from any thread.
+     *
+     * @return Current persistent state
+     */
+    public PersistentGameState getPersistentState() {
+        PersistentGameState state = persistentState;
+        if (state == null) {
+            synchronized (this) {
+                state = persistentState;
+                if (state == null) {
+                    persistentState = state = PersistentGameState.of(stateVersion, board, players, bag,
+                            currentPlayerIndex, firstMove);
+                }
+            }
         }
-        observers.add(obs);
+        return state;
+    }
+
+    /**
+     * Returns the dispatcher used to deliver state changes, creating it on first use
+     * (it is not serialized).
+     *
+     * @return The ObserverDispatcher for this model
+     */
+    public synchronized ObserverDispatcher getDispatcher() {
+        if (dispatcher == null) {
+            dispatcher = new ObserverDispatcher(this);
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Returns the version of the latest published state change.
+     *
+     * @return State version, increasing with every change
+     */
+    public long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * Waits until observers have received the latest state change.
+     *
+     * @param timeoutMillis Maximum time to wait
+     * @return true if observers are up to date
+     */
+    public boolean flushObservers(long timeoutMillis) {
+        return getDispatcher().flush(timeoutMillis);
     }
 
     /**
-     * Notifies all registered observers of the current game state.
+     * Publishes a new state version to registered observers.
+     * Delivery is asynchronous and coalesced, see ObserverDispatcher.
      */
     private void notifyObservers() {
-        if (observers == null) {
+        stateVersion++;
+        persistentState = PersistentGameState.next(persistentState, stateVersion, board, players, bag,
+                currentPlayerIndex, firstMove);
+        if (dispatcher == null) {
             return;
         }
-        Player current = getCurrentPlayer();
-        for (GameObserver obs : observers) {
-            obs.update(board, players, current);
-        }
+        dispatcher.publish(stateVersion);
     }
 
     /**
@@ -143,12 +251,22 @@ public class GameModel implements Serializable {
      * @return GameState object containing complete game state
      */
     public GameState createStateSnapshot() {
+        StateSnapshotEvent event = new StateSnapshotEvent();
+        event.begin();
         Board boardCopy = board.copy();
         List<Player> playersCopy = new ArrayList<>();
         for (Player p : players) playersCopy.add(p.copy());
-        Queue<Tile> bagCopy = new LinkedList<>();
+        Queue<Tile> bagCopy = new ArrayDeque<>();
         for (Tile t : bag) bagCopy.add(t.copy());
-        return new GameState(boardCopy, playersCopy, bagCopy, currentPlayerIndex, firstMove);
+        GameState state = new GameState(boardCopy, playersCopy, bagCopy, currentPlayerIndex, firstMove);
+        state.history = new ArrayList<>(getMoveHistory());
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "snapshot";
+            event.bytes = StateSnapshotEvent.serializedSize(state);
+            event.commit();
+        }
+        return state;
     }
 
     /**
@@ -156,12 +274,21 @@ public class GameModel implements Serializable {
      * @param state The GameState to restore
      */
     public void restoreState(GameState state) {
+        StateSnapshotEvent event = new StateSnapshotEvent();
+        event.begin();
         this.board = state.board;
         this.players = state.players;
         this.bag = state.bag;
         this.currentPlayerIndex = state.currentPlayerIndex;
         this.firstMove = state.firstMove;
+        if (state.history != null) this.history = new ArrayList<>(state.history);
         notifyObservers();
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "restore";
+            event.bytes = StateSnapshotEvent.serializedSize(state);
+            event.commit();
+        }
     }
 
 
@@ -171,27 +298,7 @@ public class GameModel implements Serializable {
      * This sums the letter values for the complete main word (including letters already on the board).
      */
     public int computeWordScore(String word, int row, int col, boolean horizontal, List<Integer> blankIndices) {
-        int wordMultiplier = 1;
-        int total = 0;
-
-        for (int i = 0; i < word.length(); i++) {
-            int r = row + (horizontal ? 0 : i);
-            int c = col + (horizontal ? i : 0);
-            char ch = word.charAt(i);
-
-            Square sq = board.getSquare(r, c);
-            int letterScore = (blankIndices != null && blankIndices.contains(i)) ? 0 : LETTER_VALUES.getOrDefault(ch, 0);
-            if (!sq.hasTile()){
-                switch (sq.getBonus()) {
-                    case DL: letterScore *= 2; break;
-                    case TL: letterScore *= 3; break;
-                    case DW: wordMultiplier *= 2; break;
-                    case TW: wordMultiplier *= 3; break;
-                }
-            }
-            total += letterScore;
-        }
-        return total * wordMultiplier;
+        return board.scoreWord(word, row, col, horizontal, blankIndices);
     }
 
     /**
@@ -205,15 +312,21 @@ public class GameModel implements Serializable {
      * @return True if the word was successfully placed, false otherwise
      */
     public boolean placeWord(String word, int row, int col, boolean horizontal) {
+        MoveAppliedEvent event = new MoveAppliedEvent();
+        event.begin();
         Player p = getCurrentPlayer();
-        word = word.toUpperCase();
+        boolean placed = placeWord(word.toUpperCase(), row, col, horizontal, p, event);
+        commitMoveEvent(event, p, word, placed);
+        return placed;
+    }
 
-        // Validate dictionary
-        if (!dictionary.isValidWord(word)) {
-            p.setLastError("Invalid word! Not in dictionary.");
-            notifyObservers();
-            return false;
-        }
+    /**
+     * Body of placeWord, recording the score and tiles placed in the given event.
+     */
+    private boolean placeWord(String word, int row, int col, boolean horizontal, Player p, MoveAppliedEvent event) {
+
+        // Validate placement and every word formed
+        if (!checkPlacement(word, row, col, horizontal, p)) return false;
 
         // Check if player has the necessary tiles
         if (!board.canPlaceWordWithRack(word, row, col, horizontal, p)) {
@@ -229,18 +342,21 @@ public class GameModel implements Serializable {
             int c = col + (horizontal ? i : 0);
             if (!board.squareHasTile(r, c)) newlyPlacedIndices.add(i);
         }
-        int scoreGained = computeWordScore(word, row, col, horizontal, new ArrayList<>()); // no blanks, so null
+        int scoreGained = board.scoreMove(word, row, col, horizontal, 0); // main word and cross-words, no blanks
+        String rackBefore = rackString(p);
         // Place tiles on the board
         if (board.placeWord(word, row, col, horizontal, p)) {
 
             // Bingo bonus: 50 points if player placed all 7 tiles this turn
             if (newlyPlacedIndices.size() == 7) scoreGained += 50;
             p.addScore(scoreGained);
+            event.score = scoreGained;
+            event.tilesPlaced = newlyPlacedIndices.size();
 
             // Refill player's rack with as many tiles as they placed
             p.drawTiles(bag, newlyPlacedIndices.size());
+            recordPlay(p, rackBefore, word, row, col, horizontal, scoreGained);
 
-            notifyObservers();
             nextTurn();
             p.setLastError(""); // clear previous errors
             return true;
@@ -265,12 +381,23 @@ public class GameModel implements Serializable {
      * @return true on success
      */
     public boolean placeWordWithBlanks(String word, int row, int col, boolean horizontal, String blanks) {
+        MoveAppliedEvent event = new MoveAppliedEvent();
+        event.begin();
         Player p = getCurrentPlayer();
-        word = word.toUpperCase();
         blanks = (blanks == null) ? "" : blanks.toUpperCase();
+        boolean placed = placeWordWithBlanks(word.toUpperCase(), row, col, horizontal, blanks, p, event);
+        commitMoveEvent(event, p, word, placed);
+        return placed;
+    }
+
+    /**
+     * Body of placeWordWithBlanks, recording the score, tiles and blanks placed in the given event.
+     */
+    private boolean placeWordWithBlanks(String word, int row, int col, boolean horizontal, String blanks,
+                                        Player p, MoveAppliedEvent event) {
 
-        // validate dictionary
-        if (!dictionary.isValidWord(word)) { p.setLastError("Not in dictionary."); notifyObservers(); return false; }
+        // Validate placement and every word formed
+        if (!checkPlacement(word, row, col, horizontal, p)) return false;
 
         // Check rack availability including blanks
         List<Tile> rackCopy = new ArrayList<>(p.getRack());
@@ -311,7 +438,10 @@ public class GameModel implements Serializable {
             int c = col + (horizontal ? i : 0);
             if (!board.squareHasTile(r, c)) newlyPlacedIndices.add(i);
         }
-        int score = computeWordScore(word, row, col, horizontal, blankIndices);
+        int blankMask = 0;
+        for (int i : blankIndices) blankMask |= 1 << i;
+        int score = board.scoreMove(word, row, col, horizontal, blankMask);
+        String rackBefore = rackString(p);
         if (board.placeWord(word, row, col, horizontal, p)) {
             // Compute premium score
 
@@ -320,11 +450,14 @@ public class GameModel implements Serializable {
             if (newlyPlacedIndices.size() == 7) score += 50;
 
             p.addScore(score);
+            event.score = score;
+            event.tilesPlaced = newlyPlacedIndices.size();
+            event.blanksUsed = blankIndices.size();
 
             // Draw new tiles
             p.drawTiles(bag, newlyPlacedIndices.size());
+            recordPlay(p, rackBefore, word, row, col, horizontal, score);
 
-            notifyObservers();
             nextTurn();
             p.setLastError("");
             return true;
@@ -336,14 +469,49 @@ public class GameModel implements Serializable {
     }
 
 
+    /**
+     * Commits a MoveAppliedEvent if it is enabled in the running recording.
+     */
+    private void commitMoveEvent(MoveAppliedEvent event, Player p, String word, boolean accepted) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = p.getName();
+            event.word = word.toUpperCase();
+            event.accepted = accepted;
+            event.commit();
+        }
+    }
+
     /**
      * Passes the current player's turn without making a move.
      */
     public void passTurn() {
-        getCurrentPlayer().setLastError("Turn passed.");
+        Player p = getCurrentPlayer();
+        getHistory().add(RecordedMove.pass(p.getName(), rackString(p), p.getScore()));
+        p.setLastError("Turn passed.");
         nextTurn();
     }
 
+    /**
+     * Exchanges tiles from the current player's rack with the bag and ends the turn.
+     *
+     * @param letters Letters to exchange
+     * @return False (and the turn is kept) if the player does not hold those tiles
+     */
+    public boolean exchangeTiles(String letters) {
+        Player p = getCurrentPlayer();
+        String rackBefore = rackString(p);
+        letters = letters.toUpperCase();
+        if (!p.swapTiles(letters, bag)) {
+            p.setLastError("Invalid swap! You don't have these tiles.");
+            return false;
+        }
+        getHistory().add(RecordedMove.exchange(p.getName(), rackBefore, letters, p.getScore()));
+        p.setLastError("Tiles exchanged.");
+        nextTurn();
+        return true;
+    }
+
     /**
      * Advances the turn to the next player and notifies observers.
      */
@@ -365,6 +533,317 @@ public class GameModel implements Serializable {
         return dictionary;
     }
 
+    // --------------------------
+    //   MOVE HISTORY / GCG
+    // --------------------------
+
+    /**
+     * Returns every turn taken so far, oldest first.
+     */
+    public List<RecordedMove> getMoveHistory() {
+        return Collections.unmodifiableList(getHistory());
+    }
+
+    private List<RecordedMove> getHistory() {
+        if (history == null) history = new ArrayList<>(); // saves from older versions have none
+        return history;
+    }
+
+    /**
+     * Writes this game as a GCG record.
+     *
+     * @param out Destination; flushed but not closed
+     * @throws IOException if writing fails
+     */
+    public void exportGcg(Writer out) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (Player p : players) names.add(p.getName());
+        GcgWriter writer = new GcgWriter(out);
+        writer.writeGame(names, getHistory());
+        writer.flush();
+    }
+
+    /**
+     * Rebuilds a game by replaying a GCG record through the engine. Before each
+     * turn the mover's rack is set to the recorded rack, so the replay does not
+     * depend on the order tiles came out of the bag. Scores are recomputed, not
+     * copied; compare getMoveHistory() with the record to re-score a game.
+     *
+     * @param game Record to replay
+     * @param board Empty board to play on (not copied)
+     * @param dictionary Dictionary to validate words against
+     * @return Model positioned after the last recorded move
+     * @throws IllegalArgumentException if a move is out of turn, uses tiles that are
+     *         not available, or is rejected by the engine
+     */
+    public static GameModel fromGcg(GcgGame game, Board board, Dictionary dictionary) {
+        if (game.getPlayers().isEmpty()) throw new IllegalArgumentException("Game has no #player lines");
+        GameModel model = new GameModel(board, game.getPlayers(), dictionary);
+        int turn = 0;
+        for (RecordedMove m : game.getMoves()) {
+            turn++;
+            if (m.getType() == RecordedMove.Type.END_RACK) {
+                Player p = model.findPlayer(m.getPlayer());
+                p.addScore(m.getScore());
+                model.getHistory().add(RecordedMove.endRack(p.getName(), m.getWord(), m.getScore(), p.getScore()));
+                continue;
+            }
+            if (m.getType() == RecordedMove.Type.CHALLENGE_BONUS) {
+                Player p = model.findPlayer(m.getPlayer());
+                p.addScore(m.getScore());
+                model.getHistory().add(RecordedMove.challengeBonus(p.getName(), m.getRack(), m.getScore(), p.getScore()));
+                continue;
+            }
+            if (m.getType() == RecordedMove.Type.WITHDRAWAL) {
+                if (!model.withdrawLastPlay(m)) throw new IllegalArgumentException("Turn " + turn + " (" + m + "): no play to withdraw");
+                continue;
+            }
+            Player p = model.getCurrentPlayer();
+            if (!p.getName().equals(m.getPlayer())) {
+                throw new IllegalArgumentException("Turn " + turn + ": expected " + p.getName() + " but " + m.getPlayer() + " moved");
+            }
+            model.setRack(p, m.getRack());
+
+            boolean ok;
+            switch (m.getType()) {
+                case PLAY:
+                    ok = model.replayPlay(m);
+                    break;
+                case EXCHANGE:
+                    ok = model.exchangeTiles(m.getWord());
+                    break;
+                default:
+                    model.passTurn();
+                    ok = true;
+            }
+            if (!ok) throw new IllegalArgumentException("Turn " + turn + " (" + m + "): " + p.getLastError());
+        }
+        return model;
+    }
+
+    private boolean replayPlay(RecordedMove m) {
+        StringBuilder word = new StringBuilder();
+        StringBuilder blanks = new StringBuilder();
+        String gcg = m.getWord();
+        for (int i = 0; i < gcg.length(); i++) {
+            int r = m.getRow() + (m.isHorizontal() ? 0 : i);
+            int c = m.getCol() + (m.isHorizontal() ? i : 0);
+            char ch = gcg.charAt(i);
+            if (ch == '.') {
+                if (!board.squareHasTile(r, c)) {
+                    getCurrentPlayer().setLastError("No tile to play through at " + (r + 1) + (char) ('A' + c));
+                    return false;
+                }
+                word.append(board.getLetterAt(r, c));
+            } else {
+                if (Character.isLowerCase(ch)) blanks.append(Character.toUpperCase(ch));
+                word.append(Character.toUpperCase(ch));
+            }
+        }
+        boolean placed = blanks.length() > 0
+                ? placeWordWithBlanks(word.toString(), m.getRow(), m.getCol(), m.isHorizontal(), blanks.toString())
+                : placeWord(word.toString(), m.getRow(), m.getCol(), m.isHorizontal());
+        if (placed) firstMove = false;
+        return placed;
+    }
+
+    // Puts the player's tiles back in the bag and takes the recorded rack out of it.
+    // Tiles the bag lacks are taken from the other racks, which get bag tiles in exchange;
+    // those racks are set from the record on their own turns anyway.
+    private void setRack(Player p, String rack) {
+        Deque<Tile> tiles = getBagDeque();
+        for (Tile t : p.getRack()) tiles.addFirst(t);
+        p.getRack().clear();
+        StringBuilder missing = new StringBuilder();
+        for (char ch : rack.toUpperCase().toCharArray()) {
+            Tile found = findTile(tiles, ch);
+            if (found == null) {
+                missing.append(ch);
+                continue;
+            }
+            tiles.remove(found);
+            p.getRack().add(found);
+        }
+        for (char ch : missing.toString().toCharArray()) {
+            Tile found = null;
+            for (Player other : players) {
+                if (other == p || (found = findTile(other.getRack(), ch)) == null) continue;
+                other.getRack().remove(found);
+                if (!tiles.isEmpty()) other.getRack().add(tiles.poll());
+                break;
+            }
+            if (found == null) throw new IllegalArgumentException("No '" + ch + "' left for rack " + rack);
+            p.getRack().add(found);
+        }
+    }
+
+    private static Tile findTile(Collection<Tile> tiles, char ch) {
+        boolean blank = ch == '?';
+        for (Tile t : tiles) {
+            if (blank ? t.isBlank() : !t.isBlank() && t.getLetter() == ch) return t;
+        }
+        return null;
+    }
+
+    private Player findPlayer(String name) {
+        for (Player p : players) if (p.getName().equals(name)) return p;
+        throw new IllegalArgumentException("Unknown player " + name);
+    }
+
+    private void recordPlay(Player p, String rackBefore, String word, int row, int col, boolean horizontal, int score) {
+        Set<Integer> placed = new HashSet<>();
+        for (int idx : board.getLastPlacedSquares()) placed.add(idx);
+        // GCG records the whole main word, so start at the first tile of the run the word joined
+        int dr = horizontal ? 0 : 1, dc = horizontal ? 1 : 0;
+        while (board.isOccupied(row - dr, col - dc)) { row -= dr; col -= dc; }
+        StringBuilder gcg = new StringBuilder();
+        for (int r = row, c = col; board.isOccupied(r, c); r += dr, c += dc) {
+            Tile t = board.getSquare(r, c).getTile();
+            if (!placed.contains(r * board.getSize() + c)) gcg.append('.');
+            else if (t.isBlank()) gcg.append(Character.toLowerCase(t.getLetter()));
+            else gcg.append(t.getLetter());
+        }
+        getHistory().add(RecordedMove.play(p.getName(), rackBefore, gcg.toString(), row, col, horizontal, score, p.getScore()));
+    }
+
+    /**
+     * Takes back the last play after a successful challenge ("--" in GCG): its
+     * tiles leave the board and its points are deducted. The turn does not change.
+     *
+     * @return false if the last turn was not a play by the withdrawing player
+     */
+    private boolean withdrawLastPlay(RecordedMove m) {
+        List<RecordedMove> history = getHistory();
+        RecordedMove last = history.isEmpty() ? null : history.get(history.size() - 1);
+        if (last == null || last.getType() != RecordedMove.Type.PLAY || !last.getPlayer().equals(m.getPlayer())) {
+            return false;
+        }
+        Player p = findPlayer(m.getPlayer());
+        for (Tile t : board.withdrawLastPlacement()) {
+            p.getRack().add(t.isBlank() ? Tile.blankTile() : t);
+        }
+        if (board.getTileCount() == 0) firstMove = true;
+        p.addScore(-last.getScore());
+        history.add(RecordedMove.withdrawal(p.getName(), m.getRack(), -last.getScore(), p.getScore()));
+        return true;
+    }
+
+    // GCG rack notation: letters in rack order, '?' for blanks
+    private static String rackString(Player p) {
+        StringBuilder sb = new StringBuilder();
+        for (Tile t : p.getRack()) sb.append(t.isBlank() ? '?' : t.getLetter());
+        return sb.toString();
+    }
+
+    // --------------------------
+    //      MOVE ANALYSIS
+    // --------------------------
+
+    /**
+     * Returns the n best legal moves for a player's rack on the current board,
+     * best first, ranked like the AI ranks them (score plus leave value while
+     * tiles remain in the bag).
+     *
+     * @param p Player whose rack is analysed (need not be the current player)
+     * @param n Number of moves wanted
+     * @return Up to n moves with their words, leave and equity
+     */
+    public List<MoveAnalysis> analyzeMoves(Player p, int n) {
+        return analyzeMoves(p, n, null);
+    }
+
+    /**
+     * Same as analyzeMoves(p, n), reporting progress while the search runs: the
+     * listener receives each move the moment it enters the running top n. A
+     * repeated call on an unchanged position is answered from a cache, and the
+     * listener then receives the cached moves, best first.
+     *
+     * @param listener Receives moves as they are found, or null
+     */
+    public List<MoveAnalysis> analyzeMoves(Player p, int n, Consumer<MoveAnalysis> listener) {
+        if (n <= 0) return new ArrayList<>();
+        List<Tile> rack = new ArrayList<>(p.getRack());
+        boolean bagEmpty = bag.isEmpty();
+        long key = board.getHash() ^ Zobrist.rack(rack) ^ Zobrist.mix(n)
+                ^ (firstMove ? Zobrist.FIRST_MOVE : 0) ^ (bagEmpty ? Zobrist.mix(-1) : 0);
+
+        TranspositionCache<List<MoveAnalysis>> cache = getAnalysisCache();
+        List<MoveAnalysis> cached = cache.get(key);
+        if (cached != null) {
+            if (listener != null) cached.forEach(listener);
+            return new ArrayList<>(cached);
+        }
+
+        LeaveTable leaves = bagEmpty ? null : LeaveTable.getDefault();
+        Comparator<MoveAnalysis> byEquity = Comparator.comparingDouble(MoveAnalysis::getEquity)
+                .thenComparingInt(MoveAnalysis::getScore);
+        PriorityQueue<MoveAnalysis> top = new PriorityQueue<>(n + 1, byEquity); // worst kept move at the head
+        byte[] leave = new byte[rack.size()];
+
+        new MoveGenerator(dictionary).forEachMove(board, rack, firstMove, m -> {
+            int len = LeaveTable.leaveAfter(board, rack, m, leave);
+            double value = leaves == null ? 0 : leaves.value(leave, len);
+            if (top.size() == n && m.getScore() + value <= top.peek().getEquity()) return;
+
+            StringBuilder left = new StringBuilder();
+            for (int i = 0; i < len; i++) left.append(leave[i] == LeaveTable.BLANK ? '*' : (char) ('A' + leave[i]));
+            MoveAnalysis a = new MoveAnalysis(m, board.wordsFormed(m), left.toString(), value);
+            top.add(a);
+            if (top.size() > n) top.poll();
+            if (listener != null) listener.accept(a);
+        });
+
+        List<MoveAnalysis> ranked = new ArrayList<>(top);
+        ranked.sort(byEquity.reversed());
+        cache.put(key, Collections.unmodifiableList(new ArrayList<>(ranked)));
+        return ranked;
+    }
+
+    /**
+     * Checks and scores candidate placements against the current position for
+     * previews, without touching the game: no tiles move, no errors are set and
+     * observers are not notified. Racks are not checked.
+     *
+     * @param candidates Placements to check
+     * @return One entry per candidate, read with MoveValidator.resultOf and scoreOf
+     */
+    public int[] previewMoves(List<Move> candidates) {
+        return new MoveValidator(dictionary).checkAll(board, candidates);
+    }
+
+    /**
+     * Runs the full placement rules, reporting the broken rule to the player.
+     *
+     * @return Whether the placement is legal (rack contents aside)
+     */
+    private boolean checkPlacement(String word, int row, int col, boolean horizontal, Player p) {
+        MoveValidator v = getValidator();
+        MoveValidator.Result result = v.check(board, word, row, col, horizontal);
+        if (result.isLegal()) return true;
+        p.setLastError(v.describe(result));
+        notifyObservers();
+        return false;
+    }
+
+    /**
+     * Returns the validator for this game's board rules and dictionary.
+     */
+    public MoveValidator getValidator() {
+        if (validator == null) validator = new MoveValidator(dictionary);
+        return validator;
+    }
+
+    private TranspositionCache<List<MoveAnalysis>> getAnalysisCache() {
+        TranspositionCache<List<MoveAnalysis>> cache = analysisCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = analysisCache;
+                if (cache == null) analysisCache = cache = new TranspositionCache<>(64, 4);
+            }
+        }
+        return cache;
+    }
+
     public List<Player> getPlayers() {
         return players;
     }
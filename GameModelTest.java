@@ -1,6 +1,7 @@
 import org.junit.*;
 import static org.junit.Assert.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  dscdfddsvdsc * These tests verify correct behavior of word placement, scoring,
@@ -301,9 +302,8 @@ public class GameModelTest {
         player.getRack().add(new Tile('O', 1));
         player.getRack().add(new Tile('G', 2));
 
-        // Place word on TW square at (0,0)
-        model.placeWord("DOG", 0, 0, true);
-        int firstScore = player.getScore(); // Should be 15 (5 * 3)
+        // Put DOG on the TW square at (0,0) directly; as a first move it would have to cover the centre
+        assertTrue(model.getBoard().placeWord("DOG", 0, 0, true, player));
 
         // Now place another word that crosses the same TW square
         Player player2 = model.getCurrentPlayer();
@@ -795,5 +795,1280 @@ public class GameModelTest {
             fail("Tile bag serialization failed: " + e.getMessage());
         }
     }
-}
 
+    // ==========================================
+    // OBSERVER DISPATCH TESTS
+    // ==========================================
+
+    /**
+     * Observer that records how often it was called and the last version it saw.
+     */
+    private static class CountingObserver implements GameObserver {
+        volatile int calls;
+        volatile long lastVersion;
+
+        @Override
+        public void update(Board board, List<Player> players, Player currentPlayer) {
+        }
+
+        @Override
+        public void stateChanged(long version, Board board, List<Player> players, Player player) {
+            calls++;
+            lastVersion = version;
+        }
+    }
+
+    /**
+     * Tests that observers receive the latest state version asynchronously and that
+     * several changes made within one tick are coalesced into fewer deliveries.
+     */
+    @Test
+    public void testObserverNotificationIsCoalesced() {
+        CountingObserver counter = new CountingObserver();
+        model.addObserver(counter);
+
+        model.passTurn();
+        model.passTurn();
+        model.passTurn();
+
+        assertTrue(model.flushObservers(2000));
+        assertEquals(model.getStateVersion(), counter.lastVersion);
+        assertTrue(counter.calls >= 1);
+        assertTrue(counter.calls < 3);
+    }
+
+    /**
+     * Tests that observers, which run on the dispatch thread, receive a board
+     * and players rebuilt from the persistent state rather than the objects the
+     * game keeps changing, with the same tiles, blanks, racks and last move.
+     */
+    @Test
+    public void testObserversReceiveSnapshots() {
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        for (char c : "CA".toCharArray()) player.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        player.getRack().add(Tile.blankTile());
+        assertTrue(model.placeWordWithBlanks("CAT", 7, 7, true, "T"));
+        model.passTurn();
+        assertTrue(model.flushObservers(2000));
+
+        Board live = model.getBoard();
+        assertNotSame(live, observer.board);
+        assertEquals(live.getHash(), observer.board.getHash());
+        assertEquals(live.getMoveCount(), observer.board.getMoveCount());
+        assertArrayEquals(live.getLastPlacedSquares(), observer.board.getLastPlacedSquares());
+        assertTrue(observer.board.getSquare(7, 9).getTile().isBlank());
+        assertEquals(live.getSquare(7, 7).getBonus(), observer.board.getSquare(7, 7).getBonus());
+
+        assertNotSame(model.getPlayers().get(0), observer.players.get(0));
+        for (int i = 0; i < model.getPlayers().size(); i++) {
+            Player p = model.getPlayers().get(i), seen = observer.players.get(i);
+            assertEquals(p.getScore(), seen.getScore());
+            assertEquals(p.getRack().size(), seen.getRack().size());
+            assertEquals(p.getLastError(), seen.getLastError());
+        }
+        assertEquals(model.getCurrentPlayer().getName(), observer.currentPlayer.getName());
+        assertTrue(observer.players.contains(observer.currentPlayer));
+    }
+
+    // ==========================================
+    // POSITION HASH / TRANSPOSITION CACHE TESTS
+    // ==========================================
+
+    /**
+     * Tests that the board hash changes when tiles are placed and is the same
+     * for a restored snapshot of an earlier position.
+     */
+    @Test
+    public void testBoardHashTracksPlacements() {
+        long emptyHash = model.getBoard().getHash();
+        GameState before = model.createStateSnapshot();
+
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        player.getRack().add(new Tile('C', 3));
+        player.getRack().add(new Tile('A', 1));
+        player.getRack().add(new Tile('T', 1));
+        model.placeWord("CAT", 7, 7, true);
+
+        assertNotEquals(emptyHash, model.getBoard().getHash());
+        assertEquals(model.getBoard().getHash(), model.getBoard().copy().getHash());
+
+        model.restoreState(before);
+        assertEquals(emptyHash, model.getBoard().getHash());
+    }
+
+    /**
+     * Tests that searching the same position twice is answered from the cache
+     * and returns the same move.
+     */
+    @Test
+    public void testAIRepeatedPositionUsesCache() {
+        GameModel aiModel = new GameModel("StandardBoard.xml", new ArrayList<>(), "dictionary.txt");
+        AIPlayer ai = new AIPlayer("AI");
+        ai.getRack().clear();
+        ai.getRack().add(new Tile('C', 3));
+        ai.getRack().add(new Tile('A', 1));
+        ai.getRack().add(new Tile('T', 1));
+        aiModel.addPlayer(ai);
+
+        Move first = ai.findBestMove(aiModel);
+        long hitsBefore = AIPlayer.getMoveCache().getHits();
+        Move second = ai.findBestMove(aiModel);
+
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertEquals(hitsBefore + 1, AIPlayer.getMoveCache().getHits());
+    }
+
+    /**
+     * Tests that the same tiles on another layout are searched afresh rather
+     * than answered with a move cached, and scored, for the first layout.
+     */
+    @Test
+    public void testAICacheKeepsLayoutsApart() {
+        Dictionary dict = model.getDictionary();
+        for (String layout : new String[]{"StandardBoard.xml", "CornerStarBoard.xml"}) {
+            GameModel aiModel = new GameModel(new Board(layout), new ArrayList<>(), dict);
+            AIPlayer ai = new AIPlayer("AI");
+            ai.getRack().clear();
+            for (char c : "ZAX".toCharArray()) ai.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+            aiModel.addPlayer(ai);
+
+            Move best = ai.findBestMove(aiModel);
+            Move fresh = new MoveGenerator(dict).findBest(aiModel.getBoard(), ai.getRack(), true, LeaveTable.getDefault());
+            assertEquals(fresh, best);
+        }
+        assertNotEquals(new Board("StandardBoard.xml").getLayoutHash(), new Board("CornerStarBoard.xml").getLayoutHash());
+        assertEquals(new Board("StandardBoard.xml").getLayoutHash(), new Board("StandardBoard.xml").copy().getLayoutHash());
+    }
+
+    // ==========================================
+    // LEAVE EQUITY TESTS
+    // ==========================================
+
+    /**
+     * Tests that the leave table values good tiles above awkward ones and that
+     * the leave after a move is computed from the tiles actually played.
+     */
+    @Test
+    public void testLeaveTableValues() {
+        LeaveTable leaves = LeaveTable.heuristic();
+        assertTrue(leaves.value(Arrays.asList(Tile.blankTile())) > leaves.value(Arrays.asList(new Tile('Q', 10))));
+        assertTrue(leaves.value(Arrays.asList(new Tile('S', 1))) > leaves.value(Arrays.asList(new Tile('V', 4))));
+
+        List<Tile> rack = Arrays.asList(new Tile('C', 3), new Tile('A', 1), new Tile('T', 1), new Tile('S', 1));
+        byte[] leave = new byte[rack.size()];
+        int len = LeaveTable.leaveAfter(model.getBoard(), rack, new Move("CAT", 7, 7, true, 10), leave);
+        assertEquals(1, len);
+        assertEquals('S' - 'A', leave[0]);
+    }
+
+    // ==========================================
+    // SIMULATION TESTS
+    // ==========================================
+
+    /**
+     * Tests that the simulating AI stops sampling once its time budget is spent
+     * on its clock, returns a legal move and leaves the game's board as it found
+     * it. The clock is a fake one that moves on 100 ms per reading, so the
+     * budget holds the same on any machine.
+     */
+    @Test
+    public void testSimulatingAIPlayerReturnsLegalMoveWithinBudget() {
+        SimulatingAIPlayer ai = new SimulatingAIPlayer("Sim");
+        for (char c : "CATSDOG".toCharArray()) ai.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        ai.setTimeBudgetMillis(300);
+        long hashBefore = model.getBoard().getHash();
+
+        // Readings 0, 100, 200, 300 ms: one round of samples fits before the deadline
+        long[] nanos = {0};
+        ai.setClock(() -> nanos[0] += TimeUnit.MILLISECONDS.toNanos(100));
+        Move move = ai.findBestMove(model);
+
+        assertNotNull(move);
+        assertEquals(MoveValidator.Result.LEGAL, model.getValidator().check(model.getBoard(), move.getWord(),
+                move.getRow(), move.getCol(), move.isHorizontal()));
+        assertTrue("samples: " + ai.getLastSampleCount(),
+                ai.getLastSampleCount() <= Runtime.getRuntime().availableProcessors());
+        assertEquals(hashBefore, model.getBoard().getHash());
+
+        // A budget already spent by the first check runs no samples and keeps the static choice
+        nanos[0] = 0;
+        ai.setClock(() -> nanos[0] += TimeUnit.MILLISECONDS.toNanos(300));
+        Move fallback = ai.findBestMove(model);
+        assertEquals(0, ai.getLastSampleCount());
+        Move best = new MoveGenerator(model.getDictionary()).topMoves(model.getBoard(), ai.getRack(),
+                model.isFirstMove(), LeaveTable.getDefault(), SimulatingAIPlayer.DEFAULT_CANDIDATES).get(0);
+        assertEquals(best.getWord(), fallback.getWord());
+        assertEquals(best.getRow(), fallback.getRow());
+        assertEquals(best.getCol(), fallback.getCol());
+        assertEquals(best.isHorizontal(), fallback.isHorizontal());
+    }
+
+    // ==========================================
+    // ENDGAME SOLVER TESTS
+    // ==========================================
+
+    /**
+     * Tests that with an empty bag the solver finds a move for a small endgame,
+     * reaches the end of the game, and leaves the real board untouched.
+     */
+    @Test
+    public void testEndgameSolverFindsMove() {
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        for (char c : "HELLO".toCharArray()) player.getRack().add(new Tile(c, 1));
+        assertTrue(model.placeWord("HELLO", 7, 5, true));
+        model.setFirstMoveDone();
+        model.getBag().clear();
+        long hashBefore = model.getBoard().getHash();
+
+        List<Tile> rack = Arrays.asList(new Tile('E', 1), new Tile('A', 1), new Tile('R', 1));
+        List<Tile> opponentRack = Arrays.asList(new Tile('Q', 10), new Tile('Z', 10));
+        EndgameSolver.Result result = new EndgameSolver(model.getDictionary(), 5000)
+                .solve(model.getBoard(), rack, opponentRack);
+
+        assertNotNull(result.getBestMove());
+        assertTrue(result.isExact());
+        assertTrue(result.getSpread() > 0);
+        assertEquals(hashBefore, model.getBoard().getHash());
+    }
+
+    /**
+     * Tests that a solver whose budget runs out before the first ply completes
+     * still plays the highest scoring move instead of passing.
+     */
+    @Test
+    public void testEndgameSolverFallsBackToStaticMove() {
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        for (char c : "HELLO".toCharArray()) player.getRack().add(new Tile(c, 1));
+        assertTrue(model.placeWord("HELLO", 7, 5, true));
+
+        List<Tile> rack = new ArrayList<>(), opponentRack = new ArrayList<>();
+        for (char c : "AEIRLTD".toCharArray()) rack.add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        for (char c : "OUMNPSE".toCharArray()) opponentRack.add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        EndgameSolver.Result result = new EndgameSolver(model.getDictionary(), 0)
+                .solve(model.getBoard(), rack, opponentRack);
+
+        assertEquals(0, result.getDepth());
+        assertNotNull(result.getBestMove());
+        Move best = new MoveGenerator(model.getDictionary()).findBest(model.getBoard(), rack, false);
+        assertEquals(best.getScore(), result.getBestMove().getScore());
+    }
+
+    /**
+     * Tests that a generator restricted to the words spelled from the board and
+     * rack letters, as the solver builds, finds exactly the moves of a full one.
+     */
+    @Test
+    public void testRestrictedLexiconGeneratesSameMoves() {
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        for (char c : "STONE".toCharArray()) player.getRack().add(new Tile(c, 1));
+        assertTrue(model.placeWord("STONE", 7, 5, true));
+
+        List<Tile> rack = new ArrayList<>();
+        for (char c : "AEIRLTD".toCharArray()) rack.add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        AnagramIndex reachable = new AnagramIndex(model.getDictionary().getAnagramIndex().formable("AEIRLTD", "STONE", 5));
+        assertTrue(reachable.wordCount() < model.getDictionary().getAnagramIndex().wordCount());
+
+        Set<Move> full = new HashSet<>(new MoveGenerator(model.getDictionary()).generate(model.getBoard(), rack, false));
+        Set<Move> restricted = new HashSet<>(new MoveGenerator(model.getDictionary(), reachable).generate(model.getBoard(), rack, false));
+        assertFalse(full.isEmpty());
+        assertEquals(full, restricted);
+    }
+
+    // ==========================================
+    // MAKE / UNMAKE TESTS
+    // ==========================================
+
+    /**
+     * Tests that applyMove followed by undoMove restores the board, the rack
+     * order, the score and the bag exactly.
+     */
+    @Test
+    public void testApplyAndUndoMoveRestoresState() {
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        player.getRack().add(new Tile('T', 1));
+        player.getRack().add(new Tile('X', 8));
+        player.getRack().add(Tile.blankTile());
+        player.getRack().add(new Tile('C', 3));
+
+        Board board = model.getBoard();
+        long hashBefore = board.getHash();
+        String rackBefore = player.getRack().toString();
+        String bagBefore = model.getBag().toString();
+        MoveStack stack = new MoveStack(4);
+
+        int points = player.applyMove(board, new Move("CAT", 7, 7, true, 0), model.getBagDeque(), stack);
+        assertEquals(8, points); // (C=3 + blank A=0 + T=1) * 2
+        assertEquals('A', board.getLetterAt(7, 8));
+        assertEquals(4, player.getRack().size()); // three tiles played, three drawn
+        assertEquals(1, stack.depth());
+
+        player.undoMove(board, model.getBagDeque(), stack);
+        assertEquals(hashBefore, board.getHash());
+        assertFalse(board.squareHasTile(7, 7));
+        assertEquals(rackBefore, player.getRack().toString());
+        assertEquals(bagBefore, model.getBag().toString());
+        assertEquals(0, player.getScore());
+        assertTrue(stack.isEmpty());
+    }
+
+
+    // ==========================================
+    // ANAGRAM INDEX TESTS
+    // ==========================================
+
+    /**
+     * Tests that the words formable from a rack with a blank match a scan of the
+     * word list, and that a board letter extends what the rack can spell.
+     */
+    @Test
+    public void testAnagramIndexMatchesBruteForce() {
+        Dictionary dict = model.getDictionary();
+        String rack = "EARTSL*";
+
+        Set<String> expected = new TreeSet<>();
+        for (String word : dict.getWordsView()) {
+            List<Character> left = new ArrayList<>();
+            for (char c : rack.toCharArray()) left.add(c);
+            boolean ok = true;
+            for (char c : word.toCharArray()) {
+                if (!left.remove((Character) c) && !left.remove((Character) '*')) { ok = false; break; }
+            }
+            if (ok) expected.add(word);
+        }
+
+        List<String> found = dict.wordsFromRack(rack);
+        assertEquals(new ArrayList<>(expected), found);
+        assertTrue(found.contains("EAR"));
+
+        // A board letter extends what the rack alone can make
+        List<String> withBoard = dict.getAnagramIndex().formable("EA", "R", 1);
+        assertTrue(withBoard.contains("EAR"));
+        assertFalse(dict.wordsFromRack("EA").contains("EAR"));
+    }
+
+    /**
+     * Tests that board-letter queries agree with a scan of the word list, and
+     * that the move generator uses a line's tiles to find words the rack alone
+     * cannot spell.
+     */
+    @Test
+    public void testMoveGeneratorPlaysThroughBoardLetters() {
+        Dictionary dict = model.getDictionary();
+        String rack = "EAT*", boardLetters = "RSNE";
+        Set<String> expected = new TreeSet<>();
+        for (String word : dict.getWordsView()) {
+            List<Character> left = new ArrayList<>(), board = new ArrayList<>();
+            for (char c : rack.toCharArray()) left.add(c);
+            for (char c : boardLetters.toCharArray()) board.add(c);
+            int boardLeft = 2, blanks = 0;
+            for (char c : word.toCharArray()) {
+                if (left.remove((Character) c)) continue;
+                if (boardLeft > 0 && board.remove((Character) c)) boardLeft--;
+                else blanks++;
+            }
+            if (blanks <= 1) expected.add(word);
+        }
+        assertEquals(new ArrayList<>(expected), dict.getAnagramIndex().formable(rack, boardLetters, 2));
+
+        Player setter = new Player("Setter");
+        for (char c : "CAT".toCharArray()) setter.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(model.getBoard().placeWord("CAT", 7, 7, true, setter));
+        List<Tile> tiles = Arrays.asList(new Tile('C', 3), new Tile('T', 1));
+        List<Move> moves = new MoveGenerator(dict).generate(model.getBoard(), tiles, false);
+        assertTrue(moves.stream().anyMatch(m -> m.getWord().equals("ACT") && m.getRow() == 7 && m.getCol() == 8
+                && !m.isHorizontal()));
+    }
+
+
+    // ==========================================
+    // PATTERN QUERY TESTS
+    // ==========================================
+
+    /**
+     * Tests that wildcard patterns match a scan of the word list, that length
+     * ranges and rack limits are honoured, and that a board line reads as a pattern.
+     */
+    @Test
+    public void testPatternQueryMatchesBruteForce() {
+        Dictionary dict = model.getDictionary();
+
+        List<String> expected = new ArrayList<>();
+        for (String w : new TreeSet<>(dict.getWordsView())) {
+            if (w.length() == 5 && w.charAt(1) == 'A' && w.charAt(4) == 'S') expected.add(w);
+        }
+        List<String> found = new ArrayList<>();
+        dict.matchPattern("?A??S").forEachRemaining(found::add);
+        assertEquals(expected, found);
+
+        // Length range with the open slots limited to the rack
+        List<String> limited = dict.streamPattern("E??????", 2, "RA").collect(java.util.stream.Collectors.toList());
+        assertTrue(limited.contains("EAR"));
+        for (String w : limited) {
+            assertEquals('E', w.charAt(0));
+            assertTrue(w.length() <= 3);
+        }
+
+        // A board line turns straight into a pattern
+        Board board = new Board("StandardBoard.xml");
+        board.setTileAt(7, 9, new Tile('A', 1));
+        assertEquals("??A?????", board.linePattern(7, 7, true));
+    }
+
+
+    // ==========================================
+    // BLOOM FILTER TESTS
+    // ==========================================
+
+    /**
+     * Tests that the Bloom filter admits every word, rejects most non-words
+     * before the exact lookup, and never changes an answer, enabled or not.
+     */
+    @Test
+    public void testBloomFilterRejectsWithoutChangingAnswers() {
+        Dictionary dict = model.getDictionary();
+        for (String w : dict.getWordsView()) {
+            assertTrue(dict.getBloomFilter().mightContain(BloomFilter.hash(w, 0, w.length())));
+        }
+
+        EngineMetrics.reset();
+        assertTrue(dict.isValidWord(" ear "));
+        int nonWords = 0;
+        for (String a : new String[]{"QX", "ZZV", "BRQT", "XAEIOU", "JJJ"}) {
+            for (int i = 0; i < 200; i++) {
+                assertFalse(dict.isValidWord(a + i));
+                nonWords++;
+            }
+        }
+        assertEquals(1L, EngineMetrics.BLOOM_HITS.sum());
+        assertEquals(nonWords, EngineMetrics.BLOOM_REJECTS.sum() + EngineMetrics.BLOOM_FALSE_POSITIVES.sum());
+        assertTrue(EngineMetrics.bloomFalsePositiveRate() < 0.05);
+        assertTrue(dict.getBloomFilter().expectedFalsePositiveRate() < 0.05);
+
+        dict.setBloomFilterEnabled(false);
+        try {
+            assertTrue(dict.isValidWord("ear"));
+            assertFalse(dict.isValidWord("QX1"));
+        } finally {
+            dict.setBloomFilterEnabled(true);
+        }
+    }
+
+
+    // ==========================================
+    // MOVE ANALYSIS TESTS
+    // ==========================================
+
+    /**
+     * Tests that analyzeMoves returns at most N moves best first, streams them
+     * while searching and answers a repeated call from its cache.
+     */
+    @Test
+    public void testAnalyzeMovesReturnsRankedTopN() {
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        for (char c : "HELLO".toCharArray()) player.getRack().add(new Tile(c, 1));
+        assertTrue(model.placeWord("HELLO", 7, 5, true));
+        model.setFirstMoveDone();
+
+        Player next = model.getCurrentPlayer();
+        next.getRack().clear();
+        for (char c : "EARTSLN".toCharArray()) next.getRack().add(new Tile(c, 1));
+
+        List<MoveAnalysis> streamed = new ArrayList<>();
+        List<MoveAnalysis> top = model.analyzeMoves(next, 3, streamed::add);
+        assertEquals(3, top.size());
+        assertTrue(streamed.size() >= 3);
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).getEquity() >= top.get(i).getEquity());
+        }
+        MoveAnalysis best = top.get(0);
+        assertEquals(best.getWord(), best.getWordsFormed().get(0));
+        int placed = 0;
+        for (int i = 0; i < best.getWord().length(); i++) {
+            int r = best.getRow() + (best.isHorizontal() ? 0 : i);
+            int c = best.getCol() + (best.isHorizontal() ? i : 0);
+            if (!model.getBoard().squareHasTile(r, c)) placed++;
+        }
+        assertEquals(7 - placed, best.getLeave().length());
+
+        List<MoveAnalysis> replayed = new ArrayList<>();
+        List<MoveAnalysis> again = model.analyzeMoves(next, 3, replayed::add);
+        assertEquals(top.get(0).getMove(), again.get(0).getMove());
+        assertEquals(3, replayed.size());
+    }
+
+
+    // ==========================================
+    // GCG RECORD TESTS
+    // ==========================================
+
+    /**
+     * Tests that a game exported as GCG reads back and replays through the
+     * engine to the same board and scores, and that the bulk replayer agrees.
+     */
+    @Test
+    public void testGcgExportImportRoundTrip() throws Exception {
+        // The racks below hold made-up blanks, so no real ones may be in play
+        model.getBag().removeIf(Tile::isBlank);
+        for (Player p : model.getPlayers()) p.getRack().removeIf(Tile::isBlank);
+        Player first = model.getCurrentPlayer();
+        first.getRack().clear();
+        for (char c : "HELLO".toCharArray()) first.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        first.getRack().add(Tile.blankTile());
+        assertTrue(model.placeWord("HELLO", 7, 5, true));
+        model.setFirstMoveDone();
+
+        Player second = model.getCurrentPlayer();
+        second.getRack().clear();
+        second.getRack().add(new Tile('E', 1));
+        second.getRack().add(new Tile('A', 1));
+        second.getRack().add(Tile.blankTile());
+        assertTrue(model.placeWordWithBlanks("EAR", 7, 6, false, "R"));
+        model.passTurn();
+
+        java.io.StringWriter out = new java.io.StringWriter();
+        model.exportGcg(out);
+        String gcg = out.toString();
+        assertTrue(gcg.contains(" 8F HELLO +"));
+        assertTrue(gcg.contains(" G8 .Ar +"));
+
+        // Two games back to back in one archive
+        GcgReader reader = new GcgReader(new java.io.StringReader(gcg + gcg));
+        GcgGame game = reader.next();
+        assertNotNull(reader.next());
+        assertNull(reader.next());
+        assertEquals(3, game.getMoves().size());
+
+        GameModel replayed = GameModel.fromGcg(game, new Board("StandardBoard.xml"), model.getDictionary());
+        assertEquals('R', replayed.getBoard().getLetterAt(9, 6));
+        assertTrue(replayed.getBoard().getSquare(9, 6).getTile().isBlank());
+        for (int i = 0; i < model.getPlayers().size(); i++) {
+            assertEquals(model.getPlayers().get(i).getScore(), replayed.getPlayers().get(i).getScore());
+        }
+
+        GcgReplayer replayer = new GcgReplayer(new Board("StandardBoard.xml"), model.getDictionary());
+        GcgReplayer.Summary summary = replayer.replayAll(new java.io.StringReader(gcg + gcg.replace("HELLO +", "HELLO +1")), 2, null);
+        assertEquals(2, summary.getGames());
+        assertEquals(1, summary.getValid());
+        assertEquals(1, summary.getRescored());
+    }
+
+    /**
+     * Tests that a play through board tiles records its whole main word, and
+     * that withdrawn phonies and challenge bonuses replay while a record with
+     * no players is reported rather than dropped.
+     */
+    @Test
+    public void testGcgRecordsPlaysThroughAndChallenges() throws Exception {
+        model.getBag().removeIf(Tile::isBlank);
+        for (Player p : model.getPlayers()) p.getRack().removeIf(Tile::isBlank);
+        Player first = model.getCurrentPlayer();
+        first.getRack().clear();
+        for (char c : "CAT".toCharArray()) first.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(model.placeWord("CAT", 7, 7, true));
+        model.setFirstMoveDone();
+        Player second = model.getCurrentPlayer();
+        second.getRack().clear();
+        second.getRack().add(new Tile('S', 1));
+        assertTrue(model.placeWord("S", 7, 10, true));
+
+        java.io.StringWriter out = new java.io.StringWriter();
+        model.exportGcg(out);
+        String gcg = out.toString();
+        assertTrue(gcg.contains(" 8H ...S +"));
+
+        // Bob's hook is challenged off and Alice gets a challenge bonus
+        String challenged = gcg + ">Bob: S -- -" + model.getPlayers().get(1).getScore() + " 0\n"
+                + ">Alice: EIOU (challenge) +5 " + (model.getPlayers().get(0).getScore() + 5) + "\n";
+        GcgGame game = new GcgReader(new java.io.StringReader(challenged)).next();
+        assertTrue(game.isWellFormed());
+        assertEquals(RecordedMove.Type.WITHDRAWAL, game.getMoves().get(2).getType());
+        assertEquals(RecordedMove.Type.CHALLENGE_BONUS, game.getMoves().get(3).getType());
+
+        GameModel replayed = GameModel.fromGcg(game, new Board("StandardBoard.xml"), model.getDictionary());
+        assertFalse(replayed.getBoard().isOccupied(7, 10));
+        // The withdrawal rewinds the move record to CAT, so views keyed on it stay in step
+        assertEquals(1, replayed.getBoard().getMoveCount());
+        assertArrayEquals(new int[] {7 * 15 + 7, 7 * 15 + 8, 7 * 15 + 9}, replayed.getBoard().getLastPlacedSquares());
+        assertEquals(0, replayed.getPlayers().get(1).getScore());
+        assertEquals(model.getPlayers().get(0).getScore() + 5, replayed.getPlayers().get(0).getScore());
+
+        GcgReplayer replayer = new GcgReplayer(new Board("StandardBoard.xml"), model.getDictionary());
+        String noPlayers = challenged.replaceAll("#player.*\n", "");
+        GcgReplayer.Summary summary = replayer.replayAll(new java.io.StringReader(noPlayers + challenged), 1, null);
+        assertEquals(2, summary.getGames());
+        assertEquals(1, summary.getValid());
+        assertEquals(0, summary.getRescored());
+    }
+
+
+    // ==========================================
+    // BOUNDED UNDO HISTORY TESTS
+    // ==========================================
+
+    /**
+     * Tests that the undo history keeps at most its depth limit, hands back
+     * compressed snapshots intact and in order, and stays under its memory cap.
+     */
+    @Test
+    public void testUndoHistoryIsBoundedAndCompressed() {
+        UndoHistory history = new UndoHistory(5, Long.MAX_VALUE, 2);
+        for (int i = 0; i < 10; i++) {
+            history.push(model.createStateSnapshot());
+            model.passTurn();
+        }
+        assertEquals(5, history.undoDepth());
+        assertTrue(history.getCompressedBytes() > 0);
+
+        GameState current = model.createStateSnapshot();
+        for (int turns = 9; turns >= 5; turns--) {
+            current = history.undo(current);
+            assertEquals(turns, current.history.size());
+        }
+        assertFalse(history.canUndo());
+        assertEquals(6, history.redo(current).history.size());
+
+        UndoHistory probe = new UndoHistory(10, Long.MAX_VALUE, 0);
+        probe.push(model.createStateSnapshot());
+        long snapshotBytes = probe.getCompressedBytes();
+
+        UndoHistory capped = new UndoHistory(1000, snapshotBytes * 3 + snapshotBytes / 2, 0);
+        for (int i = 0; i < 20; i++) capped.push(model.createStateSnapshot());
+        assertEquals(3, capped.undoDepth());
+        assertTrue(capped.getCompressedBytes() <= snapshotBytes * 3 + snapshotBytes / 2);
+    }
+
+
+    // ==========================================
+    // PERSISTENT STATE TESTS
+    // ==========================================
+
+    /**
+     * Tests that persistent snapshots are immutable, reflect each move and share
+     * every row and rack the move did not touch with the previous snapshot.
+     */
+    @Test
+    public void testPersistentStateSharesUnchangedPieces() throws Exception {
+        PersistentGameState before = model.getPersistentState();
+        assertSame(before, model.getPersistentState());
+
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        player.getRack().add(new Tile('C', 3));
+        player.getRack().add(new Tile('A', 1));
+        player.getRack().add(new Tile('T', 1));
+        assertTrue(model.placeWord("CAT", 7, 7, true));
+
+        PersistentGameState after = model.getPersistentState();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals('C', after.letterAt(7, 7));
+        assertEquals(' ', before.letterAt(7, 7));
+        assertEquals(player.getScore(), after.getScore(0));
+        assertEquals(model.getBag().size(), after.getBagSize());
+        for (int r = 0; r < after.getBoardSize(); r++) {
+            if (r != 7) assertTrue(after.sharesRow(before, r));
+        }
+        assertFalse(after.sharesRow(before, 7));
+        assertTrue(after.sharesRack(before, 1));
+
+        List<PersistentGameState> received = new ArrayList<>();
+        model.addStateListener(received::add);
+        model.passTurn();
+        model.flushObservers(2000);
+        assertFalse(received.isEmpty());
+        assertEquals(model.getStateVersion(), received.get(received.size() - 1).getVersion());
+        assertTrue(received.get(0).sharesRow(after, 7));
+    }
+
+
+    // ==========================================
+    // BOARD SIZE TESTS
+    // ==========================================
+
+    /**
+     * Tests that the board size comes from the layout, that the occupancy masks
+     * cover the widest board, that larger sizes are rejected, and that the AI
+     * plays through the centre of a 21x21 board.
+     */
+    @Test
+    public void testBoardSizeComesFromLayout() throws Exception {
+        Board superBoard = new Board("SuperBoard.xml");
+        assertEquals(21, superBoard.getSize());
+        assertEquals(Square.Bonus.DW, superBoard.getSquare(10, 10).getBonus());
+        assertEquals(15, new Board("StandardBoard.xml").getSize());
+
+        java.io.File wide = java.io.File.createTempFile("wide", ".xml");
+        wide.deleteOnExit();
+        try (java.io.PrintWriter out = new java.io.PrintWriter(wide)) {
+            out.println("<board name=\"Wide\" size=\"26\"><bonus type=\"DW\" row=\"13\" col=\"13\"/></board>");
+        }
+        Board board = new Board(wide.getPath());
+        assertEquals(BoardLayout.MAX_SIZE, board.getSize());
+        board.setTileAt(25, 24, new Tile('A', 1));
+        assertTrue(board.isLineEmpty(24, true));
+        assertFalse(board.isLineEmpty(25, true));
+        assertTrue(board.lineHasTile(25, true, 20, 25));
+        assertFalse(board.lineHasTile(25, true, 0, 24));
+        assertTrue(board.lineHasTile(24, false, 23, 26));
+        board.removeTileAt(25, 24);
+        assertTrue(board.isLineEmpty(24, false));
+
+        try (java.io.PrintWriter out = new java.io.PrintWriter(wide)) {
+            out.println("<board name=\"Wider\" size=\"27\"></board>");
+        }
+        try {
+            new Board(wide.getPath());
+            fail("Accepted a board wider than A-Z");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("size must be 1-26"));
+        }
+
+        Player ai = new AIPlayer("Bot");
+        for (char c : "DOG".toCharArray()) ai.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        Move first = new MoveGenerator(model.getDictionary()).findBest(superBoard, ai.getRack(), true);
+        assertNotNull(first);
+        assertEquals(10, first.getRow());
+        assertEquals(10, first.getCol());
+    }
+
+
+    // ==========================================
+    // BOARD LAYOUT LOADER TESTS
+    // ==========================================
+
+    /**
+     * Tests that layouts are cached once compiled, survive a round trip through
+     * the disk cache, that a failed cache write is reported, and that bad bonus
+     * entries are rejected with their position.
+     */
+    @Test
+    public void testBoardLayoutCachingAndValidation() throws Exception {
+        assertSame(BoardLayout.load("DiagonalBoard.xml"), BoardLayout.load("DiagonalBoard.xml"));
+
+        java.io.File dir = java.nio.file.Files.createTempDirectory("layouts").toFile();
+        try {
+            BoardLayout.setDiskCacheDir(dir);
+            BoardLayout.clearMemoryCache();
+            BoardLayout fresh = BoardLayout.load("CornerStarBoard.xml");
+            assertTrue(new java.io.File(dir, fresh.getContentHash() + ".layout").isFile());
+
+            BoardLayout.clearMemoryCache();
+            BoardLayout fromDisk = BoardLayout.load("CornerStarBoard.xml");
+            assertNotSame(fresh, fromDisk);
+            assertEquals(fresh.getName(), fromDisk.getName());
+            for (int r = 0; r < fresh.getSize(); r++)
+                for (int c = 0; c < fresh.getSize(); c++)
+                    assertEquals(fresh.bonusAt(r, c), fromDisk.bonusAt(r, c));
+
+            // A cache entry that cannot be written fails the load instead of being ignored
+            BoardLayout.clearMemoryCache();
+            BoardLayout diagonal = BoardLayout.load("DiagonalBoard.xml");
+            new java.io.File(dir, diagonal.getContentHash() + ".layout").delete();
+            java.io.File blocked = new java.io.File(dir, diagonal.getContentHash() + ".layout.tmp");
+            assertTrue(blocked.mkdir());
+            BoardLayout.clearMemoryCache();
+            try {
+                BoardLayout.load("DiagonalBoard.xml");
+                fail("Ignored a failed cache write");
+            } catch (java.io.UncheckedIOException e) {
+                assertTrue(e.getMessage().contains(diagonal.getContentHash()));
+            }
+        } finally {
+            BoardLayout.setDiskCacheDir(null);
+            for (java.io.File f : dir.listFiles()) f.delete();
+            dir.delete();
+        }
+
+        String[] bad = {
+                "<board size=\"15\"><bonus type=\"QW\" row=\"1\" col=\"1\"/></board>",
+                "<board size=\"15\"><bonus type=\"DW\" row=\"15\" col=\"1\"/></board>",
+                "<board size=\"15\"><bonus type=\"DW\" row=\"2\" col=\"2\"/>\n<bonus type=\"TL\" row=\"2\" col=\"2\"/></board>",
+                "<board size=\"x\"/>",
+                "<board><bonus type=\"DW\" row=\"1\"",
+        };
+        for (String xml : bad) {
+            try {
+                BoardLayout.compile("test.xml", xml.getBytes("UTF-8"));
+                fail("Accepted " + xml);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("test.xml"));
+            }
+        }
+        try {
+            new Board("NoSuchBoard.xml");
+            fail("Loaded a missing layout");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("NoSuchBoard.xml"));
+        }
+    }
+
+
+    // ==========================================
+    // LEXICON MANAGER TESTS
+    // ==========================================
+
+    /**
+     * A reload swaps the current lexicon for new games while a running game
+     * keeps the dictionary it started with; a failed reload keeps the old one.
+     */
+    @Test
+    public void testLexiconReloadPinsRunningGames() throws Exception {
+        java.io.File file = java.io.File.createTempFile("lexicon", ".txt");
+        try {
+            java.nio.file.Files.write(file.toPath(), Arrays.asList("cat", "dog"));
+            LexiconManager lexicons = new LexiconManager(file.getPath());
+            GameModel running = new GameModel("StandardBoard.xml", Arrays.asList("A"), lexicons);
+            assertEquals(1, lexicons.getCurrent().getVersion());
+
+            java.nio.file.Files.write(file.toPath(), Arrays.asList("cat", "dog", "zebra"));
+            LexiconManager.Lexicon next = lexicons.reloadAsync(file.getPath()).get();
+            assertEquals(2, next.getVersion());
+            assertSame(next, lexicons.getCurrent());
+            assertTrue(lexicons.getDictionary().isValidWord("zebra"));
+            assertFalse(running.getDictionary().isValidWord("zebra"));
+
+            GameModel fresh = new GameModel("StandardBoard.xml", Arrays.asList("B"), lexicons);
+            assertTrue(fresh.getDictionary().isValidWord("zebra"));
+
+            try {
+                lexicons.reloadAsync(file.getPath() + ".missing").get();
+                fail("Reloaded a missing word list");
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+            assertSame(next, lexicons.getCurrent());
+        } finally {
+            file.delete();
+        }
+    }
+
+
+    // ==========================================
+    // LOUDS TRIE TESTS
+    // ==========================================
+
+    /**
+     * The succinct trie answers the same as a HashSet for every word, for
+     * near-miss non-words and for prefixes, and enumerates in sorted order.
+     */
+    @Test
+    public void testLoudsTrieMatchesHashSet() {
+        Dictionary dict = model.getDictionary();
+        Set<String> words = dict.getWordsView();
+        LoudsTrie trie = new LoudsTrie(words);
+        assertEquals(words.size(), trie.size());
+
+        Random random = new Random(7);
+        for (String w : words) {
+            assertTrue(w, trie.contains(w));
+            assertTrue(trie.hasPrefix(w.substring(0, 1 + random.nextInt(w.length()))));
+            char[] miss = w.toCharArray();
+            miss[random.nextInt(miss.length)] = (char) ('A' + random.nextInt(26));
+            String probe = new String(miss);
+            assertEquals(probe, words.contains(probe), trie.contains(probe));
+        }
+        assertEquals(new ArrayList<>(new TreeSet<>(words)), new ArrayList<>(trie.asSet()));
+
+        // Children of a node are consecutive and in letter order
+        int node = trie.walk("CA");
+        assertTrue(node > 0);
+        int first = trie.firstChild(node);
+        char previous = 0;
+        for (int c = first; c < first + trie.childCount(node); c++) {
+            assertTrue(trie.letter(c) > previous);
+            previous = trie.letter(c);
+            assertEquals(c, trie.child(node, previous));
+        }
+        List<String> ca = new ArrayList<>();
+        trie.withPrefix("CA").forEachRemaining(ca::add);
+        for (String w : ca) assertTrue(w.startsWith("CA") && words.contains(w));
+        assertTrue(ca.contains("CAT"));
+
+        // Any alphabet works, with labels sized to fit
+        LoudsTrie spanish = new LoudsTrie(Arrays.asList("AÑO", "NIÑO", "ÑU", "A"));
+        assertTrue(spanish.contains("ÑU") && spanish.contains("A") && !spanish.contains("AÑ"));
+        assertTrue(trie.bitsPerNode() < 16);
+    }
+
+    /**
+     * A Dictionary loaded succinctly gives the same answers as the default one.
+     */
+    @Test
+    public void testSuccinctDictionary() throws Exception {
+        Dictionary compact = new Dictionary("dictionary.txt", true);
+        Dictionary plain = model.getDictionary();
+        assertEquals(plain.getWordsView(), compact.getWordsView());
+        for (String w : Arrays.asList("hello", "CAT", " dog ", "zzzq", "", "ca")) {
+            assertEquals(w, plain.isValidWord(w), compact.isValidWord(w));
+        }
+        assertEquals(plain.wordsFromRack("TAC"), compact.wordsFromRack("TAC"));
+
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+            out.writeObject(compact);
+        }
+        try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(((Dictionary) in.readObject()).isValidWord("hello"));
+        }
+    }
+
+
+    /**
+     * A compiled lexicon mapped from disk, or copied off-heap, answers exactly
+     * like the word list it came from; a damaged file is rejected.
+     */
+    @Test
+    public void testOffHeapLexicon() throws Exception {
+        java.io.File compiled = java.io.File.createTempFile("lexicon", ".louds");
+        try {
+            Dictionary.compile("dictionary.txt", compiled.getPath());
+            Dictionary mapped = Dictionary.openCompiled(compiled.getPath());
+            Dictionary plain = model.getDictionary();
+            assertEquals(plain.getWordsView(), mapped.getWordsView());
+            assertTrue(mapped.isValidWord("hello") && !mapped.isValidWord("zzzq"));
+
+            LoudsTrie trie = LoudsTrie.map(compiled);
+            assertTrue(trie.isOffHeap());
+            LoudsTrie direct = LoudsTrie.offHeap(plain.getWordsView());
+            assertTrue(direct.isOffHeap());
+            assertFalse(new LoudsTrie(plain.getWordsView()).isOffHeap());
+            assertEquals(trie.nodeCount(), direct.nodeCount());
+            assertEquals(trie.walk("CAT"), direct.walk("CAT"));
+
+            byte[] bytes = java.nio.file.Files.readAllBytes(compiled.toPath());
+            java.nio.file.Files.write(compiled.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+            try {
+                Dictionary.openCompiled(compiled.getPath());
+                fail("Opened a truncated lexicon");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains(compiled.getPath()));
+            }
+        } finally {
+            compiled.delete();
+        }
+    }
+
+
+    // ==========================================
+    // PACKED MOVE TESTS
+    // ==========================================
+
+    /**
+     * A packed move round-trips all of its fields, and the buffer ranks by key
+     * with earlier moves first on ties, whether sorted or selected.
+     */
+    @Test
+    public void testPackedMoveAndBuffer() {
+        long meta = PackedMove.meta(14, 3, false, 9, 7, 0b1000001, -12);
+        long tiles = 0;
+        for (int i = 0; i < 7; i++) tiles = PackedMove.withTile(tiles, i, "QUIZZES".charAt(i));
+        assertEquals(14, PackedMove.row(meta));
+        assertEquals(3, PackedMove.col(meta));
+        assertFalse(PackedMove.isHorizontal(meta));
+        assertEquals(9, PackedMove.length(meta));
+        assertEquals(7, PackedMove.tileCount(meta));
+        assertTrue(PackedMove.isBlank(meta, 0) && PackedMove.isBlank(meta, 6) && !PackedMove.isBlank(meta, 3));
+        assertEquals(-12, PackedMove.score(meta));
+        assertEquals(250, PackedMove.score(PackedMove.withScore(meta, 250)));
+        assertEquals('Z', PackedMove.tile(tiles, 4));
+
+        MoveBuffer buffer = new MoveBuffer(4);
+        Random random = new Random(3);
+        int[] keys = new int[500];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(40) - 20;
+            buffer.add(i, 0, keys[i]);
+        }
+        assertEquals(keys.length, buffer.size());
+        int best = buffer.best();
+        assertEquals(Arrays.stream(keys).max().getAsInt(), keys[best]);
+        assertEquals(keys[best], buffer.key(best));
+        assertEquals(10, buffer.selectTop(10));
+        buffer.sort();
+        for (int i = 1; i < buffer.size(); i++) {
+            assertTrue(buffer.key(i - 1) > buffer.key(i)
+                    || (buffer.key(i - 1) == buffer.key(i) && buffer.meta(i - 1) < buffer.meta(i)));
+        }
+        assertEquals(best, buffer.meta(0));
+    }
+
+    /**
+     * Ranking through the packed buffer picks the same moves as scoring every
+     * generated Move, with and without leave values.
+     */
+    @Test
+    public void testPackedRankingMatchesMoves() {
+        Board board = model.getBoard();
+        List<Tile> rack = new ArrayList<>();
+        for (char c : "RETAINS".toCharArray()) rack.add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        MoveGenerator generator = new MoveGenerator(model.getDictionary());
+        List<Move> all = generator.generate(board, rack, true);
+        Move bestByScore = all.stream().max(Comparator.comparingInt(Move::getScore)).get();
+        assertEquals(bestByScore.getScore(), generator.findBest(board, rack, true).getScore());
+
+        Player setter = new Player("Setter");
+        for (char c : "CAT".toCharArray()) setter.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(board.placeWord("CAT", 7, 7, true, setter));
+        rack.set(0, Tile.blankTile());
+        LeaveTable leaves = LeaveTable.getDefault();
+        all = generator.generate(board, rack, false);
+        byte[] leave = new byte[rack.size()];
+        List<Move> expected = new ArrayList<>(all);
+        Map<Move, Double> equity = new IdentityHashMap<>();
+        for (Move m : all) equity.put(m, m.getScore() + leaves.value(leave, LeaveTable.leaveAfter(board, rack, m, leave)));
+        expected.sort((a, b) -> Double.compare(equity.get(b), equity.get(a)));
+
+        List<Move> top = generator.topMoves(board, rack, false, leaves, 5);
+        assertEquals(5, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(equity.get(expected.get(i)), equity.get(all.get(all.indexOf(top.get(i)))), 1e-9);
+        }
+        assertEquals(top.get(0), generator.findBest(board, rack, false, leaves));
+    }
+
+
+    // ==========================================
+    // RACK FILTER TESTS
+    // ==========================================
+
+    /**
+     * The SWAR shortfall matches a lane-by-lane computation, and racks with
+     * blanks get the same words from the scan as from a brute-force check.
+     */
+    @Test
+    public void testSwarRackFilter() {
+        Random random = new Random(11);
+        for (int i = 0; i < 10000; i++) {
+            long word = 0, rack = 0;
+            int expected = 0;
+            for (int lane = 0; lane < 8; lane++) {
+                int w = random.nextInt(32), r = random.nextInt(32);
+                word |= (long) w << (8 * lane);
+                rack |= (long) r << (8 * lane);
+                expected += Math.max(0, w - r);
+            }
+            assertEquals(expected, AnagramIndex.shortfall(word, rack));
+        }
+
+        Dictionary dict = model.getDictionary();
+        for (String letters : Arrays.asList("RETAIN**", "Q?", "??", "ZEBRA?")) {
+            Set<String> expected = new TreeSet<>();
+            for (String w : dict.getWordsView()) {
+                int[] counts = new int[26];
+                int blanks = 0;
+                for (char c : letters.toCharArray()) {
+                    if (c == '*' || c == '?') blanks++;
+                    else counts[c - 'A']++;
+                }
+                int shortfall = 0;
+                for (char c : w.toCharArray()) if (--counts[c - 'A'] < 0) shortfall++;
+                if (shortfall <= blanks) expected.add(w);
+            }
+            assertEquals(letters, new ArrayList<>(expected), dict.wordsFromRack(letters));
+        }
+    }
+
+
+    // ==========================================
+    // LINE CACHE TESTS
+    // ==========================================
+
+    /**
+     * Searching the same rack again is answered line by line from the cache,
+     * a placement only re-searches the lines it affected, and cached results
+     * always equal a search from scratch.
+     */
+    @Test
+    public void testLineMoveCache() {
+        Board board = model.getBoard();
+        Player setter = new Player("Setter");
+        for (char c : "CATDOG".toCharArray()) setter.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(board.placeWord("CAT", 7, 7, true, setter));
+        assertTrue(board.placeWord("DOG", 4, 2, false, setter));
+
+        List<Tile> rack = new ArrayList<>();
+        for (char c : "RESTING".toCharArray()) rack.add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        MoveGenerator generator = new MoveGenerator(model.getDictionary());
+        LeaveTable leaves = LeaveTable.getDefault();
+        MoveGenerator.getLineCache().clear();
+        List<Move> first = generator.topMoves(board, rack, false, leaves, 20);
+        assertEquals(0, generator.getLineCacheHits());
+        assertEquals(first, generator.topMoves(board, rack, false, leaves, 20));
+        assertEquals(6 + 8, generator.getLineCacheHits()); // rows 3-8 and columns 1-3, 6-10 hold or touch tiles
+
+        // A word down column 12 changes rows 11-14 and columns 11-13 only
+        Player other = new Player("Other");
+        for (char c : "EAR".toCharArray()) other.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(board.placeWord("EAR", 12, 12, false, other));
+        List<Move> cached = generator.topMoves(board, rack, false, leaves, 20);
+        assertTrue(generator.getLineCacheHits() > 0);
+        MoveGenerator.getLineCache().clear();
+        assertEquals(generator.topMoves(board, rack, false, leaves, 20), cached);
+        assertEquals(generator.findBest(board, rack, false, leaves), cached.get(0));
+    }
+
+
+    // ==========================================
+    // MOVE VALIDATOR TESTS
+    // ==========================================
+
+    /**
+     * Each placement rule is enforced: bounds, matching tiles, new tiles, the
+     * centre on the first move, connection afterwards, the main word extended
+     * through touching tiles, and every cross-word.
+     */
+    @Test
+    public void testMoveValidatorRules() {
+        Board board = model.getBoard();
+        MoveValidator validator = model.getValidator();
+        assertEquals(MoveValidator.Result.MISSES_CENTRE, validator.check(board, "CAT", 0, 0, true));
+        assertEquals(MoveValidator.Result.LEGAL, validator.check(board, "CAT", 7, 6, true));
+
+        Player setter = new Player("Setter");
+        for (char c : "CAT".toCharArray()) setter.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(board.placeWord("CAT", 7, 7, true, setter));
+
+        assertEquals(MoveValidator.Result.OUT_OF_BOUNDS, validator.check(board, "CAT", 7, 13, true));
+        assertEquals(MoveValidator.Result.CONFLICT, validator.check(board, "DOG", 7, 7, true));
+        assertEquals(MoveValidator.Result.NO_NEW_TILES, validator.check(board, "CAT", 7, 7, true));
+        assertEquals(MoveValidator.Result.NOT_CONNECTED, validator.check(board, "DOG", 0, 0, true));
+
+        // Touching tiles extend the main word
+        assertEquals(MoveValidator.Result.LEGAL, validator.check(board, "S", 7, 10, true));
+        assertEquals(MoveValidator.Result.INVALID_WORD, validator.check(board, "DOG", 7, 10, true));
+        assertEquals("CATDOG", validator.getOffendingWord());
+
+        // Parallel plays are legal when every cross-word is
+        assertEquals(MoveValidator.Result.LEGAL, validator.check(board, "TA", 8, 8, true));
+        assertEquals(MoveValidator.Result.INVALID_CROSS_WORD, validator.check(board, "DOG", 8, 7, true));
+        assertEquals("AO", validator.getOffendingWord());
+        assertTrue(validator.describe(MoveValidator.Result.INVALID_CROSS_WORD).contains("AO"));
+        assertEquals(MoveValidator.Result.LEGAL, validator.check(board, "DOGS", 4, 10, false));
+    }
+
+    /**
+     * Tests that a lone tile is judged by the words it forms, not by a one-letter
+     * main word, and that the opening move needs two letters even though the
+     * bundled word list holds every single letter.
+     */
+    @Test
+    public void testValidatorSingleTileRules() throws Exception {
+        Board board = model.getBoard();
+        assertEquals(MoveValidator.Result.TOO_SHORT, model.getValidator().check(board, "A", 7, 7, true));
+        assertEquals(MoveValidator.Result.TOO_SHORT, model.getValidator().check(board, "A", 7, 7, false));
+
+        java.io.File words = java.io.File.createTempFile("words", ".txt");
+        words.deleteOnExit();
+        try (java.io.PrintWriter out = new java.io.PrintWriter(words)) {
+            out.println("ca");
+            out.println("cat");
+        }
+        MoveValidator validator = new MoveValidator(new Dictionary(words.getPath()));
+        Player setter = new Player("Setter");
+        for (char c : "CAT".toCharArray()) setter.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(board.placeWord("CAT", 7, 7, true, setter));
+
+        // A under C forms only CA, whichever way the tile is laid
+        assertEquals(MoveValidator.Result.LEGAL, validator.check(board, "A", 8, 7, true));
+        assertEquals(MoveValidator.Result.LEGAL, validator.check(board, "A", 8, 7, false));
+        assertEquals(MoveValidator.Result.INVALID_CROSS_WORD, validator.check(board, "A", 8, 8, true));
+        assertEquals(MoveValidator.Result.NOT_CONNECTED, validator.check(board, "A", 0, 0, true));
+    }
+
+    /**
+     * Human moves go through the same rules and report the broken one.
+     */
+    @Test
+    public void testPlaceWordUsesValidator() {
+        Player player = model.getCurrentPlayer();
+        player.getRack().clear();
+        for (char c : "DOGCAT".toCharArray()) player.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertFalse(model.placeWord("DOG", 0, 0, true));
+        assertEquals(MoveValidator.Result.MISSES_CENTRE.getMessage(), player.getLastError());
+        assertFalse(model.placeWordWithBlanks("DOG", 0, 0, true, ""));
+        assertTrue(model.placeWord("DOG", 7, 7, true));
+
+        Player next = model.getCurrentPlayer();
+        next.getRack().clear();
+        for (char c : "CAT".toCharArray()) next.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertFalse(model.placeWord("CAT", 0, 0, true));
+        assertEquals(MoveValidator.Result.NOT_CONNECTED.getMessage(), next.getLastError());
+        assertEquals(3, next.getRack().size());
+    }
+
+    /**
+     * A play scores every word it forms: the main word extended through the
+     * tiles it touches and each cross-word, premiums under new tiles only.
+     */
+    @Test
+    public void testPlayScoresExtendedAndCrossWords() {
+        Player alice = model.getCurrentPlayer();
+        alice.getRack().clear();
+        for (char c : "CATTA".toCharArray()) alice.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(model.placeWord("CAT", 7, 7, true));
+        int aliceBefore = alice.getScore();
+
+        // S hooks CAT into CATS: C3 + A1 + T1 + S1
+        Player bob = model.getCurrentPlayer();
+        bob.getRack().clear();
+        bob.getRack().add(new Tile('S', 1));
+        int[] preview = model.previewMoves(List.of(new Move("S", 7, 10, true, 0)));
+        assertEquals(6, MoveValidator.scoreOf(preview[0]));
+        assertTrue(model.placeWord("S", 7, 10, true));
+        assertEquals(6, bob.getScore());
+
+        // TA under AT scores TA (T on a DL) plus the cross-words AT and TA, for the AI too
+        List<Move> moves = new MoveGenerator(model.getDictionary()).generate(model.getBoard(), alice.getRack(), false);
+        assertTrue(moves.contains(new Move("TA", 8, 8, true, 8)));
+        assertTrue(model.placeWord("TA", 8, 8, true));
+        assertEquals(aliceBefore + (2 + 1) + (1 + 2) + (1 + 1), alice.getScore());
+    }
+
+
+    /**
+     * A batch preview checks and scores every candidate against the same
+     * position, matches the single-move rules, and leaves the game untouched.
+     */
+    @Test
+    public void testPreviewMovesBatch() {
+        Board board = model.getBoard();
+        Player setter = new Player("Setter");
+        for (char c : "CAT".toCharArray()) setter.getRack().add(new Tile(c, GameModel.LETTER_VALUES.get(c)));
+        assertTrue(board.placeWord("CAT", 7, 7, true, setter));
+        long hash = board.getHash();
+        long version = model.getStateVersion();
+        String error = model.getCurrentPlayer().getLastError();
+
+        List<Move> candidates = List.of(
+                new Move("TA", 8, 8, true, 0),
+                new Move("DOG", 8, 7, true, 0),
+                new Move("dogs", 4, 10, false, 0),
+                new Move("DOG", 0, 0, true, 0),
+                new Move("TA", 8, 8, true, 0));
+        int[] results = model.previewMoves(candidates);
+
+        assertEquals(candidates.size(), results.length);
+        MoveValidator single = new MoveValidator(model.getDictionary());
+        for (int i = 0; i < results.length; i++) {
+            Move m = candidates.get(i);
+            MoveValidator.Result expected = single.check(board, m.getWord().toUpperCase(), m.getRow(), m.getCol(), m.isHorizontal());
+            assertEquals(expected, MoveValidator.resultOf(results[i]));
+        }
+        assertEquals(MoveValidator.Result.INVALID_CROSS_WORD, MoveValidator.resultOf(results[1]));
+        assertEquals(0, MoveValidator.scoreOf(results[1]));
+        assertEquals(board.scoreMove("TA", 8, 8, true, 0), MoveValidator.scoreOf(results[0]));
+        assertEquals(board.scoreMove("DOGS", 4, 10, false, 0), MoveValidator.scoreOf(results[2]));
+        assertEquals(results[0], results[4]);
+
+        assertEquals(hash, board.getHash());
+        assertEquals(version, model.getStateVersion());
+        assertEquals(error, model.getCurrentPlayer().getLastError());
+    }
+}
@@ -2,4 +2,13 @@ import java.util.List;
 
 public interface GameObserver {
     void update(Board board, List<Player> players, Player player);
+
+    /**
+     * Called by the ObserverDispatcher with the latest state version.
+     * Intermediate versions may be skipped when changes are coalesced.
+     * Defaults to update, ignoring the version.
+     */
+    default void stateChanged(long version, Board board, List<Player> players, Player player) {
+        update(board, players, player);
+    }
 }
@@ -0,0 +1,29 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted by GameController when a game is saved or loaded.
+ */
+@Name("scrabble.GamePersistence")
+@Label("Save / Load Game")
+@Category({"Scrabble", "Persistence"})
+@Description("Game saved to or loaded from a .sav file")
+public class GamePersistenceEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("File")
+    String file;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
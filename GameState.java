@@ -11,6 +11,7 @@ public class GameState implements Serializable {
     public Queue<Tile> bag;
     public int currentPlayerIndex;
     public boolean firstMove;
+    public List<RecordedMove> history;   // null in snapshots from older saves
 
     public GameState(Board board, List<Player> players, Queue<Tile> bag, int currentPlayerIndex, boolean firstMove) {
         this.board = board;
@@ -0,0 +1,10 @@
+/**
+ * Receives immutable snapshots of a game as it changes. GameObservers are
+ * handed a board and players rebuilt from the same snapshot; a listener gets the
+ * snapshot itself, may keep it and read it from any thread, e.g. for spectators
+ * or background savers.
+ * Delivery is coalesced like observer updates, so versions may be skipped.
+ */
+public interface GameStateListener {
+    void stateChanged(PersistentGameState state);
+}
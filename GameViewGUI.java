@@ -6,10 +6,10 @@ import java.util.List;
 
 public class GameViewGUI extends JFrame implements GameObserver {
 
-    private JTextArea boardArea;
+    private BoardPanel boardPanel;
     private JTextArea messageArea;
     private JTextArea rulesArea;
-    private JTextArea playersArea;
+    private PlayersPanel playersPanel;
     private JTextField commandInput;
     private JLabel scoreReferenceLabel;
     private JLabel timerLabel;
@@ -18,6 +18,8 @@ public class GameViewGUI extends JFrame implements GameObserver {
     private int secondsRemaining;
     private final int turnTimeLimitSeconds;
     private Player timerPlayer;
+    private String lastTurnHeader;
+    private int rulesBoardSize = Board.DEFAULT_SIZE;
 
     public GameViewGUI(int turnTimeLimitSeconds) {
         this.turnTimeLimitSeconds = turnTimeLimitSeconds;
@@ -34,19 +36,13 @@ public class GameViewGUI extends JFrame implements GameObserver {
         JPanel centerPanel = new JPanel(new GridLayout(2, 2, 10, 10));
 
         // Top-left: Players + Scores
-        playersArea = new JTextArea();
-        playersArea.setEditable(false);
-        playersArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
-        playersArea.setLineWrap(true);
-        playersArea.setWrapStyleWord(true);
-        JScrollPane playersScroll = new JScrollPane(playersArea);
+        playersPanel = new PlayersPanel();
+        JScrollPane playersScroll = new JScrollPane(playersPanel);
         centerPanel.add(playersScroll);
 
         // Top-right: Board
-        boardArea = new JTextArea();
-        boardArea.setFont(new Font("Monospaced", Font.PLAIN, 18));
-        boardArea.setEditable(false);
-        JScrollPane boardScroll = new JScrollPane(boardArea);
+        boardPanel = new BoardPanel();
+        JScrollPane boardScroll = new JScrollPane(boardPanel);
         centerPanel.add(boardScroll);
 
         // Bottom-left: Rules / Instructions
@@ -133,8 +129,24 @@ public class GameViewGUI extends JFrame implements GameObserver {
         saveItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
         loadItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L, InputEvent.CTRL_DOWN_MASK));
 
+        JMenuItem exportItem = new JMenuItem("Export GCG...");
+        JMenuItem importItem = new JMenuItem("Import GCG...");
+        exportItem.addActionListener(e -> {
+            if (controller != null) {
+                controller.exportGcg();
+            }
+        });
+        importItem.addActionListener(e -> {
+            if (controller != null) {
+                controller.importGcg();
+            }
+        });
+
         fileMenu.add(saveItem);
         fileMenu.add(loadItem);
+        fileMenu.addSeparator();
+        fileMenu.add(exportItem);
+        fileMenu.add(importItem);
         menuBar.add(fileMenu);
 
         // Edit Menu
@@ -179,7 +191,7 @@ public class GameViewGUI extends JFrame implements GameObserver {
     // BOARD UPDATE
     // ----------------------------------------
     private void updateBoardDisplay(Board board) {
-        boardArea.setText(board.toString());
+        boardPanel.render(board); // repaints only the squares that changed
     }
 
     // ----------------------------------------
@@ -187,24 +199,29 @@ public class GameViewGUI extends JFrame implements GameObserver {
     // ----------------------------------------
     @Override
     public void update(Board board, List<Player> players, Player currentPlayer) {
+        // Model changes are delivered on the dispatcher thread; Swing must be touched on the EDT
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> update(board, players, currentPlayer));
+            return;
+        }
         updateBoardDisplay(board);
-
-        // Update players + scores
-        playersArea.setText("");
-        for (Player p : players) {
-            playersArea.append(p.getName() + " - Score: " + p.getScore() + "\n");
-            playersArea.append("Tiles: ");
-            for (Tile t : p.getRack()) {
-                playersArea.append(t.toString() + " ");
-            }
-            playersArea.append("\n\n");
+        if (board.getSize() != rulesBoardSize) {
+            rulesBoardSize = board.getSize();
+            rulesArea.setText(getRulesText());
         }
 
-        // Update messages/log
-        messageArea.setText("Current Turn: " + currentPlayer.getName() + "\n\n");
+        // Update players + scores, only rows whose text changed
+        playersPanel.render(players, currentPlayer);
+
+        // Update messages/log, keeping messages appended since the turn header last changed
+        String header = "Current Turn: " + currentPlayer.getName() + "\n\n";
         String lastError = currentPlayer.getLastError();
         if (lastError != null && !lastError.isEmpty()) {
-            messageArea.append("Message: " + lastError + "\n");
+            header += "Message: " + lastError + "\n";
+        }
+        if (!header.equals(lastTurnHeader)) {
+            messageArea.setText(header);
+            lastTurnHeader = header;
         }
         startTurnTimer(currentPlayer);
     }
@@ -228,11 +245,12 @@ public class GameViewGUI extends JFrame implements GameObserver {
                 "SWAP LETTERS - Swap tiles from your rack\n" +
                 "   Example: SWAP ABC\n\n" +
                 "PASS - Skip your turn\n" +
+                "HINT [N] - Show the N best moves for your rack (default 5)\n" +
                 "TIMER - You have " + turnTimeLimitSeconds + " seconds per turn; when it hits 0 your turn is passed\n" +
                 "EXIT - Quit the game\n\n" +
                 "=== NOTES ===\n" +
-                "- Rows: 1 to 15\n" +
-                "- Columns: A to O\n" +
+                "- Rows: 1 to " + rulesBoardSize + "\n" +
+                "- Columns: A to " + (char) ('A' + rulesBoardSize - 1) + "\n" +
                 "- Direction: H = Horizontal, V = Vertical\n" +
                 "- Blank tiles can represent any letter and have 0 points\n" +
                 "- Letter scores are shown at the bottom";
@@ -258,8 +276,9 @@ public class GameViewGUI extends JFrame implements GameObserver {
             return;
         }
 
-        // Keep the existing timer if the same player is still thinking
-        if (turnTimer != null && turnTimer.isRunning() && currentPlayer == timerPlayer) {
+        // Keep the existing timer if the same player is still thinking (updates bring fresh player objects)
+        if (turnTimer != null && turnTimer.isRunning() && timerPlayer != null
+                && currentPlayer.getName().equals(timerPlayer.getName())) {
             timerLabel.setText("Time left: " + secondsRemaining + "s");
             return;
         }
@@ -0,0 +1,33 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single game read from or written to a GCG record: the players in turn
+ * order and the moves made, each RecordedMove naming its player by full name.
+ */
+public class GcgGame {
+
+    private final List<String> players;
+    private final List<RecordedMove> moves;
+    private final String error;
+
+    public GcgGame(List<String> players, List<RecordedMove> moves) {
+        this(players, moves, null);
+    }
+
+    GcgGame(List<String> players, List<RecordedMove> moves, String error) {
+        this.players = Collections.unmodifiableList(new ArrayList<>(players));
+        this.moves = Collections.unmodifiableList(new ArrayList<>(moves));
+        this.error = error;
+    }
+
+    public List<String> getPlayers() { return players; }
+    public List<RecordedMove> getMoves() { return moves; }
+
+    /** Whether the record was read without problems. */
+    public boolean isWellFormed() { return error == null; }
+
+    /** Description of the first malformed line, or null. */
+    public String getError() { return error; }
+}
@@ -0,0 +1,136 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * GcgReader parses GCG game records from a stream one game at a time. A file
+ * may hold any number of games back to back; a new game starts at a
+ * "#player1" line once the current one has players. Only the game being read
+ * is held in memory, so archives of millions of games are read in constant space.
+ *
+ * Plays, passes, exchanges, withdrawn phonies ("--"), challenge bonuses and
+ * end-of-game rack bonuses are understood; other pragmas ("#note", "#lexicon", ...) are skipped. A malformed move line does
+ * not stop the stream: the game it belongs to is returned with an error.
+ */
+public class GcgReader implements Closeable {
+
+    private final BufferedReader in;
+    private String pending;   // first line of the next game, read ahead
+    private int lineNumber;
+
+    public GcgReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return The game, or null at the end of the stream
+     * @throws IOException if the underlying reader fails
+     */
+    public GcgGame next() throws IOException {
+        SortedMap<Integer, String> players = new TreeMap<>();
+        Map<String, String> names = new HashMap<>();
+        List<RecordedMove> moves = new ArrayList<>();
+        String error = null;
+        boolean started = false;
+
+        String line;
+        while ((line = pending != null ? pending : readLine()) != null) {
+            pending = null;
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            if (line.startsWith("#player")) {
+                String[] parts = line.split("\\s+", 3);
+                int index;
+                try {
+                    index = Integer.parseInt(parts[0].substring("#player".length()));
+                } catch (NumberFormatException e) {
+                    continue; // not a player pragma after all
+                }
+                if (started && (!moves.isEmpty() || players.containsKey(index))) {
+                    pending = line;
+                    break;
+                }
+                started = true;
+                String nick = parts.length > 1 ? parts[1] : "player" + index;
+                String name = parts.length > 2 ? parts[2].trim() : nick;
+                players.put(index, name);
+                names.put(nick, name);
+            } else if (line.startsWith(">")) {
+                started = true;
+                try {
+                    moves.add(parseMove(line, names));
+                } catch (RuntimeException e) {
+                    if (error == null) error = "line " + lineNumber + ": " + line;
+                }
+            }
+            // Other pragmas and free text are ignored
+        }
+
+        if (!started) return null;
+        return new GcgGame(new ArrayList<>(players.values()), moves, error);
+    }
+
+    /**
+     * Calls the action for every remaining game in the stream.
+     */
+    public void forEach(Consumer<GcgGame> action) throws IOException {
+        for (GcgGame g; (g = next()) != null; ) action.accept(g);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readLine() throws IOException {
+        String line = in.readLine();
+        if (line != null) lineNumber++;
+        return line;
+    }
+
+    /**
+     * Parses one move line. Throws a RuntimeException if the line is malformed.
+     */
+    static RecordedMove parseMove(String line, Map<String, String> names) {
+        int colon = line.indexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("missing ':'");
+        String nick = line.substring(1, colon).trim();
+        String player = names.getOrDefault(nick, nick);
+        String[] t = line.substring(colon + 1).trim().split("\\s+");
+
+        if (t[0].startsWith("(")) {
+            String rack = t[0].substring(1, t[0].length() - 1);
+            return RecordedMove.endRack(player, rack, Integer.parseInt(t[1]), Integer.parseInt(t[2]));
+        }
+        String rack = t[0];
+        String action = t[1];
+        if (action.equals("-")) {
+            return RecordedMove.pass(player, rack, Integer.parseInt(t[3]));
+        }
+        if (action.equals("--")) {
+            return RecordedMove.withdrawal(player, rack, Integer.parseInt(t[2]), Integer.parseInt(t[3]));
+        }
+        if (action.equals("(challenge)")) {
+            return RecordedMove.challengeBonus(player, rack, Integer.parseInt(t[2]), Integer.parseInt(t[3]));
+        }
+        if (action.startsWith("-")) {
+            return RecordedMove.exchange(player, rack, action.substring(1), Integer.parseInt(t[3]));
+        }
+
+        // Position: "8H" is row 8 across from column H, "H8" is column H down from row 8
+        boolean horizontal = Character.isDigit(action.charAt(0));
+        String digits = action.replaceAll("[^0-9]", "");
+        String letters = action.replaceAll("[0-9]", "");
+        if (digits.isEmpty() || letters.length() != 1) throw new IllegalArgumentException("bad position " + action);
+        int row = Integer.parseInt(digits) - 1;
+        int col = Character.toUpperCase(letters.charAt(0)) - 'A';
+        return RecordedMove.play(player, rack, t[2], row, col, horizontal,
+                Integer.parseInt(t[3]), Integer.parseInt(t[4]));
+    }
+}
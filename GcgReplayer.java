@@ -0,0 +1,187 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * GcgReplayer re-validates and re-scores archived GCG games by replaying them
+ * through the engine (GameModel.fromGcg). Games are streamed from the archive
+ * and replayed on a pool of threads; at most a few games per thread are in
+ * flight at once, so memory stays constant however large the archive is.
+ *
+ * Usage: java GcgReplayer archive.gcg [board.xml] [dictionary.txt] [threads]
+ */
+public class GcgReplayer {
+
+    private final Board template;
+    private final Dictionary dictionary;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java GcgReplayer archive.gcg [board.xml] [dictionary.txt] [threads]");
+            return;
+        }
+        String boardFile = args.length > 1 ? args[1] : "StandardBoard.xml";
+        String dictionaryFile = args.length > 2 ? args[2] : "dictionary.txt";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        GcgReplayer replayer = new GcgReplayer(new Board(boardFile), new Dictionary(dictionaryFile));
+        try (Reader in = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+            Summary summary = replayer.replayAll(in, threads, r -> {
+                if (!r.isValid()) System.out.println("Game " + r.getIndex() + ": " + r.getProblem());
+            });
+            System.out.println(summary);
+        }
+    }
+
+    /**
+     * @param template Empty board copied for every game
+     * @param dictionary Dictionary shared by all replays
+     */
+    public GcgReplayer(Board template, Dictionary dictionary) {
+        this.template = template;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Replays one game and compares the engine's scores with the recorded ones.
+     *
+     * @param index Position of the game in its archive, for reporting
+     * @param game Game to replay
+     * @return Outcome of the replay
+     */
+    public Result replay(long index, GcgGame game) {
+        if (!game.isWellFormed()) return new Result(index, false, 0, "malformed: " + game.getError());
+        GameModel model;
+        try {
+            model = GameModel.fromGcg(game, template.copy(), dictionary);
+        } catch (IllegalArgumentException e) {
+            return new Result(index, false, 0, "rejected: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Any other failure on a bad record is reported too, never dropped from the summary
+            return new Result(index, false, 0, "rejected: " + e);
+        }
+
+        List<RecordedMove> recorded = game.getMoves();
+        List<RecordedMove> replayed = model.getMoveHistory();
+        int mismatches = 0;
+        String first = null;
+        for (int i = 0; i < recorded.size(); i++) {
+            RecordedMove want = recorded.get(i);
+            RecordedMove got = replayed.get(i);
+            if (want.getScore() != got.getScore() || want.getTotal() != got.getTotal()) {
+                if (first == null) first = "turn " + (i + 1) + " recorded " + want + " but scored " + got;
+                mismatches++;
+            }
+        }
+        return new Result(index, true, mismatches, first);
+    }
+
+    /**
+     * Replays every game in an archive on the given number of threads.
+     *
+     * @param in Archive of GCG games
+     * @param threads Games replayed at once
+     * @param onResult Receives each result, from the worker threads, in no particular order (may be null)
+     * @return Totals for the archive
+     */
+    public Summary replayAll(Reader in, int threads, Consumer<Result> onResult) throws IOException, InterruptedException {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "scrabble-gcg-replay");
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore inFlight = new Semaphore(threads * 4);
+        try (GcgReader reader = new GcgReader(in)) {
+            long index = 0;
+            for (GcgGame game; (game = reader.next()) != null; ) {
+                GcgGame g = game;
+                long i = index++;
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        Result r = replay(i, g);
+                        summary.add(r);
+                        if (onResult != null) onResult.accept(r);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return summary;
+    }
+
+    // --------------------------
+    //          RESULTS
+    // --------------------------
+
+    /**
+     * Outcome of replaying one game.
+     */
+    public static class Result {
+        private final long index;
+        private final boolean replayed;
+        private final int scoreMismatches;
+        private final String problem;
+
+        Result(long index, boolean replayed, int scoreMismatches, String problem) {
+            this.index = index;
+            this.replayed = replayed;
+            this.scoreMismatches = scoreMismatches;
+            this.problem = problem;
+        }
+
+        public long getIndex() { return index; }
+
+        /** Whether every move was accepted by the engine. */
+        public boolean isReplayed() { return replayed; }
+
+        /** Number of moves whose recorded score or total differs from the engine's. */
+        public int getScoreMismatches() { return scoreMismatches; }
+
+        /** Replayed with every score matching. */
+        public boolean isValid() { return replayed && scoreMismatches == 0; }
+
+        /** First problem found, or null. */
+        public String getProblem() { return problem; }
+    }
+
+    /**
+     * Totals over an archive.
+     */
+    public static class Summary {
+        private final LongAdder games = new LongAdder();
+        private final LongAdder valid = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder rescored = new LongAdder();
+        private volatile long elapsedMillis;
+
+        void add(Result r) {
+            games.increment();
+            if (r.isValid()) valid.increment();
+            else if (!r.isReplayed()) rejected.increment();
+            else rescored.increment();
+        }
+
+        public long getGames() { return games.sum(); }
+        public long getValid() { return valid.sum(); }
+        public long getRejected() { return rejected.sum(); }
+        public long getRescored() { return rescored.sum(); }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return getGames() + " games: " + getValid() + " valid, " + getRescored() + " with score differences, "
+                    + getRejected() + " rejected (" + elapsedMillis + " ms)";
+        }
+    }
+}
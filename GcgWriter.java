@@ -0,0 +1,106 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GcgWriter writes games in the GCG game-record format, one game after another
+ * on the same stream, so an archive of any size is written without holding
+ * more than the current game in memory.
+ *
+ * <pre>
+ * #player1 Alice Alice
+ * #player2 Bob Bob
+ * >Alice: ADEHLLO 8D HELLO +16 16
+ * >Bob: EIQRTUZ H4 QUI.T +26 26
+ * >Alice: ADEF?RT - +0 16
+ * >Bob: EIRTUZ? -UZ +0 26
+ * >Alice: AEMNORT 3B MOANER +20 36
+ * >Alice: AEMNORT -- -20 16
+ * </pre>
+ */
+public class GcgWriter implements Closeable {
+
+    private final Writer out;
+    private boolean encodingWritten;
+
+    public GcgWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Appends one game to the stream.
+     *
+     * @param players Player names in turn order
+     * @param moves Moves in the order they were made
+     * @throws IOException if the underlying writer fails
+     */
+    public void writeGame(List<String> players, List<RecordedMove> moves) throws IOException {
+        if (!encodingWritten) {
+            out.write("#character-encoding UTF-8\n");
+            encodingWritten = true;
+        }
+        Map<String, String> nicks = new HashMap<>();
+        for (int i = 0; i < players.size(); i++) {
+            String nick = nickname(players.get(i));
+            if (nicks.containsValue(nick)) nick += "_" + (i + 1);
+            nicks.put(players.get(i), nick);
+            out.write("#player" + (i + 1) + " " + nick + " " + players.get(i) + "\n");
+        }
+        for (RecordedMove m : moves) {
+            String nick = nicks.getOrDefault(m.getPlayer(), nickname(m.getPlayer()));
+            out.write(formatMove(m, nick));
+            out.write('\n');
+        }
+    }
+
+    public void writeGame(GcgGame game) throws IOException {
+        writeGame(game.getPlayers(), game.getMoves());
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /** GCG nicknames cannot contain spaces. */
+    static String nickname(String name) {
+        String nick = name.trim().replaceAll("\\s+", "_");
+        return nick.isEmpty() ? "_" : nick;
+    }
+
+    /**
+     * Formats one move line, e.g. ">Alice: ADEHLLO 8D HELLO +16 16".
+     */
+    static String formatMove(RecordedMove m, String nick) {
+        StringBuilder sb = new StringBuilder(">").append(nick).append(": ");
+        switch (m.getType()) {
+            case PLAY:
+                sb.append(m.getRack()).append(' ').append(m.getPosition()).append(' ').append(m.getWord());
+                break;
+            case PASS:
+                sb.append(m.getRack()).append(" -");
+                break;
+            case EXCHANGE:
+                sb.append(m.getRack()).append(" -").append(m.getWord());
+                break;
+            case END_RACK:
+                sb.append('(').append(m.getWord()).append(')');
+                break;
+            case WITHDRAWAL:
+                sb.append(m.getRack()).append(" --");
+                break;
+            case CHALLENGE_BONUS:
+                sb.append(m.getRack()).append(" (challenge)");
+                break;
+        }
+        sb.append(m.getScore() < 0 ? " " : " +").append(m.getScore()).append(' ').append(m.getTotal());
+        return sb.toString();
+    }
+}
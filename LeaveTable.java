@@ -0,0 +1,249 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LeaveTable holds the equity (value in points) of every possible rack leave,
+ * i.e. the tiles kept after a move. Leaves of 0 to 6 tiles over 27 symbols
+ * (A-Z and blank) are ranked with the combinatorial number system, which is a
+ * minimal perfect hash, so the table is one short[] of about 1.1M entries
+ * (hundredths of a point) and a lookup is a handful of additions.
+ *
+ * The table is loaded once from leaves.bin when present (see
+ * LeaveTableGenerator) and otherwise built from a simple tile heuristic.
+ */
+public class LeaveTable {
+
+    public static final String DEFAULT_FILE = "leaves.bin";
+    public static final int SYMBOLS = 27;          // A-Z plus blank
+    public static final int BLANK = 26;
+    public static final int MAX_LEAVE = 6;
+
+    private static final int MAGIC = 0x4C454156;   // "LEAV"
+    private static final int[][] BINOMIAL = new int[SYMBOLS + MAX_LEAVE + 1][MAX_LEAVE + 2];
+    private static final int[] OFFSET = new int[MAX_LEAVE + 2];
+
+    static {
+        for (int n = 0; n < BINOMIAL.length; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, MAX_LEAVE + 1); k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+        // Leaves of size k start after all smaller leaves: C(27 + k - 1, k) multisets each
+        for (int k = 0; k <= MAX_LEAVE; k++) {
+            OFFSET[k + 1] = OFFSET[k] + BINOMIAL[SYMBOLS + k - 1][k];
+        }
+    }
+
+    /** Number of distinct leaves of up to MAX_LEAVE tiles. */
+    public static final int SIZE = OFFSET[MAX_LEAVE + 1];
+
+    // Rough per-tile leave values used for the built-in table, in points
+    private static final double[] TILE_VALUES = {
+            1.0, -3.0, 0.5, 0.0, 4.0, -2.0, -2.5, 1.0, -0.5, -1.5, -2.0, -0.5, -0.5, // A-M
+            0.5, -1.5, -0.5, -7.0, 1.5, 8.0, 0.0, -3.5, -5.5, -4.0, 3.5, -0.5, 3.0,  // N-Z
+            25.0                                                                    // blank
+    };
+
+    private static volatile LeaveTable defaultTable;
+
+    private final short[] centipoints;
+
+    private LeaveTable(short[] centipoints) {
+        if (centipoints.length != SIZE) throw new IllegalArgumentException("Leave table must have " + SIZE + " entries");
+        this.centipoints = centipoints;
+    }
+
+    /**
+     * Returns the process-wide table, loading it on first use.
+     *
+     * @return Table from leaves.bin, or the heuristic table if the file is absent or unreadable
+     */
+    public static LeaveTable getDefault() {
+        LeaveTable table = defaultTable;
+        if (table == null) {
+            synchronized (LeaveTable.class) {
+                table = defaultTable;
+                if (table == null) {
+                    File file = new File(DEFAULT_FILE);
+                    try {
+                        table = file.exists() ? load(file) : heuristic();
+                    } catch (IOException e) {
+                        System.out.println("Error loading leave table: " + e.getMessage());
+                        table = heuristic();
+                    }
+                    defaultTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Builds the table from per-tile values, duplicate penalties and vowel/consonant balance.
+     */
+    public static LeaveTable heuristic() {
+        short[] values = new short[SIZE];
+        byte[] leave = new byte[MAX_LEAVE];
+        for (int k = 0; k <= MAX_LEAVE; k++) fillHeuristic(values, leave, 0, k, 0);
+        return new LeaveTable(values);
+    }
+
+    private static void fillHeuristic(short[] values, byte[] leave, int pos, int len, int minSymbol) {
+        if (pos == len) {
+            values[rank(leave, len)] = toCentipoints(heuristicValue(leave, len));
+            return;
+        }
+        for (int s = minSymbol; s < SYMBOLS; s++) {
+            leave[pos] = (byte) s;
+            fillHeuristic(values, leave, pos + 1, len, s);
+        }
+    }
+
+    static double heuristicValue(byte[] leave, int len) {
+        double value = 0;
+        int vowels = 0, consonants = 0;
+        boolean hasQ = false, hasU = false;
+        for (int i = 0; i < len; i++) {
+            int s = leave[i];
+            value += TILE_VALUES[s];
+            if (i > 0 && leave[i - 1] == s && s != BLANK) value -= 3.0; // duplicates block bingos
+            if (s == BLANK) continue;
+            if ("AEIOU".indexOf('A' + s) >= 0) vowels++;
+            else consonants++;
+            if (s == 'Q' - 'A') hasQ = true;
+            if (s == 'U' - 'A') hasU = true;
+        }
+        if (hasQ && hasU) value += 5.0;
+        value -= 1.5 * Math.max(0, Math.abs(vowels - consonants) - 1);
+        return value;
+    }
+
+    /**
+     * Loads a table written by save.
+     *
+     * @param file Binary table file
+     * @return Loaded table
+     * @throws IOException if the file is missing, truncated or not a leave table
+     */
+    public static LeaveTable load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a leave table: " + file);
+            int count = in.readInt();
+            if (count != SIZE) throw new IOException("Leave table has " + count + " entries, expected " + SIZE);
+            short[] values = new short[count];
+            for (int i = 0; i < count; i++) values[i] = in.readShort();
+            return new LeaveTable(values);
+        }
+    }
+
+    /**
+     * Writes the table in the binary format read by load.
+     *
+     * @param file Destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(centipoints.length);
+            for (short v : centipoints) out.writeShort(v);
+        }
+    }
+
+    /**
+     * Creates a table from values indexed by rank, e.g. produced by LeaveTableGenerator.
+     *
+     * @param values Equity in points for every rank
+     * @return New table
+     */
+    public static LeaveTable fromValues(double[] values) {
+        short[] cp = new short[values.length];
+        for (int i = 0; i < values.length; i++) cp[i] = toCentipoints(values[i]);
+        return new LeaveTable(cp);
+    }
+
+    /**
+     * Returns the perfect-hash index of a leave.
+     *
+     * @param sortedSymbols Symbols (0-25 letters, 26 blank) in non-decreasing order
+     * @param len Number of symbols used, at most MAX_LEAVE
+     * @return Index in [0, SIZE)
+     */
+    public static int rank(byte[] sortedSymbols, int len) {
+        int r = OFFSET[len];
+        // Map the multiset to a strictly increasing sequence and rank it in colex order
+        for (int i = 0; i < len; i++) r += BINOMIAL[sortedSymbols[i] + i][i + 1];
+        return r;
+    }
+
+    /**
+     * Returns the equity of a leave given by rank.
+     */
+    public double value(int rank) {
+        return centipoints[rank] / 100.0;
+    }
+
+    /**
+     * Returns the equity of a leave given as sorted symbols.
+     */
+    public double value(byte[] sortedSymbols, int len) {
+        if (len > MAX_LEAVE) return 0; // nothing was played, leave value is irrelevant
+        return value(rank(sortedSymbols, len));
+    }
+
+    /**
+     * Same as value(sortedSymbols, len), in hundredths of a point.
+     */
+    public int centipoints(byte[] sortedSymbols, int len) {
+        if (len > MAX_LEAVE) return 0;
+        return centipoints[rank(sortedSymbols, len)];
+    }
+
+    /**
+     * Returns the equity of keeping the given tiles.
+     */
+    public double value(List<Tile> leave) {
+        byte[] symbols = new byte[leave.size()];
+        for (int i = 0; i < symbols.length; i++) symbols[i] = symbolOf(leave.get(i));
+        Arrays.sort(symbols);
+        return value(symbols, symbols.length);
+    }
+
+    /**
+     * Returns the sorted symbols left on the rack after playing the move, using the
+     * same tile choice as Player.takeTileForLetter (exact letter first, then a blank).
+     *
+     * @param board Board before the move
+     * @param rack Rack before the move
+     * @param move Move to play
+     * @param out Array of at least rack.size() entries receiving the leave
+     * @return Number of symbols in the leave
+     */
+    public static int leaveAfter(Board board, List<Tile> rack, Move move, byte[] out) {
+        int[] counts = new int[SYMBOLS];
+        for (Tile t : rack) counts[symbolOf(t)]++;
+        String word = move.getWord();
+        for (int i = 0; i < word.length(); i++) {
+            int r = move.getRow() + (move.isHorizontal() ? 0 : i);
+            int c = move.getCol() + (move.isHorizontal() ? i : 0);
+            if (board.squareHasTile(r, c)) continue;
+            int s = word.charAt(i) - 'A';
+            if (counts[s] > 0) counts[s]--;
+            else counts[BLANK]--;
+        }
+        int len = 0;
+        for (int s = 0; s < SYMBOLS; s++)
+            for (int n = 0; n < counts[s]; n++) out[len++] = (byte) s;
+        return len;
+    }
+
+    static byte symbolOf(Tile t) {
+        return (byte) (t.isBlank() ? BLANK : t.getLetter() - 'A');
+    }
+
+    private static short toCentipoints(double points) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(points * 100)));
+    }
+}
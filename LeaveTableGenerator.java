@@ -0,0 +1,151 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Offline tool that derives a LeaveTable from AI self-play.
+ * For every move, the leave kept is credited with the points the same player
+ * scores on their following turn; each leave's value is its average credit
+ * relative to the overall average, blended with the heuristic value for
+ * leaves that were rarely seen. Games are played in parallel on all cores.
+ *
+ * Usage: java LeaveTableGenerator [games] [output file] [board file]
+ */
+public class LeaveTableGenerator {
+
+    private static final int MAX_TURNS = 200;
+    private static final double PRIOR_WEIGHT = 5.0;  // observations the heuristic value counts as
+
+    private final String boardFile;
+    private final String dictionaryFile;
+
+    public LeaveTableGenerator(String boardFile, String dictionaryFile) {
+        this.boardFile = boardFile;
+        this.dictionaryFile = dictionaryFile;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        String output = args.length > 1 ? args[1] : LeaveTable.DEFAULT_FILE;
+        String boardFile = args.length > 2 ? args[2] : "StandardBoard.xml";
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        long start = System.currentTimeMillis();
+        LeaveTable table = new LeaveTableGenerator(boardFile, "dictionary.txt").generate(games, threads);
+        table.save(new File(output));
+        System.out.println("Wrote " + output + " from " + games + " games on " + threads + " threads in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Plays the given number of self-play games and builds a table from them.
+     *
+     * @param games Number of games to play
+     * @param threads Number of games played at once
+     * @return Generated table
+     */
+    public LeaveTable generate(int games, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Stats>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int share = games / threads + (t < games % threads ? 1 : 0);
+            results.add(pool.submit(() -> {
+                Stats stats = new Stats();
+                for (int g = 0; g < share; g++) playGame(stats);
+                return stats;
+            }));
+        }
+        pool.shutdown();
+
+        Stats total = new Stats();
+        try {
+            for (Future<Stats> f : results) total.merge(f.get());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Self-play game failed", e.getCause());
+        }
+        return total.toTable();
+    }
+
+    private void playGame(Stats stats) {
+        GameModel model = new GameModel(boardFile, new ArrayList<>(), dictionaryFile);
+        for (int i = 0; i < 2; i++) {
+            AIPlayer ai = new AIPlayer("Self-play " + (i + 1));
+            ai.drawTiles(model.getBag(), 7);
+            model.addPlayer(ai);
+        }
+
+        int[] pendingLeave = {-1, -1};  // leave rank kept by each player on their last turn
+        byte[] leave = new byte[7];
+        int passes = 0;
+        for (int turn = 0; turn < MAX_TURNS && passes < 4; turn++) {
+            int index = model.getPlayers().indexOf(model.getCurrentPlayer());
+            AIPlayer ai = (AIPlayer) model.getCurrentPlayer();
+            int scoreBefore = ai.getScore();
+            int leaveLen;
+
+            Move move = ai.findBestMove(model);
+            if (move != null) {
+                leaveLen = LeaveTable.leaveAfter(model.getBoard(), ai.getRack(), move, leave);
+            } else {
+                leaveLen = ai.getRack().size();
+                for (int i = 0; i < leaveLen; i++) leave[i] = LeaveTable.symbolOf(ai.getRack().get(i));
+                Arrays.sort(leave, 0, leaveLen);
+            }
+
+            if (move != null && model.placeWord(move.getWord(), move.getRow(), move.getCol(), move.isHorizontal())) {
+                model.setFirstMoveDone();
+                passes = 0;
+            } else {
+                model.passTurn();
+                passes++;
+            }
+
+            if (pendingLeave[index] >= 0) stats.add(pendingLeave[index], ai.getScore() - scoreBefore);
+            boolean counts = leaveLen <= LeaveTable.MAX_LEAVE && !model.getBag().isEmpty();
+            pendingLeave[index] = counts ? LeaveTable.rank(leave, leaveLen) : -1;
+
+            if (ai.getRack().isEmpty()) break; // player went out
+        }
+    }
+
+    /**
+     * Per-worker accumulator of next-turn scores by leave rank. Sparse, since a
+     * run only ever sees a small fraction of the 1.1M possible leaves.
+     */
+    private static class Stats {
+        final Map<Integer, double[]> byLeave = new HashMap<>();  // rank -> {sum, count}
+        double totalScore;
+        long totalCount;
+
+        void add(int rank, int nextScore) {
+            double[] entry = byLeave.computeIfAbsent(rank, k -> new double[2]);
+            entry[0] += nextScore;
+            entry[1]++;
+            totalScore += nextScore;
+            totalCount++;
+        }
+
+        void merge(Stats other) {
+            other.byLeave.forEach((rank, e) -> {
+                double[] entry = byLeave.computeIfAbsent(rank, k -> new double[2]);
+                entry[0] += e[0];
+                entry[1] += e[1];
+            });
+            totalScore += other.totalScore;
+            totalCount += other.totalCount;
+        }
+
+        LeaveTable toTable() {
+            LeaveTable prior = LeaveTable.heuristic();
+            double mean = totalCount == 0 ? 0 : totalScore / totalCount;
+            double[] values = new double[LeaveTable.SIZE];
+            for (int i = 0; i < values.length; i++) values[i] = prior.value(i);
+            byLeave.forEach((rank, e) -> {
+                double observed = e[0] - e[1] * mean;  // total credit above average
+                values[rank] = (observed + PRIOR_WEIGHT * values[rank]) / (e[1] + PRIOR_WEIGHT);
+            });
+            return LeaveTable.fromValues(values);
+        }
+    }
+}
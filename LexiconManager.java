@@ -0,0 +1,134 @@
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LexiconManager owns the current word list and replaces it without a restart.
+ * A reload reads the new file and builds all of its indexes (anagram index,
+ * Bloom filter, pattern trie) on a background thread, then swaps the reference
+ * in one atomic step, so lookups never wait and never see a half-built lexicon.
+ *
+ * Games pin the Dictionary they were created with (GameModel keeps its own
+ * reference), so a swap only affects games started afterwards. The manager
+ * itself keeps only the current version; an older one is garbage collected as
+ * soon as the last game using it is gone. Reloads run one at a time, so at most
+ * two versions are being built or held by the manager at once.
+ */
+public class LexiconManager {
+
+    /**
+     * One loaded version of the word list.
+     */
+    public static final class Lexicon {
+        private final Dictionary dictionary;
+        private final long version;
+        private final String file;
+        private final long loadedAt;
+        private final long fileModified;
+
+        Lexicon(Dictionary dictionary, long version, String file, long fileModified) {
+            this.dictionary = dictionary;
+            this.version = version;
+            this.file = file;
+            this.fileModified = fileModified;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        public Dictionary getDictionary() { return dictionary; }
+        public long getVersion() { return version; }
+        public String getFile() { return file; }
+        public long getLoadedAt() { return loadedAt; }
+    }
+
+    private final AtomicReference<Lexicon> current = new AtomicReference<>();
+    private final List<WeakReference<Dictionary>> retired = new ArrayList<>();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "scrabble-lexicon-loader");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1); // stay out of the way of game and AI threads
+        return t;
+    });
+
+    /**
+     * Loads the initial word list on the calling thread.
+     *
+     * @param file Word list, one word per line
+     * @throws IllegalArgumentException if the file cannot be read or holds no words
+     */
+    public LexiconManager(String file) {
+        current.set(build(file, 1));
+    }
+
+    /**
+     * Returns the current version. New games should take their Dictionary from here.
+     */
+    public Lexicon getCurrent() {
+        return current.get();
+    }
+
+    /**
+     * Shortcut for getCurrent().getDictionary().
+     */
+    public Dictionary getDictionary() {
+        return current.get().getDictionary();
+    }
+
+    /**
+     * Loads a word list in the background and makes it current once it is fully
+     * built. If loading fails the current version stays in place and the returned
+     * future completes exceptionally.
+     *
+     * @param file Word list to load
+     * @return Completes with the new version once it is current
+     */
+    public CompletableFuture<Lexicon> reloadAsync(String file) {
+        return CompletableFuture.supplyAsync(() -> {
+            Lexicon next = build(file, current.get().getVersion() + 1);
+            Lexicon previous = current.getAndSet(next);
+            synchronized (retired) {
+                retired.add(new WeakReference<>(previous.getDictionary()));
+            }
+            return next;
+        }, loader);
+    }
+
+    /**
+     * Reloads the current file in the background if it changed on disk since it was loaded.
+     *
+     * @return The reload, or null if the file is unchanged
+     */
+    public CompletableFuture<Lexicon> reloadIfChanged() {
+        Lexicon lexicon = current.get();
+        if (new File(lexicon.getFile()).lastModified() == lexicon.fileModified) return null;
+        return reloadAsync(lexicon.getFile());
+    }
+
+    /**
+     * Returns how many replaced versions are still alive, i.e. still pinned by a
+     * game (or not yet collected).
+     */
+    public int retiredVersionsInUse() {
+        synchronized (retired) {
+            for (Iterator<WeakReference<Dictionary>> it = retired.iterator(); it.hasNext(); ) {
+                if (it.next().get() == null) it.remove();
+            }
+            return retired.size();
+        }
+    }
+
+    private static Lexicon build(String file, long version) {
+        File f = new File(file);
+        if (!f.canRead()) throw new IllegalArgumentException("Cannot read word list " + file);
+        long modified = f.lastModified();
+        Dictionary dictionary = new Dictionary(file);
+        if (dictionary.getWordsView().isEmpty()) throw new IllegalArgumentException("Word list " + file + " has no words");
+        dictionary.getTrie(); // the anagram index and Bloom filter are built by the constructor
+        return new Lexicon(dictionary, version, file, modified);
+    }
+}
@@ -0,0 +1,650 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * LoudsTrie is a succinct, read-only trie over a word list. The tree shape is
+ * stored as a LOUDS bit string (level-order unary degree sequence: for each
+ * node in breadth-first order, one 1 per child followed by a 0), edge labels
+ * are packed at just enough bits for the lexicon's alphabet, and word ends are
+ * one bit per node. Navigation uses select over the zeros of the bit string,
+ * backed by a small rank directory and sampled select positions, so a node
+ * costs about 2 + label bits + 1 bits, plus a few percent for the directories.
+ *
+ * Nodes are identified by their breadth-first number (the root is 0) and the
+ * children of a node are consecutively numbered, so iterating them needs no
+ * extra lookups: for (c = firstChild(n); c < firstChild(n) + childCount(n); c++).
+ *
+ * Any characters are accepted, so lexicons of other languages work as well;
+ * a 26-letter lexicon uses 5-bit labels.
+ *
+ * The arrays live in buffers, so a trie can also be held off-heap: offHeap()
+ * copies it into direct memory and map() opens a file written by writeTo()
+ * without reading it into the heap. Off-heap tries add almost nothing to GC
+ * marking work whatever their size. All reads are absolute and bounds-checked
+ * and the buffers are read-only, so one trie can be shared by any number of
+ * threads.
+ *
+ * Usage (benchmark): java LoudsTrie wordlist.txt [more word lists...]
+ */
+public class LoudsTrie implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Node number of the root. */
+    public static final int ROOT = 0;
+
+    private static final int BLOCK_WORDS = 8;       // 512-bit rank blocks
+    private static final int SELECT_SAMPLE = 256;   // one sampled block per 256 zeros
+
+    private static final int MAGIC = 0x4C4F5544;    // "LOUD"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_INTS = 12;
+
+    private final LongBuffer louds;
+    private final IntBuffer zerosBefore;    // zeros before each rank block
+    private final IntBuffer selectBlock;    // block holding zero k * SELECT_SAMPLE
+    private final LongBuffer labels;        // label code of node n + 1, labelBits each
+    private final int labelBits;
+    private final char[] alphabet;          // sorted; a label code is an index into it
+    private final LongBuffer terminal;
+    private final int nodes;
+    private final int words;
+    private final int maxLength;
+
+    /**
+     * Builds the trie. Duplicates and empty strings are ignored.
+     *
+     * @param lexicon Words, in any order
+     */
+    public LoudsTrie(Collection<String> lexicon) {
+        String[] sorted = lexicon.stream().filter(w -> !w.isEmpty()).distinct().sorted().toArray(String[]::new);
+        words = sorted.length;
+
+        BitSet seen = new BitSet();
+        int longest = 0;
+        for (String w : sorted) {
+            for (int i = 0; i < w.length(); i++) seen.set(w.charAt(i));
+            longest = Math.max(longest, w.length());
+        }
+        maxLength = longest;
+        alphabet = new char[seen.cardinality()];
+        for (int c = seen.nextSetBit(0), i = 0; c >= 0; c = seen.nextSetBit(c + 1)) alphabet[i++] = (char) c;
+        labelBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, alphabet.length - 1)));
+
+        // Breadth-first over ranges of the sorted list: a node is the run of words
+        // sharing its prefix, and its children are the sub-runs by next character.
+        BitWriter shape = new BitWriter();
+        BitWriter ends = new BitWriter();
+        BitWriter labelOut = new BitWriter();
+        int[] queue = new int[3 * 64];
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        queue[tail++] = sorted.length;
+        queue[tail++] = 0;
+        int count = 0;
+        while (head < tail) {
+            int lo = queue[head++], hi = queue[head++], depth = queue[head++];
+            count++;
+            boolean isWord = lo < hi && sorted[lo].length() == depth;
+            ends.append(isWord ? 1 : 0, 1);
+            if (isWord) lo++;
+            while (lo < hi) {
+                char c = sorted[lo].charAt(depth);
+                int end = lo + 1;
+                while (end < hi && sorted[end].charAt(depth) == c) end++;
+                shape.append(1, 1);
+                labelOut.append(Arrays.binarySearch(alphabet, c), labelBits);
+                if (tail + 3 > queue.length) {
+                    // Compact the consumed head before growing
+                    System.arraycopy(queue, head, queue, 0, tail - head);
+                    tail -= head;
+                    head = 0;
+                    if (tail + 3 > queue.length) queue = Arrays.copyOf(queue, queue.length * 2);
+                }
+                queue[tail++] = lo;
+                queue[tail++] = end;
+                queue[tail++] = depth + 1;
+                lo = end;
+            }
+            shape.append(0, 1);
+        }
+        nodes = count;
+        long[] shapeBits = shape.toArray();
+        louds = LongBuffer.wrap(shapeBits).asReadOnlyBuffer();
+        labels = LongBuffer.wrap(labelOut.toArray()).asReadOnlyBuffer();
+        terminal = LongBuffer.wrap(ends.toArray()).asReadOnlyBuffer();
+
+        int blocks = (shapeBits.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+        int[] zerosBefore = new int[blocks + 1];
+        int zeros = 0;
+        List<Integer> samples = new ArrayList<>();
+        int length = shape.length();
+        for (int b = 0; b < blocks; b++) {
+            zerosBefore[b] = zeros;
+            for (int w = b * BLOCK_WORDS; w < Math.min(shapeBits.length, (b + 1) * BLOCK_WORDS); w++) {
+                int bits = Math.max(0, Math.min(64, length - w * 64));
+                int z = bits - Long.bitCount(shapeBits[w]);
+                for (int k = (zeros + SELECT_SAMPLE - 1) / SELECT_SAMPLE * SELECT_SAMPLE; k < zeros + z; k += SELECT_SAMPLE) {
+                    samples.add(b);
+                }
+                zeros += z;
+            }
+        }
+        zerosBefore[blocks] = zeros;
+        this.zerosBefore = IntBuffer.wrap(zerosBefore).asReadOnlyBuffer();
+        selectBlock = IntBuffer.wrap(samples.stream().mapToInt(Integer::intValue).toArray()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Opens a trie over a compiled image as written by writeTo().
+     *
+     * @throws IllegalArgumentException if the image is not a valid compiled trie
+     */
+    private LoudsTrie(ByteBuffer image) {
+        ByteBuffer in = image.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_INTS * 4 || in.getInt(0) != MAGIC || in.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Not a compiled lexicon");
+        }
+        nodes = in.getInt(8);
+        words = in.getInt(12);
+        maxLength = in.getInt(16);
+        labelBits = in.getInt(20);
+        int alphabetLength = in.getInt(24);
+        int[] lengths = new int[5];
+        for (int i = 0; i < lengths.length; i++) lengths[i] = in.getInt(28 + 4 * i);
+
+        long expected = align8(HEADER_INTS * 4 + 2L * alphabetLength)
+                + 8L * (lengths[0] + lengths[1] + lengths[2]) + 4L * (lengths[3] + lengths[4]);
+        if (nodes < 1 || labelBits < 1 || labelBits > 16 || in.remaining() != expected
+                || lengths[0] * 64L < 2L * nodes - 1 || lengths[2] * 64L < nodes) {
+            throw new IllegalArgumentException("Corrupt compiled lexicon");
+        }
+        alphabet = new char[alphabetLength];
+        int pos = HEADER_INTS * 4;
+        for (int i = 0; i < alphabetLength; i++, pos += 2) alphabet[i] = in.getChar(pos);
+        pos = (int) align8(pos);
+        louds = slice(in, pos, lengths[0] * 8).asLongBuffer();
+        pos += lengths[0] * 8;
+        labels = slice(in, pos, lengths[1] * 8).asLongBuffer();
+        pos += lengths[1] * 8;
+        terminal = slice(in, pos, lengths[2] * 8).asLongBuffer();
+        pos += lengths[2] * 8;
+        zerosBefore = slice(in, pos, lengths[3] * 4).asIntBuffer();
+        pos += lengths[3] * 4;
+        selectBlock = slice(in, pos, lengths[4] * 4).asIntBuffer();
+    }
+
+    private static ByteBuffer slice(ByteBuffer in, int from, int length) {
+        ByteBuffer b = in.duplicate();
+        b.position(from).limit(from + length);
+        return b.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long align8(long n) {
+        return (n + 7) & ~7L;
+    }
+
+    // --------------------------
+    //      OFF-HEAP STORAGE
+    // --------------------------
+
+    /**
+     * Builds a trie whose arrays live in direct (off-heap) memory.
+     *
+     * @param lexicon Words, in any order
+     */
+    public static LoudsTrie offHeap(Collection<String> lexicon) {
+        LoudsTrie heap = new LoudsTrie(lexicon);
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.imageSize());
+        heap.writeImage(direct);
+        direct.flip();
+        return new LoudsTrie(direct);
+    }
+
+    /**
+     * Opens a compiled trie file by mapping it read-only; nothing is copied onto the heap.
+     *
+     * @param file File written by writeTo()
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid compiled trie
+     */
+    public static LoudsTrie map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is too large");
+            // The mapping stays valid after the channel is closed
+            return new LoudsTrie(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the compiled form, which map() can open directly.
+     */
+    public void writeTo(File file) throws IOException {
+        ByteBuffer image = ByteBuffer.allocate(imageSize());
+        writeImage(image);
+        image.flip();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (image.hasRemaining()) channel.write(image);
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) throw new IOException("Cannot write " + file);
+        }
+    }
+
+    /**
+     * Returns whether the arrays are held outside the Java heap.
+     */
+    public boolean isOffHeap() {
+        return louds.isDirect();
+    }
+
+    private int imageSize() {
+        return (int) (align8(HEADER_INTS * 4 + 2L * alphabet.length)
+                + 8L * (louds.capacity() + labels.capacity() + terminal.capacity())
+                + 4L * (zerosBefore.capacity() + selectBlock.capacity()));
+    }
+
+    private void writeImage(ByteBuffer out) {
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        int[] header = {MAGIC, FORMAT_VERSION, nodes, words, maxLength, labelBits, alphabet.length,
+                louds.capacity(), labels.capacity(), terminal.capacity(), zerosBefore.capacity(), selectBlock.capacity()};
+        for (int h : header) out.putInt(h);
+        for (char c : alphabet) out.putChar(c);
+        while (out.position() % 8 != 0) out.put((byte) 0);
+        for (LongBuffer b : new LongBuffer[]{louds, labels, terminal}) {
+            for (int i = 0; i < b.capacity(); i++) out.putLong(b.get(i));
+        }
+        for (IntBuffer b : new IntBuffer[]{zerosBefore, selectBlock}) {
+            for (int i = 0; i < b.capacity(); i++) out.putInt(b.get(i));
+        }
+    }
+
+    /**
+     * Serialized as its compiled image; it is read back onto the heap.
+     */
+    private Object writeReplace() {
+        ByteBuffer image = ByteBuffer.allocate(imageSize());
+        writeImage(image);
+        return new Image(image.array());
+    }
+
+    private static final class Image implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final byte[] bytes;
+
+        Image(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private Object readResolve() {
+            return new LoudsTrie(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    // --------------------------
+    //      NAVIGATION
+    // --------------------------
+
+    /**
+     * Returns the child of a node reached by the given character, or -1.
+     */
+    public int child(int node, char letter) {
+        int code = Arrays.binarySearch(alphabet, letter);
+        if (code < 0) return -1;
+        int start = node == 0 ? 0 : select0(node - 1) + 1;
+        int degree = nextZero(start) - start;
+        int edge = start - node;    // rank1(start): every earlier node contributed one zero
+        for (int i = 0; i < degree; i++) {
+            int l = label(edge + i);
+            if (l == code) return edge + i + 1;
+            if (l > code) break;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of children of a node.
+     */
+    public int childCount(int node) {
+        int start = node == 0 ? 0 : select0(node - 1) + 1;
+        return nextZero(start) - start;
+    }
+
+    /**
+     * Returns the node number of a node's first child; the rest follow consecutively.
+     * Only meaningful when childCount(node) is positive.
+     */
+    public int firstChild(int node) {
+        int start = node == 0 ? 0 : select0(node - 1) + 1;
+        return start - node + 1;
+    }
+
+    /**
+     * Returns the character on the edge leading into a node (not the root).
+     */
+    public char letter(int node) {
+        return alphabet[label(node - 1)];
+    }
+
+    /**
+     * Returns whether a word ends at a node.
+     */
+    public boolean isWord(int node) {
+        return (terminal.get(node >>> 6) & (1L << node)) != 0;
+    }
+
+    /**
+     * Follows a prefix from the root.
+     *
+     * @return The node reached, or -1 if no word starts with the prefix
+     */
+    public int walk(CharSequence prefix) {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length() && node >= 0; i++) node = child(node, prefix.charAt(i));
+        return node;
+    }
+
+    public boolean contains(CharSequence word) {
+        int node = walk(word);
+        return node >= 0 && isWord(node);
+    }
+
+    public boolean hasPrefix(CharSequence prefix) {
+        return walk(prefix) >= 0;
+    }
+
+    // --------------------------
+    //      ENUMERATION
+    // --------------------------
+
+    /**
+     * Returns the words in sorted order, decoded lazily.
+     */
+    public Iterator<String> iterator() {
+        return new Enumerator(ROOT, "");
+    }
+
+    /**
+     * Returns the words starting with a prefix, in sorted order.
+     */
+    public Iterator<String> withPrefix(String prefix) {
+        int node = walk(prefix);
+        return node < 0 ? Collections.emptyIterator() : new Enumerator(node, prefix);
+    }
+
+    public void forEach(Consumer<String> action) {
+        for (Iterator<String> it = iterator(); it.hasNext(); ) action.accept(it.next());
+    }
+
+    /**
+     * Returns a read-only Set view of the words. Membership is answered by the
+     * trie and iteration decodes words on the fly, so the view costs nothing extra.
+     */
+    public Set<String> asSet() {
+        return new WordSet(this);
+    }
+
+    private static final class WordSet extends AbstractSet<String> implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final LoudsTrie trie;
+
+        WordSet(LoudsTrie trie) {
+            this.trie = trie;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof CharSequence && trie.contains((CharSequence) o);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return trie.iterator();
+        }
+
+        @Override
+        public int size() {
+            return trie.words;
+        }
+    }
+
+    /**
+     * Depth-first walk over consecutive child runs kept on explicit stacks.
+     */
+    private class Enumerator implements Iterator<String> {
+        private final int[] nextChild;
+        private final int[] endChild;
+        private final StringBuilder path;
+        private final int baseLength;
+        private int depth;
+        private String next;
+
+        Enumerator(int start, String prefix) {
+            nextChild = new int[maxLength + 2];
+            endChild = new int[maxLength + 2];
+            path = new StringBuilder(prefix);
+            baseLength = prefix.length();
+            if (isWord(start)) next = prefix;
+            enter(start);
+            if (next == null) next = advance();
+        }
+
+        private void enter(int node) {
+            int count = childCount(node);
+            nextChild[depth] = count == 0 ? 0 : firstChild(node);
+            endChild[depth] = nextChild[depth] + count;
+        }
+
+        private String advance() {
+            while (depth >= 0) {
+                if (nextChild[depth] == endChild[depth]) {
+                    depth--;
+                    if (path.length() > baseLength) path.setLength(path.length() - 1);
+                    continue;
+                }
+                int node = nextChild[depth]++;
+                path.append(letter(node));
+                depth++;
+                enter(node);
+                if (isWord(node)) return path.toString();
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) throw new NoSuchElementException();
+            String result = next;
+            next = advance();
+            return result;
+        }
+    }
+
+    // --------------------------
+    //      SIZE
+    // --------------------------
+
+    public int size() {
+        return words;
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Returns the bytes held by the trie's arrays.
+     */
+    public long sizeInBytes() {
+        return 8L * (louds.capacity() + labels.capacity() + terminal.capacity())
+                + 4L * (zerosBefore.capacity() + selectBlock.capacity()) + 2L * alphabet.length;
+    }
+
+    public double bitsPerNode() {
+        return sizeInBytes() * 8.0 / nodes;
+    }
+
+    // --------------------------
+    //      BIT OPERATIONS
+    // --------------------------
+
+    private int label(int index) {
+        long bit = (long) index * labelBits;
+        int w = (int) (bit >>> 6), off = (int) (bit & 63);
+        long value = labels.get(w) >>> off;
+        if (off + labelBits > 64) value |= labels.get(w + 1) << (64 - off);
+        return (int) (value & ((1L << labelBits) - 1));
+    }
+
+    /**
+     * Returns the position of the zero with the given rank (0-based).
+     */
+    private int select0(int rank) {
+        int b = selectBlock.get(rank / SELECT_SAMPLE);
+        while (zerosBefore.get(b + 1) <= rank) b++;
+        int remaining = rank - zerosBefore.get(b);
+        for (int w = b * BLOCK_WORDS; ; w++) {
+            long z = ~louds.get(w);
+            int c = Long.bitCount(z);
+            if (remaining < c) {
+                for (int i = 0; i < remaining; i++) z &= z - 1;
+                return w * 64 + Long.numberOfTrailingZeros(z);
+            }
+            remaining -= c;
+        }
+    }
+
+    /**
+     * Returns the position of the first zero at or after pos.
+     */
+    private int nextZero(int pos) {
+        int w = pos >>> 6;
+        long z = ~louds.get(w) & (-1L << pos);
+        while (z == 0) z = ~louds.get(++w);
+        return w * 64 + Long.numberOfTrailingZeros(z);
+    }
+
+    /**
+     * Append-only bit string packed into longs.
+     */
+    private static final class BitWriter {
+        private long[] bits = new long[64];
+        private int length;
+
+        void append(long value, int width) {
+            if (length + width > (long) bits.length * 64) bits = Arrays.copyOf(bits, bits.length * 2);
+            for (int i = 0; i < width; i++, length++) {
+                if (((value >>> i) & 1) != 0) bits[length >>> 6] |= 1L << length;
+            }
+        }
+
+        int length() {
+            return length;
+        }
+
+        long[] toArray() {
+            // One spare word so reads may look one word past the last bit
+            return Arrays.copyOf(bits, (length + 63) / 64 + 1);
+        }
+    }
+
+    // --------------------------
+    //      BENCHMARK
+    // --------------------------
+
+    /**
+     * Compares memory and lookup speed of a HashSet, the pointer-array WordTrie
+     * and this trie for each word list given. Heap figures are measured around a
+     * full GC, so treat them as estimates.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java LoudsTrie wordlist.txt [more word lists...]");
+            return;
+        }
+        for (String file : args) {
+            List<String> list = new ArrayList<>();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty()) list.add(line.toUpperCase());
+                }
+            }
+            String[] probes = new String[list.size() * 2];
+            Random random = new Random(1);
+            for (int i = 0; i < list.size(); i++) {
+                String w = list.get(i);
+                probes[2 * i] = w;
+                char[] miss = w.toCharArray();
+                miss[random.nextInt(miss.length)] = (char) ('A' + random.nextInt(26));
+                probes[2 * i + 1] = new String(miss);
+            }
+
+            System.out.println(file + ": " + list.size() + " words");
+            long before = usedHeap();
+            Set<String> hash = new HashSet<>(list);
+            report("HashSet", usedHeap() - before, time(probes, hash::contains));
+            hash = null;
+
+            before = usedHeap();
+            WordTrie pointer = new WordTrie(list);
+            long pointerHeap = usedHeap() - before;
+            WordTrie t = pointer;
+            report("WordTrie", pointerHeap, time(probes, p -> t.match(p, p.length(), null).hasNext()));
+            pointer = null;
+
+            before = usedHeap();
+            LoudsTrie louds = new LoudsTrie(list);
+            report("LoudsTrie", usedHeap() - before, time(probes, louds::contains));
+            System.out.printf("  LoudsTrie: %d nodes, %d bytes, %.1f bits/node%n",
+                    louds.nodeCount(), louds.sizeInBytes(), louds.bitsPerNode());
+            louds = null;
+
+            before = usedHeap();
+            LoudsTrie direct = LoudsTrie.offHeap(list);
+            report("off-heap", usedHeap() - before, time(probes, direct::contains));
+        }
+    }
+
+    private static long time(String[] probes, java.util.function.Predicate<String> lookup) {
+        int found = 0;
+        for (int round = 0; round < 3; round++) {   // warm up
+            for (String p : probes) if (lookup.test(p)) found++;
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < 5; round++) {
+            for (String p : probes) if (lookup.test(p)) found++;
+        }
+        long ns = (System.nanoTime() - start) / (5L * probes.length);
+        if (found < 0) System.out.println(found);  // keep the loop alive
+        return ns;
+    }
+
+    private static void report(String name, long bytes, long nsPerLookup) {
+        System.out.printf("  %-10s %8d KB  %4d ns/lookup%n", name, bytes / 1024, nsPerLookup);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -31,7 +31,12 @@ public class Main {
 
 
             if (aiChoice.equalsIgnoreCase("Y")) {
-                players.add(new AIPlayer(name));
+                String simChoice = "";
+                while (!simChoice.equalsIgnoreCase("Y") && !simChoice.equalsIgnoreCase("N")) {
+                    System.out.print("Use the simulating AI (stronger, slower)? (Y/N): ");
+                    simChoice = scanner.nextLine().trim();
+                }
+                players.add(simChoice.equalsIgnoreCase("Y") ? new SimulatingAIPlayer(name) : new AIPlayer(name));
             } else {
                 players.add(new Player(name));
             }
@@ -41,9 +46,10 @@ public class Main {
         System.out.println("1) Standard");
         System.out.println("2) Diagonal");
         System.out.println("3) Corner Star");
+        System.out.println("4) Super (21x21)");
         int choice = 0;
-        while (choice < 1 || choice > 3) {
-            System.out.print("Enter board choice (1-3): ");
+        while (choice < 1 || choice > 4) {
+            System.out.print("Enter board choice (1-4): ");
             try {
                 choice = Integer.parseInt(scanner.nextLine().trim());
             } catch (NumberFormatException e) {
@@ -78,6 +84,7 @@ public class Main {
             case 1 -> boardFile = "StandardBoard.xml";
             case 2 -> boardFile = "DiagonalBoard.xml";
             case 3 -> boardFile = "CornerStarBoard.xml";
+            case 4 -> boardFile = "SuperBoard.xml";
             default -> {
                 System.out.println("Invalid choice, loading Standard board by default.");
                 boardFile = "StandardBoard.xml";
@@ -0,0 +1,52 @@
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A candidate placement: a word, its starting square, orientation and score.
+ * Coordinates are 0-based, like GameModel.placeWord.
+ */
+public class Move implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String word;
+    private final int row;
+    private final int col;
+    private final boolean horizontal;
+    private final int score;
+
+    public Move(String word, int row, int col, boolean horizontal, int score) {
+        this.word = word;
+        this.row = row;
+        this.col = col;
+        this.horizontal = horizontal;
+        this.score = score;
+    }
+
+    public String getWord() { return word; }
+    public int getRow() { return row; }
+    public int getCol() { return col; }
+    public boolean isHorizontal() { return horizontal; }
+    public int getScore() { return score; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Move)) return false;
+        Move m = (Move) o;
+        return row == m.row && col == m.col && horizontal == m.horizontal
+                && score == m.score && word.equals(m.word);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(word, row, col, horizontal, score);
+    }
+
+    /**
+     * Returns the move in command notation, e.g. "CAT 8 H H (10)".
+     */
+    @Override
+    public String toString() {
+        return word + " " + (row + 1) + " " + (char) ('A' + col) + " " + (horizontal ? "H" : "V") + " (" + score + ")";
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One ranked entry of a move analysis: a legal move together with the words it
+ * forms, the tiles it leaves on the rack and its equity (score plus the value
+ * of that leave). Returned by GameModel.analyzeMoves for hints and coaching.
+ */
+public class MoveAnalysis implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Move move;
+    private final List<String> wordsFormed;
+    private final String leave;
+    private final double leaveValue;
+
+    public MoveAnalysis(Move move, List<String> wordsFormed, String leave, double leaveValue) {
+        this.move = move;
+        this.wordsFormed = Collections.unmodifiableList(wordsFormed);
+        this.leave = leave;
+        this.leaveValue = leaveValue;
+    }
+
+    public Move getMove() { return move; }
+    public String getWord() { return move.getWord(); }
+    public int getRow() { return move.getRow(); }
+    public int getCol() { return move.getCol(); }
+    public boolean isHorizontal() { return move.isHorizontal(); }
+    public int getScore() { return move.getScore(); }
+
+    /** Every word the move creates or extends, main word first. */
+    public List<String> getWordsFormed() { return wordsFormed; }
+
+    /** Tiles left on the rack after the move, sorted, with '*' for blanks. */
+    public String getLeave() { return leave; }
+
+    /** Value of the leave in points (0 when the bag is empty). */
+    public double getLeaveValue() { return leaveValue; }
+
+    /** Score plus leave value; moves are ranked by this. */
+    public double getEquity() { return move.getScore() + leaveValue; }
+
+    @Override
+    public String toString() {
+        return move + " words=" + wordsFormed + " leave=" + (leave.isEmpty() ? "-" : leave)
+                + String.format(" equity=%.1f", getEquity());
+    }
+}
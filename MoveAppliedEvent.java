@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted by GameModel for every placement attempt.
+ * The event duration covers validation, scoring and tile placement.
+ */
+@Name("scrabble.MoveApplied")
+@Label("Move Applied")
+@Category({"Scrabble", "Engine"})
+@Description("A word placement handled by GameModel.placeWord or placeWordWithBlanks")
+public class MoveAppliedEvent extends Event {
+
+    @Label("Player")
+    String player;
+
+    @Label("Word")
+    String word;
+
+    @Label("Score")
+    int score;
+
+    @Label("Tiles Placed")
+    int tilesPlaced;
+
+    @Label("Blanks Used")
+    int blanksUsed;
+
+    @Label("Accepted")
+    boolean accepted;
+}
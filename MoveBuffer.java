@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+/**
+ * MoveBuffer is a reusable, growable list of packed moves (see PackedMove) with
+ * an integer ranking key per move, held in parallel primitive arrays. Sorting
+ * and top-k selection work in place on those arrays, so once the buffer has
+ * grown to a turn's size, filling and ranking it again allocates nothing.
+ *
+ * Moves with equal keys keep the order they were added in, so "first found
+ * wins" tie-breaking survives sorting.
+ */
+public class MoveBuffer {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private long[] metas;
+    private long[] tiles;
+    private long[] ranks;   // key in the high half, inverted insertion index in the low half
+    private int size;
+
+    /**
+     * @param capacity Initial capacity; the buffer grows as needed
+     */
+    public MoveBuffer(int capacity) {
+        capacity = Math.max(capacity, 16);
+        metas = new long[capacity];
+        tiles = new long[capacity];
+        ranks = new long[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a move.
+     *
+     * @param key Ranking key, higher is better (e.g. equity in hundredths of a point)
+     */
+    public void add(long meta, long tileWord, int key) {
+        if (size == metas.length) {
+            int capacity = metas.length * 2;
+            metas = Arrays.copyOf(metas, capacity);
+            tiles = Arrays.copyOf(tiles, capacity);
+            ranks = Arrays.copyOf(ranks, capacity);
+        }
+        metas[size] = meta;
+        tiles[size] = tileWord;
+        ranks[size] = (long) key << 32 | (0xFFFFFFFFL - size);
+        size++;
+    }
+
+    public long meta(int i) { return metas[i]; }
+    public long tiles(int i) { return tiles[i]; }
+    public int key(int i) { return (int) (ranks[i] >> 32); }
+
+    /**
+     * Returns the index of the highest key, the earliest added on ties, or -1 if empty.
+     */
+    public int best() {
+        int best = -1;
+        long bestRank = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            if (ranks[i] > bestRank) {
+                bestRank = ranks[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Sorts all moves by key, highest first.
+     */
+    public void sort() {
+        sort(0, size - 1);
+    }
+
+    /**
+     * Moves the k highest keys to the front, in order, leaving the rest unordered.
+     *
+     * @return Number of moves now at the front: min(k, size)
+     */
+    public int selectTop(int k) {
+        k = Math.min(k, size);
+        if (k <= 0) return 0;
+        int lo = 0, hi = size - 1;
+        while (lo < hi) {
+            if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+                sort(lo, hi);   // the k-th key is somewhere in this short run
+                break;
+            }
+            int p = partition(lo, hi);
+            if (p == k - 1) break;
+            if (p < k - 1) lo = p + 1;
+            else hi = p - 1;
+        }
+        sort(0, k - 1);
+        return k;
+    }
+
+    // --------------------------
+    //      PRIMITIVE SORTING
+    // --------------------------
+
+    private void sort(int lo, int hi) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            int p = partition(lo, hi);
+            // Recurse into the smaller side so the stack stays logarithmic
+            if (p - lo < hi - p) {
+                sort(lo, p - 1);
+                lo = p + 1;
+            } else {
+                sort(p + 1, hi);
+                hi = p - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && ranks[j] > ranks[j - 1]; j--) swap(j, j - 1);
+        }
+    }
+
+    /**
+     * Partitions [lo, hi] around a median-of-three pivot, higher ranks first.
+     * Ranks are unique, so the pivot's final position is exact.
+     *
+     * @return Final index of the pivot
+     */
+    private int partition(int lo, int hi) {
+        int mid = (lo + hi) >>> 1;
+        if (ranks[mid] > ranks[lo]) swap(mid, lo);
+        if (ranks[hi] > ranks[lo]) swap(hi, lo);
+        if (ranks[hi] > ranks[mid]) swap(hi, mid);
+        swap(mid, hi);              // median now at hi
+        long pivot = ranks[hi];
+        int store = lo;
+        for (int i = lo; i < hi; i++) {
+            if (ranks[i] > pivot) swap(i, store++);
+        }
+        swap(store, hi);
+        return store;
+    }
+
+    private void swap(int a, int b) {
+        long t = metas[a]; metas[a] = metas[b]; metas[b] = t;
+        t = tiles[a]; tiles[a] = tiles[b]; tiles[b] = t;
+        t = ranks[a]; ranks[a] = ranks[b]; ranks[b] = t;
+    }
+}
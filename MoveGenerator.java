@@ -0,0 +1,414 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * MoveGenerator enumerates the placements available to a rack on a board.
+ * It works on any Board and rack, not just the live game, so search code can
+ * run it on copies. Counters for the last call are kept for instrumentation.
+ *
+ * Ranking (findBest, topMoves) packs candidates into a reusable MoveBuffer
+ * instead of creating a Move for each, so only the moves returned are
+ * allocated. A generator is not thread-safe; use one per thread.
+ *
+ * Ranked candidates are also cached per board line, shared by all generators.
+ * A line's candidates depend only on its own tiles, the tiles of the band of
+ * occupied lines on either side of it (cross-words run through them), the
+ * layout, the rack and the leave table, so that is the cache key. A placeWord
+ * changes the keys of the lines it touches and of lines whose band it joins;
+ * every other line is served from the cache when the same rack is searched
+ * again, as in simulation rollouts and repeated searches of a position.
+ */
+public class MoveGenerator {
+
+    /** Ranked candidates of one line, shared by all generators. */
+    private static final TranspositionCache<LineMoves> LINE_MOVES = new TranspositionCache<>(1 << 14, 16);
+
+    private final Dictionary dictionary;
+    private final AnagramIndex lexicon;   // words to try, or null for the dictionary's own index
+    private final MoveValidator validator;
+    private long candidates;
+    private long pruned;
+
+    // Reused by every call
+    private final List<String> words = new ArrayList<>();
+    private final int[] rackLetters = new int[26];
+    private final int[] lineLetters = new int[26];
+    private int rackBlanks;
+    private final MoveBuffer buffer = new MoveBuffer(1024);
+    private final int[] rackCounts = new int[LeaveTable.SYMBOLS];
+    private final int[] scratch = new int[LeaveTable.SYMBOLS];
+    private byte[] leave = new byte[MoveStack.MAX_TILES];
+    private long packedMeta;
+    private long packedTiles;
+    private int packedWordBlanks;   // bit i set when letter i of the word is a blank
+    private long lineHits;
+
+    /** Receives placements that fit the board and rack. */
+    private interface PlacementSink {
+        void accept(String word, int row, int col, boolean horizontal);
+    }
+
+    public MoveGenerator(Dictionary dictionary) {
+        this(dictionary, null);
+    }
+
+    /**
+     * Creates a generator that only tries the words of the given index, which
+     * must hold every dictionary word the searches could place (cross-words are
+     * still checked against the whole dictionary).
+     *
+     * @param lexicon Subset of the dictionary's words, or null for all of them
+     */
+    public MoveGenerator(Dictionary dictionary, AnagramIndex lexicon) {
+        this.dictionary = dictionary;
+        this.lexicon = lexicon;
+        this.validator = new MoveValidator(dictionary);
+    }
+
+    /**
+     * Generates every placement of a dictionary word that the rack can make.
+     *
+     * @param board Board to play on
+     * @param rack Tiles available to the player
+     * @param firstMove Whether this is the opening move (forced through the centre)
+     * @return All legal moves found, with their scores
+     */
+    public List<Move> generate(Board board, List<Tile> rack, boolean firstMove) {
+        List<Move> moves = new ArrayList<>();
+        forEachMove(board, rack, firstMove, moves::add);
+        return moves;
+    }
+
+    /**
+     * Streams every legal placement to the consumer as soon as it is scored,
+     * in the same order generate would list them.
+     *
+     * @param board Board to play on
+     * @param rack Tiles available to the player
+     * @param firstMove Whether this is the opening move (forced through the centre)
+     * @param sink Receives each move
+     */
+    public void forEachMove(Board board, List<Tile> rack, boolean firstMove, Consumer<Move> sink) {
+        countRack(rack);
+        placements(board, rack, firstMove, (word, r, c, horizontal) -> {
+            // Must be placeable using rack, exact letters before blanks
+            if (!pack(board, word, r, c, horizontal)) { pruned++; return; }
+
+            // Same rules as a human move: connection, extended main word, cross-words
+            if (!validator.check(board, word, r, c, horizontal).isLegal()) { pruned++; return; }
+
+            candidates++;
+            sink.accept(new Move(word, r, c, horizontal, score(board, word, r, c, horizontal)));
+        });
+    }
+
+    /**
+     * Fills the buffer with every legal placement, packed, ranked by equity
+     * (score plus leave value) in hundredths of a point. Apart from growing the
+     * buffer the first time, nothing is allocated per candidate.
+     *
+     * @param leaves Leave values to add, or null to rank by score alone
+     * @param out Buffer to fill; cleared first
+     */
+    public void generateInto(Board board, List<Tile> rack, boolean firstMove, LeaveTable leaves, MoveBuffer out) {
+        out.clear();
+        countRack(rack);
+        PlacementSink packer = (word, r, c, horizontal) -> {
+            if (!pack(board, word, r, c, horizontal)) { pruned++; return; }
+            if (!validator.check(board, word, r, c, horizontal).isLegal()) { pruned++; return; }
+
+            candidates++;
+            int score = score(board, word, r, c, horizontal);
+            long meta = PackedMove.withScore(packedMeta, score);
+            int key = score * 100;
+            if (leaves != null) {
+                key += leaves.centipoints(leave, PackedMove.leave(meta, packedTiles, rackCounts, scratch, leave));
+            }
+            out.add(meta, packedTiles, key);
+        };
+        readRack(rack);
+        if (firstMove) {
+            firstMovePlacements(board, packer);
+            return;
+        }
+
+        long searchKey = Zobrist.rack(rack) ^ Zobrist.mix(System.identityHashCode(dictionary))
+                ^ Zobrist.mix(System.identityHashCode(lexicon) + 3L)
+                ^ Zobrist.mix(System.identityHashCode(leaves) + 1L) ^ Zobrist.mix(board.getLayoutHash() + 2L);
+        for (int pass = 0; pass < 2; pass++) {
+            boolean horizontal = pass == 0;
+            for (int line : candidateLines(board, horizontal)) {
+                long key = lineKey(board, line, horizontal) ^ searchKey;
+                LineMoves cached = LINE_MOVES.get(key);
+                if (cached != null) {
+                    cached.addTo(out);
+                    lineHits++;
+                    continue;
+                }
+                int from = out.size();
+                linePlacements(board, line, horizontal, packer);
+                LINE_MOVES.put(key, new LineMoves(out, from));
+            }
+        }
+    }
+
+    /**
+     * Hash of what a line's candidates depend on besides the search inputs: its
+     * tiles, the tiles of the occupied lines next to it up to the first empty
+     * line on each side (any cross-word lies within them), and where it is.
+     */
+    private static long lineKey(Board board, int line, boolean horizontal) {
+        long key = Zobrist.mix(((long) board.getSize() << 32) | (line << 1) | (horizontal ? 1 : 0));
+        key ^= Zobrist.mix(board.lineHash(line, horizontal));
+        for (int d = 1; ; d++) {
+            long h = board.lineHash(line - d, horizontal);
+            if (h == 0) break;
+            key ^= Zobrist.mix(h - d);
+        }
+        for (int d = 1; ; d++) {
+            long h = board.lineHash(line + d, horizontal);
+            if (h == 0) break;
+            key ^= Zobrist.mix(h + d);
+        }
+        return key;
+    }
+
+    /**
+     * Enumerates the placements worth checking: dictionary words the rack can
+     * spell with the help of the tiles already on a line, at squares where they
+     * would cover or sit alongside an existing tile. Lines are visited in order
+     * (rows, then columns), words in index order within a line.
+     */
+    private void placements(Board board, List<Tile> rack, boolean firstMove, PlacementSink sink) {
+        readRack(rack);
+        if (firstMove) {
+            firstMovePlacements(board, sink);
+            return;
+        }
+        // A placement must cover or touch a tile, so only lines holding one or next to one are searched
+        for (int row : candidateLines(board, true)) linePlacements(board, row, true, sink);
+        for (int col : candidateLines(board, false)) linePlacements(board, col, false, sink);
+    }
+
+    /**
+     * Resets the counters and reads the rack's letters and blanks.
+     */
+    private void readRack(List<Tile> rack) {
+        candidates = 0;
+        pruned = 0;
+        lineHits = 0;
+        Arrays.fill(rackLetters, 0);
+        rackBlanks = 0;
+        for (Tile t : rack) {
+            if (t.isBlank()) rackBlanks++;
+            else if (t.getLetter() >= 'A' && t.getLetter() <= 'Z') rackLetters[t.getLetter() - 'A']++;
+        }
+    }
+
+    /**
+     * Collects the words the rack can spell (blanks standing in for any letter),
+     * using up to boardCount of the letters in boardLetters, or none if null.
+     */
+    private void collectWords(int[] boardLetters, int boardCount) {
+        words.clear();
+        AnagramIndex index = lexicon != null ? lexicon : dictionary.getAnagramIndex();
+        index.forEachFormable(rackLetters, rackBlanks, boardLetters, boardCount, words::add);
+        pruned += index.wordCount() - words.size();
+    }
+
+    private void firstMovePlacements(Board board, PlacementSink sink) {
+        // First move forced through the centre
+        collectWords(null, 0);
+        int center = board.getSize() / 2;
+        for (String word : words) {
+            sink.accept(word, center, center, true);
+            sink.accept(word, center, center, false);
+        }
+    }
+
+    /**
+     * Tries each word the rack can spell through the line's tiles, only at
+     * offsets where the occupancy masks show a tile under the word or beside it
+     * on a neighbouring line, and none directly before or after it (that would
+     * make a longer word, which is tried in its own right).
+     */
+    private void linePlacements(Board board, int line, boolean horizontal, PlacementSink sink) {
+        int size = board.getSize();
+        Arrays.fill(lineLetters, 0);
+        int tiles = 0;
+        for (int i = 0; i < size; i++) {
+            int r = horizontal ? line : i, c = horizontal ? i : line;
+            if (!board.isOccupied(r, c)) continue;
+            char letter = board.getSquare(r, c).getLetter();
+            if (letter >= 'A' && letter <= 'Z') lineLetters[letter - 'A']++;
+            tiles++;
+        }
+        collectWords(lineLetters, tiles);
+
+        for (String word : words) {
+            int len = word.length();
+            for (int start = 0; start + len <= size; start++) {
+                if (!(board.lineHasTile(line, horizontal, start, start + len)
+                        || neighbourHasTile(board, line, horizontal, start, start + len))
+                        || board.lineHasTile(line, horizontal, start - 1, start)
+                        || board.lineHasTile(line, horizontal, start + len, start + len + 1)) { pruned++; continue; }
+                if (horizontal) sink.accept(word, line, start, true);
+                else sink.accept(word, start, line, false);
+            }
+        }
+    }
+
+    /**
+     * Packed candidates of one line, copied out of a MoveBuffer.
+     */
+    private static final class LineMoves {
+        private final long[] metas;
+        private final long[] tiles;
+        private final int[] keys;
+
+        LineMoves(MoveBuffer buffer, int from) {
+            int n = buffer.size() - from;
+            metas = new long[n];
+            tiles = new long[n];
+            keys = new int[n];
+            for (int i = 0; i < n; i++) {
+                metas[i] = buffer.meta(from + i);
+                tiles[i] = buffer.tiles(from + i);
+                keys[i] = buffer.key(from + i);
+            }
+        }
+
+        void addTo(MoveBuffer buffer) {
+            for (int i = 0; i < metas.length; i++) buffer.add(metas[i], tiles[i], keys[i]);
+        }
+    }
+
+    private void countRack(List<Tile> rack) {
+        Arrays.fill(rackCounts, 0);
+        for (Tile t : rack) rackCounts[LeaveTable.symbolOf(t)]++;
+        if (leave.length < rack.size()) leave = new byte[rack.size()];
+    }
+
+    /**
+     * Points for the placement just packed: every word it forms (Board.scoreMove)
+     * with its blanks, plus the bingo bonus.
+     */
+    private int score(Board board, String word, int row, int col, boolean horizontal) {
+        int score = board.scoreMove(word, row, col, horizontal, packedWordBlanks);
+        if (PackedMove.tileCount(packedMeta) == MoveStack.MAX_TILES) score += 50; // bingo
+        return score;
+    }
+
+    /**
+     * Checks that the word fits the board and the rack (rackCounts), like
+     * Board.canPlaceWordWithRack, and packs it into packedMeta (without the
+     * score) and packedTiles. Exact letters are used before blanks.
+     */
+    private boolean pack(Board board, String word, int row, int col, boolean horizontal) {
+        System.arraycopy(rackCounts, 0, scratch, 0, LeaveTable.SYMBOLS);
+        long tileWord = 0;
+        int count = 0, blankMask = 0, wordBlanks = 0;
+        for (int i = 0; i < word.length(); i++) {
+            int r = row + (horizontal ? 0 : i);
+            int c = col + (horizontal ? i : 0);
+            if (!board.inBounds(r, c)) return false;
+            char letter = word.charAt(i);
+            if (board.squareHasTile(r, c)) {
+                if (board.getSquare(r, c).getLetter() != letter) return false;
+                continue;
+            }
+            if (count == PackedMove.MAX_TILES) return false;
+            if (scratch[letter - 'A'] > 0) scratch[letter - 'A']--;
+            else if (scratch[LeaveTable.BLANK] > 0) {
+                scratch[LeaveTable.BLANK]--;
+                blankMask |= 1 << count;
+                wordBlanks |= 1 << i;
+            }
+            else return false;
+            tileWord = PackedMove.withTile(tileWord, count++, letter);
+        }
+        packedMeta = PackedMove.meta(row, col, horizontal, word.length(), count, blankMask, 0);
+        packedTiles = tileWord;
+        packedWordBlanks = wordBlanks;
+        return true;
+    }
+
+    private static boolean neighbourHasTile(Board board, int line, boolean horizontal, int from, int to) {
+        return (line > 0 && board.lineHasTile(line - 1, horizontal, from, to))
+                || (line + 1 < board.getSize() && board.lineHasTile(line + 1, horizontal, from, to));
+    }
+
+    /**
+     * Lines holding a tile or next to one: the only lines a placement can use.
+     */
+    private static int[] candidateLines(Board board, boolean horizontal) {
+        int size = board.getSize();
+        int[] lines = new int[size];
+        int n = 0;
+        for (int line = 0; line < size; line++) {
+            if (!board.isLineEmpty(line, horizontal)
+                    || (line > 0 && !board.isLineEmpty(line - 1, horizontal))
+                    || (line + 1 < size && !board.isLineEmpty(line + 1, horizontal))) lines[n++] = line;
+        }
+        return Arrays.copyOf(lines, n);
+    }
+
+    /**
+     * Returns the highest scoring move, keeping the first one found on ties.
+     *
+     * @return Best move, or null if the rack cannot play
+     */
+    public Move findBest(Board board, List<Tile> rack, boolean firstMove) {
+        return findBest(board, rack, firstMove, null);
+    }
+
+    /**
+     * Returns the move with the highest equity: its score plus the value of the
+     * tiles it leaves on the rack. Keeps the first one found on ties.
+     *
+     * @param leaves Leave values to add, or null to rank by score alone
+     * @return Best move, or null if the rack cannot play
+     */
+    public Move findBest(Board board, List<Tile> rack, boolean firstMove, LeaveTable leaves) {
+        generateInto(board, rack, firstMove, leaves, buffer);
+        int best = buffer.best();
+        return best < 0 ? null : PackedMove.toMove(buffer.meta(best), buffer.tiles(best), board);
+    }
+
+    /**
+     * Returns the k moves with the highest equity (score plus leave value), best first.
+     *
+     * @param leaves Leave values to add, or null to rank by score alone
+     * @param k Maximum number of moves returned
+     * @return Up to k moves in decreasing order of equity
+     */
+    public List<Move> topMoves(Board board, List<Tile> rack, boolean firstMove, LeaveTable leaves, int k) {
+        generateInto(board, rack, firstMove, leaves, buffer);
+        int n = buffer.selectTop(k);
+        List<Move> moves = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) moves.add(PackedMove.toMove(buffer.meta(i), buffer.tiles(i), board));
+        return moves;
+    }
+
+    /** Number of placements scored by the last call. */
+    public long getCandidates() {
+        return candidates;
+    }
+
+    /** Number of lines answered from the line cache by the last ranking call. */
+    public long getLineCacheHits() {
+        return lineHits;
+    }
+
+    /**
+     * Returns the line cache shared by all generators, e.g. to inspect hit rates.
+     */
+    public static TranspositionCache<?> getLineCache() {
+        return LINE_MOVES;
+    }
+
+    /** Number of words and placements rejected before scoring by the last call. */
+    public long getPruned() {
+        return pruned;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * MoveStack records what Board.applyMove and Player.applyMove changed so the
+ * matching undoMove calls can restore the exact previous state. All storage is
+ * allocated up front, so applying and undoing moves allocates nothing.
+ */
+public class MoveStack {
+
+    /** Most tiles a single move can place (a full rack). */
+    public static final int MAX_TILES = 7;
+
+    private final int capacity;
+    private final int[] squareRows;
+    private final int[] squareCols;
+    private final Tile[] rackTiles;    // Tile taken from the rack for each placed square
+    private final int[] rackIndices;   // Rack position each tile was taken from
+    private final int[] tileCounts;    // Per frame: number of squares filled
+    private final int[] scores;        // Per frame: points scored
+    private final int[] drawCounts;    // Per frame: tiles drawn from the bag afterwards
+    private int depth;
+
+    /**
+     * @param capacity Maximum number of moves applied at once (search depth)
+     */
+    public MoveStack(int capacity) {
+        this.capacity = capacity;
+        squareRows = new int[capacity * MAX_TILES];
+        squareCols = new int[capacity * MAX_TILES];
+        rackTiles = new Tile[capacity * MAX_TILES];
+        rackIndices = new int[capacity * MAX_TILES];
+        tileCounts = new int[capacity];
+        scores = new int[capacity];
+        drawCounts = new int[capacity];
+    }
+
+    /** Number of moves currently applied. */
+    public int depth() {
+        return depth;
+    }
+
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    // -----------------------
+    // Used by Board and Player
+    // -----------------------
+
+    int push() {
+        if (depth == capacity) throw new IllegalStateException("Move stack is full (" + capacity + " moves)");
+        tileCounts[depth] = 0;
+        scores[depth] = 0;
+        drawCounts[depth] = 0;
+        return depth++;
+    }
+
+    int top() {
+        if (depth == 0) throw new IllegalStateException("No move to undo");
+        return depth - 1;
+    }
+
+    void pop() {
+        depth--;
+        rackTilesClear(depth);
+    }
+
+    void addTile(int frame, int row, int col, Tile tile, int rackIndex) {
+        int slot = frame * MAX_TILES + tileCounts[frame]++;
+        squareRows[slot] = row;
+        squareCols[slot] = col;
+        rackTiles[slot] = tile;
+        rackIndices[slot] = rackIndex;
+    }
+
+    int tileCount(int frame) { return tileCounts[frame]; }
+    int row(int frame, int i) { return squareRows[frame * MAX_TILES + i]; }
+    int col(int frame, int i) { return squareCols[frame * MAX_TILES + i]; }
+    Tile rackTile(int frame, int i) { return rackTiles[frame * MAX_TILES + i]; }
+    int rackIndex(int frame, int i) { return rackIndices[frame * MAX_TILES + i]; }
+
+    void setScore(int frame, int score) { scores[frame] = score; }
+    int score(int frame) { return scores[frame]; }
+
+    void setDrawCount(int frame, int count) { drawCounts[frame] = count; }
+    int drawCount(int frame) { return drawCounts[frame]; }
+
+    /** Drops tile references of a popped frame so they can be collected. */
+    private void rackTilesClear(int frame) {
+        for (int i = 0; i < MAX_TILES; i++) rackTiles[frame * MAX_TILES + i] = null;
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MoveValidator applies the full placement rules to a word put on the board:
+ * it must fit, agree with the tiles it covers, place at least one tile, cover
+ * the centre square on an empty board or otherwise touch an existing tile, and
+ * every word it forms must be in the dictionary - the main word extended
+ * through any tiles at its ends, and each cross-word through a new tile.
+ * Words have at least two letters: a lone tile is checked only through the
+ * words it forms, and the opening move must place two or more tiles.
+ *
+ * The check is a single pass along the word using the board's occupancy masks,
+ * so it costs time proportional to the word and its cross-words. Rack contents
+ * are not checked here. A validator keeps the offending word of its last check,
+ * so use one per thread.
+ *
+ * checkAll runs a batch of candidate moves against one position, sharing
+ * cross-word verdicts between candidates that put the same letter on the same
+ * square and asking the dictionary about each distinct main word once.
+ */
+public class MoveValidator {
+
+    /**
+     * Outcome of a check. Everything but LEGAL names the first rule broken.
+     */
+    public enum Result {
+        LEGAL(null),
+        OUT_OF_BOUNDS("The word does not fit on the board!"),
+        CONFLICT("The word does not match the tiles already on the board!"),
+        NO_NEW_TILES("The word must place at least one new tile!"),
+        MISSES_CENTRE("The first word must cover the centre square!"),
+        NOT_CONNECTED("The word must touch a tile already on the board!"),
+        TOO_SHORT("Words must be at least two letters long!"),
+        INVALID_WORD("Invalid word! Not in dictionary."),
+        INVALID_CROSS_WORD("The move forms a word that is not in the dictionary!");
+
+        private final String message;
+
+        Result(String message) {
+            this.message = message;
+        }
+
+        public boolean isLegal() {
+            return this == LEGAL;
+        }
+
+        /** Player-facing explanation, null when legal. */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private static final int RESULT_BITS = 4;
+    private static final Result[] RESULTS = Result.values();
+
+    private final Dictionary dictionary;
+    private final StringBuilder buffer = new StringBuilder();
+    private String offendingWord;
+    private int tilesPlaced;
+
+    // Batch memos, only set while checkAll runs
+    private byte[] crossVerdicts;               // per square, direction and letter: 0 unknown, 1 valid, 2 invalid
+    private Map<String, Boolean> wordVerdicts;
+
+    public MoveValidator(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Checks a placement against the board rules.
+     *
+     * @param word Upper-case word, letter by letter along the line
+     * @param row Row of the first letter
+     * @param col Column of the first letter
+     * @param horizontal Direction of the word
+     * @return LEGAL, or the first rule the placement breaks
+     */
+    public Result check(Board board, String word, int row, int col, boolean horizontal) {
+        offendingWord = null;
+        tilesPlaced = 0;
+        int len = word.length();
+        int dr = horizontal ? 0 : 1, dc = horizontal ? 1 : 0;
+        if (len == 0) return Result.NO_NEW_TILES;
+        if (!board.inBounds(row, col) || !board.inBounds(row + dr * (len - 1), col + dc * (len - 1))) {
+            return Result.OUT_OF_BOUNDS;
+        }
+
+        int center = board.getSize() / 2;
+        boolean emptyBoard = board.getTileCount() == 0;
+        boolean placed = false, connected = false, coversCentre = false, crossed = false;
+        String badCross = null;
+
+        for (int i = 0; i < len; i++) {
+            int r = row + dr * i, c = col + dc * i;
+            char letter = word.charAt(i);
+            if (board.isOccupied(r, c)) {
+                if (board.getSquare(r, c).getLetter() != letter) return Result.CONFLICT;
+                connected = true;
+                continue;
+            }
+            placed = true;
+            tilesPlaced++;
+            if (r == center && c == center) coversCentre = true;
+            // A cross-word exists where the new tile has a perpendicular neighbour
+            if (board.isOccupied(r - dc, c - dr) || board.isOccupied(r + dc, c + dr)) {
+                connected = crossed = true;
+                if (badCross == null && !isValidCross(board, r, c, letter, !horizontal)) {
+                    badCross = lineThrough(board, r, c, letter, !horizontal);
+                }
+            }
+        }
+        if (!placed) return Result.NO_NEW_TILES;
+
+        // Tiles directly before or after the word extend it
+        int beforeR = row - dr, beforeC = col - dc;
+        int afterR = row + dr * len, afterC = col + dc * len;
+        boolean extended = board.isOccupied(beforeR, beforeC) || board.isOccupied(afterR, afterC);
+        if (emptyBoard && !coversCentre) return Result.MISSES_CENTRE;
+        if (!emptyBoard && !connected && !extended) return Result.NOT_CONNECTED;
+
+        String main = extended ? extendedWord(board, word, row, col, horizontal) : word;
+        if (main.length() < 2) {
+            // A lone tile plays only the word it forms across; an opening needs two letters
+            if (emptyBoard || !crossed) return Result.TOO_SHORT;
+        } else if (!isValidWord(main)) {
+            offendingWord = main;
+            return Result.INVALID_WORD;
+        }
+        if (badCross != null) {
+            offendingWord = badCross;
+            return Result.INVALID_CROSS_WORD;
+        }
+        return Result.LEGAL;
+    }
+
+    /**
+     * Checks and scores a batch of candidate moves against the board as it is,
+     * without changing it. Scores count like placeWord (see Board.scoreMove),
+     * plus the bingo bonus, with no blanks. Move scores are
+     * ignored, and so is whether anyone holds the tiles.
+     *
+     * @param moves Candidate placements; words are upper-cased as needed
+     * @return One packed entry per move, in order; read with resultOf and scoreOf
+     */
+    public int[] checkAll(Board board, List<Move> moves) {
+        int[] out = new int[moves.size()];
+        int size = board.getSize();
+        crossVerdicts = new byte[size * size * 2 * 26];
+        wordVerdicts = new HashMap<>();
+        try {
+            for (int i = 0; i < out.length; i++) {
+                Move m = moves.get(i);
+                String word = m.getWord().toUpperCase();
+                Result result = check(board, word, m.getRow(), m.getCol(), m.isHorizontal());
+                int score = 0;
+                if (result.isLegal()) {
+                    score = board.scoreMove(word, m.getRow(), m.getCol(), m.isHorizontal(), 0);
+                    if (tilesPlaced == MoveStack.MAX_TILES) score += 50; // bingo
+                }
+                out[i] = score << RESULT_BITS | result.ordinal();
+            }
+        } finally {
+            crossVerdicts = null;
+            wordVerdicts = null;
+        }
+        return out;
+    }
+
+    /**
+     * Returns the result held in a checkAll entry.
+     */
+    public static Result resultOf(int entry) {
+        return RESULTS[entry & ((1 << RESULT_BITS) - 1)];
+    }
+
+    /**
+     * Returns the score held in a checkAll entry, 0 for an illegal move.
+     */
+    public static int scoreOf(int entry) {
+        return entry >> RESULT_BITS;
+    }
+
+    /**
+     * Returns the word that broke the dictionary rule in the last check, or null.
+     */
+    public String getOffendingWord() {
+        return offendingWord;
+    }
+
+    /**
+     * Returns a player-facing message for a result of the last check.
+     */
+    public String describe(Result result) {
+        if (result == Result.INVALID_CROSS_WORD && offendingWord != null) {
+            return "The move forms " + offendingWord + ", which is not in the dictionary!";
+        }
+        return result.getMessage();
+    }
+
+    /**
+     * Whether the cross-word made by the letter at (r, c) is a word, remembered
+     * per square, direction and letter during a batch.
+     */
+    private boolean isValidCross(Board board, int r, int c, char letter, boolean horizontal) {
+        if (crossVerdicts == null || letter < 'A' || letter > 'Z') {
+            return dictionary.isValidWord(lineThrough(board, r, c, letter, horizontal));
+        }
+        int slot = ((r * board.getSize() + c) * 2 + (horizontal ? 1 : 0)) * 26 + (letter - 'A');
+        if (crossVerdicts[slot] == 0) {
+            crossVerdicts[slot] = (byte) (dictionary.isValidWord(lineThrough(board, r, c, letter, horizontal)) ? 1 : 2);
+        }
+        return crossVerdicts[slot] == 1;
+    }
+
+    private boolean isValidWord(String word) {
+        if (wordVerdicts == null) return dictionary.isValidWord(word);
+        return wordVerdicts.computeIfAbsent(word, dictionary::isValidWord);
+    }
+
+    /**
+     * The run of tiles through (r, c) along a direction, with the given letter at (r, c).
+     */
+    private String lineThrough(Board board, int r, int c, char letter, boolean horizontal) {
+        int dr = horizontal ? 0 : 1, dc = horizontal ? 1 : 0;
+        int sr = r, sc = c;
+        while (board.isOccupied(sr - dr, sc - dc)) { sr -= dr; sc -= dc; }
+        buffer.setLength(0);
+        for (int cr = sr, cc = sc; (cr == r && cc == c) || board.isOccupied(cr, cc); cr += dr, cc += dc) {
+            buffer.append(cr == r && cc == c ? letter : board.getSquare(cr, cc).getLetter());
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * The main word with the tiles touching either end added on.
+     */
+    private String extendedWord(Board board, String word, int row, int col, boolean horizontal) {
+        int dr = horizontal ? 0 : 1, dc = horizontal ? 1 : 0;
+        int len = word.length();
+        int sr = row, sc = col;
+        while (board.isOccupied(sr - dr, sc - dc)) { sr -= dr; sc -= dc; }
+        buffer.setLength(0);
+        for (int cr = sr, cc = sc; cr != row || cc != col; cr += dr, cc += dc) {
+            buffer.append(board.getSquare(cr, cc).getLetter());
+        }
+        buffer.append(word);
+        for (int cr = row + dr * len, cc = col + dc * len; board.isOccupied(cr, cc); cr += dr, cc += dc) {
+            buffer.append(board.getSquare(cr, cc).getLetter());
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,241 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ObserverDispatcher delivers GameModel state changes to GameObservers.
+ * Every change is published as a new version number; changes published within
+ * the same tick are coalesced and only the latest version is delivered, on a
+ * dedicated dispatch thread so slow observers never delay the mutating thread.
+ *
+ * Because observers run on that thread while the game goes on changing, they
+ * are never handed the live objects. Publishing only bumps the version; the
+ * dispatch thread reads the immutable PersistentGameState of the latest
+ * version and rebuilds a board and players from it for the observers, so the
+ * copying is paid once per delivery, off the mutating thread.
+ * GameStateListeners get the PersistentGameState itself.
+ */
+public class ObserverDispatcher {
+
+    /** Default coalescing window, roughly one frame. */
+    public static final long DEFAULT_TICK_MILLIS = 16;
+
+    private final GameModel model;
+    private final List<GameObserver> observers = new CopyOnWriteArrayList<>();
+    private final List<GameStateListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Object deliveredLock = new Object();
+    private final ThreadPoolExecutor executor;
+    private volatile long delivered;
+    private volatile long tickMillis = DEFAULT_TICK_MILLIS;
+    private volatile boolean synchronous;
+    private volatile Thread dispatchThread;
+
+    /**
+     * Board and players as of one version, for GameObservers.
+     */
+    private static final class Snapshot {
+        final long version;
+        final Board board;
+        final List<Player> players;
+        final Player current;
+
+        Snapshot(long version, Board board, List<Player> players, Player current) {
+            this.version = version;
+            this.board = board;
+            this.players = players;
+            this.current = current;
+        }
+    }
+
+    public ObserverDispatcher(GameModel model) {
+        this.model = model;
+        // Single worker that exits when idle, so finished games do not keep threads alive
+        executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "scrabble-observers");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void addObserver(GameObserver obs) {
+        observers.add(obs);
+    }
+
+    public void removeObserver(GameObserver obs) {
+        observers.remove(obs);
+    }
+
+    public void addListener(GameStateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the coalescing window. Zero dispatches as soon as the worker is free.
+     *
+     * @param tickMillis Window length in milliseconds
+     */
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = Math.max(0, tickMillis);
+    }
+
+    /**
+     * Switches to delivering every change inline on the publishing thread,
+     * the original behaviour, which is convenient for scripted or headless use.
+     *
+     * @param synchronous true to deliver inline
+     */
+    public void setSynchronous(boolean synchronous) {
+        this.synchronous = synchronous;
+    }
+
+    /**
+     * Publishes a new state version. Returns immediately unless in synchronous mode.
+     *
+     * @param version Version number of the change, strictly increasing
+     */
+    public void publish(long version) {
+        published.accumulateAndGet(version, Math::max);
+        if (observers.isEmpty() && listeners.isEmpty()) {
+            markDelivered(version);
+            return;
+        }
+        if (synchronous) {
+            deliver(version);
+            return;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Blocks until every published version has been delivered, or the timeout elapses.
+     *
+     * @param timeoutMillis Maximum time to wait
+     * @return true if all published versions were delivered
+     */
+    public boolean flush(long timeoutMillis) {
+        if (Thread.currentThread() == dispatchThread) return true; // called from an observer
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (deliveredLock) {
+            while (delivered < published.get()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                try {
+                    deliveredLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public long getPublishedVersion() {
+        return published.get();
+    }
+
+    public long getDeliveredVersion() {
+        return delivered;
+    }
+
+    private void drain() {
+        dispatchThread = Thread.currentThread();
+        long tick = tickMillis;
+        if (tick > 0) {
+            try {
+                Thread.sleep(tick); // let further changes in this tick coalesce
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Changes published from here on schedule another drain
+        scheduled.set(false);
+        long version = published.get();
+        if (version > delivered) deliver(version);
+    }
+
+    /**
+     * Rebuilds the board and players of a persistent state on the dispatch
+     * thread. Only the live board's premium squares are read, which never change.
+     *
+     * @return The view, or null if the live board no longer matches the state
+     */
+    private Snapshot view(PersistentGameState state) {
+        Board board = model.getBoard().emptyCopy();
+        int size = state.getBoardSize();
+        if (board.getSize() != size) return null; // board replaced since; its own version follows
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                if (!state.hasTile(r, c)) continue;
+                char letter = state.letterAt(r, c);
+                board.setTileAt(r, c, state.isBlankAt(r, c) ? Tile.placedBlank(letter)
+                        : new Tile(letter, GameModel.LETTER_VALUES.getOrDefault(letter, 0)));
+            }
+        }
+        board.setMoveRecord(state.getMoveCount(), state.getLastPlacedSquares());
+
+        List<Player> players = new ArrayList<>(state.getPlayerCount());
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            Player p = state.isComputer(i) ? new AIPlayer(state.getPlayerName(i)) : new Player(state.getPlayerName(i));
+            p.addScore(state.getScore(i));
+            for (char letter : state.getRack(i).toCharArray()) {
+                p.getRack().add(letter == '?' ? Tile.blankTile()
+                        : new Tile(letter, GameModel.LETTER_VALUES.getOrDefault(letter, 0)));
+            }
+            p.setLastError(state.getLastError(i));
+            players.add(p);
+        }
+        Player current = players.isEmpty() ? null : players.get(state.getCurrentPlayer());
+        return new Snapshot(state.getVersion(), board, players, current);
+    }
+
+    private void deliver(long version) {
+        PersistentGameState snapshot = model.getPersistentState();
+        for (GameStateListener listener : listeners) {
+            try {
+                listener.stateChanged(snapshot);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        if (synchronous) {
+            // Inline delivery runs on the publishing thread and may use the live objects
+            deliverToObservers(new Snapshot(version, model.getBoard(), model.getPlayers(), model.getCurrentPlayer()));
+        } else if (!observers.isEmpty()) {
+            Snapshot view = view(snapshot);
+            if (view != null) deliverToObservers(view);
+        }
+        markDelivered(version);
+    }
+
+    private void deliverToObservers(Snapshot view) {
+        for (GameObserver obs : observers) {
+            try {
+                obs.stateChanged(view.version, view.board, view.players, view.current);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // one failing observer must not starve the others
+            }
+        }
+    }
+
+    private void markDelivered(long version) {
+        synchronized (deliveredLock) {
+            if (version > delivered) delivered = version;
+            deliveredLock.notifyAll();
+        }
+    }
+}
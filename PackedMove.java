@@ -0,0 +1,112 @@
+/**
+ * PackedMove encodes a placement in two longs so search code can hold hundreds
+ * of thousands of candidates in primitive arrays instead of Move objects.
+ *
+ * The meta word holds the square, direction, word length, the number of tiles
+ * placed, which of them are blanks, and the score in the top bits (so comparing
+ * meta words as signed longs orders moves by score). The tiles word holds the
+ * letter index (0-25) of each placed tile, 5 bits each, in board order. Letters
+ * already on the board are not stored: a packed move is read against the board
+ * it was generated on, which is how toMove rebuilds the word.
+ */
+public final class PackedMove {
+
+    /** Most tiles a packed move can place. */
+    public static final int MAX_TILES = MoveStack.MAX_TILES;
+
+    private static final int COL_SHIFT = 8;
+    private static final int HORIZONTAL_BIT = 16;
+    private static final int LENGTH_SHIFT = 17;
+    private static final int COUNT_SHIFT = 25;
+    private static final int BLANK_SHIFT = 29;
+    private static final int SCORE_SHIFT = 40;
+
+    private PackedMove() {
+    }
+
+    /**
+     * Builds the meta word.
+     *
+     * @param row Start row, 0-254
+     * @param col Start column, 0-254
+     * @param length Word length, 1-255
+     * @param tileCount Tiles placed, 0-MAX_TILES
+     * @param blankMask Bit i set when placed tile i is a blank
+     * @param score Points, within +-2^23
+     */
+    public static long meta(int row, int col, boolean horizontal, int length, int tileCount, int blankMask, int score) {
+        return (row & 0xFFL)
+                | (col & 0xFFL) << COL_SHIFT
+                | (horizontal ? 1L : 0L) << HORIZONTAL_BIT
+                | (length & 0xFFL) << LENGTH_SHIFT
+                | (tileCount & 0xFL) << COUNT_SHIFT
+                | (blankMask & 0x7FL) << BLANK_SHIFT
+                | (long) score << SCORE_SHIFT;
+    }
+
+    /**
+     * Returns the tiles word with placed tile i set to the given letter.
+     */
+    public static long withTile(long tiles, int i, char letter) {
+        return tiles | (long) (letter - 'A') << (5 * i);
+    }
+
+    /**
+     * Returns the meta word with its score replaced.
+     */
+    public static long withScore(long meta, int score) {
+        return (meta & ((1L << SCORE_SHIFT) - 1)) | (long) score << SCORE_SHIFT;
+    }
+
+    public static int row(long meta) { return (int) (meta & 0xFF); }
+    public static int col(long meta) { return (int) (meta >>> COL_SHIFT & 0xFF); }
+    public static boolean isHorizontal(long meta) { return (meta >>> HORIZONTAL_BIT & 1) != 0; }
+    public static int length(long meta) { return (int) (meta >>> LENGTH_SHIFT & 0xFF); }
+    public static int tileCount(long meta) { return (int) (meta >>> COUNT_SHIFT & 0xF); }
+    public static int blankMask(long meta) { return (int) (meta >>> BLANK_SHIFT & 0x7F); }
+    public static int score(long meta) { return (int) (meta >> SCORE_SHIFT); }
+
+    public static boolean isBlank(long meta, int i) {
+        return (blankMask(meta) & (1 << i)) != 0;
+    }
+
+    public static char tile(long tiles, int i) {
+        return (char) ('A' + (tiles >>> (5 * i) & 0x1F));
+    }
+
+    /**
+     * Rebuilds the Move, reading letters already on the board from the board it
+     * was generated on.
+     */
+    public static Move toMove(long meta, long tiles, Board board) {
+        int row = row(meta), col = col(meta), length = length(meta);
+        boolean horizontal = isHorizontal(meta);
+        char[] word = new char[length];
+        int placed = 0;
+        for (int i = 0; i < length; i++) {
+            int r = row + (horizontal ? 0 : i);
+            int c = col + (horizontal ? i : 0);
+            word[i] = board.squareHasTile(r, c) ? board.getSquare(r, c).getLetter() : tile(tiles, placed++);
+        }
+        return new Move(new String(word), row, col, horizontal, score(meta));
+    }
+
+    /**
+     * Writes the leave (tiles kept) as sorted LeaveTable symbols.
+     *
+     * @param rackCounts Rack contents per symbol (A-Z, then LeaveTable.BLANK)
+     * @param scratch Array of LeaveTable.SYMBOLS entries, overwritten
+     * @param out Receives the leave
+     * @return Number of symbols in the leave
+     */
+    public static int leave(long meta, long tiles, int[] rackCounts, int[] scratch, byte[] out) {
+        System.arraycopy(rackCounts, 0, scratch, 0, LeaveTable.SYMBOLS);
+        for (int i = 0, n = tileCount(meta); i < n; i++) {
+            scratch[isBlank(meta, i) ? LeaveTable.BLANK : tile(tiles, i) - 'A']--;
+        }
+        int len = 0;
+        for (int s = 0; s < LeaveTable.SYMBOLS; s++)
+            for (int n = 0; n < scratch[s]; n++) out[len++] = (byte) s;
+        return len;
+    }
+}
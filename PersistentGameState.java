@@ -0,0 +1,225 @@
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * PersistentGameState is an immutable view of a game at one state version,
+ * built with structural sharing: the board is an array of row arrays, each
+ * rack a small array of tile symbols, and the bag a table of letter counts.
+ * A new version copies only the pieces a change touched (the rows a move
+ * covered, the racks that changed) and shares everything else with the
+ * previous version. Taking a snapshot is therefore handing out a reference,
+ * and because nothing inside is ever written after construction, any thread
+ * can read it without locks.
+ *
+ * GameModel keeps the latest one up to date on every published change.
+ */
+public final class PersistentGameState implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final byte BLANK = 26;
+    private static final char EMPTY = 0;
+
+    private final long version;
+    private final char[][] rows;        // upper case letter, lower case for a blank, 0 for empty
+    private final String[] names;
+    private final byte[][] racks;       // symbols 0-25 for A-Z, 26 for a blank, in rack order
+    private final int[] scores;
+    private final String[] errors;      // each player's last error message
+    private final boolean[] computers;  // whether each player is an AIPlayer
+    private final int[] bagCounts;      // per symbol
+    private final int bagSize;
+    private final int currentPlayer;
+    private final boolean firstMove;
+
+    // Where the rows came from, to tell whether the next version can share them
+    private final transient Board source;
+    private final int moveCount;
+    private final long boardHash;
+    private final int[] lastPlaced;     // squares (row * size + col) of the board's last placement
+
+    private PersistentGameState(long version, char[][] rows, String[] names, byte[][] racks, int[] scores,
+                                String[] errors, boolean[] computers, int[] bagCounts, int bagSize,
+                                int currentPlayer, boolean firstMove, Board source, int moveCount,
+                                long boardHash, int[] lastPlaced) {
+        this.version = version;
+        this.rows = rows;
+        this.names = names;
+        this.racks = racks;
+        this.scores = scores;
+        this.errors = errors;
+        this.computers = computers;
+        this.bagCounts = bagCounts;
+        this.bagSize = bagSize;
+        this.currentPlayer = currentPlayer;
+        this.firstMove = firstMove;
+        this.source = source;
+        this.moveCount = moveCount;
+        this.boardHash = boardHash;
+        this.lastPlaced = lastPlaced;
+    }
+
+    /**
+     * Builds the state of a game from scratch.
+     */
+    static PersistentGameState of(long version, Board board, List<Player> players, Queue<Tile> bag,
+                                  int currentPlayer, boolean firstMove) {
+        return next(null, version, board, players, bag, currentPlayer, firstMove);
+    }
+
+    /**
+     * Builds the next version, sharing every piece that did not change since prev.
+     * The board rows are shared when the board is the same object and unchanged,
+     * and only the rows of its last placement are copied when exactly one
+     * placeWord happened since; anything else rebuilds the board.
+     *
+     * @param prev Previous version, or null
+     */
+    static PersistentGameState next(PersistentGameState prev, long version, Board board, List<Player> players,
+                                    Queue<Tile> bag, int currentPlayer, boolean firstMove) {
+        int size = board.getSize();
+        char[][] rows;
+        if (prev != null && prev.source == board && prev.boardHash == board.getHash()
+                && prev.moveCount == board.getMoveCount()) {
+            rows = prev.rows;
+        } else if (prev != null && prev.source == board && prev.moveCount + 1 == board.getMoveCount()) {
+            rows = prev.rows.clone();
+            for (int idx : board.getLastPlacedSquares()) {
+                int r = idx / size;
+                if (rows[r] == prev.rows[r]) rows[r] = readRow(board, r);
+            }
+        } else {
+            rows = new char[size][];
+            for (int r = 0; r < size; r++) rows[r] = readRow(board, r);
+        }
+
+        int[] lastPlaced = prev != null && rows == prev.rows ? prev.lastPlaced : board.getLastPlacedSquares();
+
+        int n = players.size();
+        String[] names = new String[n];
+        byte[][] racks = new byte[n][];
+        int[] scores = new int[n];
+        String[] errors = new String[n];
+        boolean[] computers = new boolean[n];
+        boolean samePlayers = prev != null && prev.names.length == n;
+        boolean sameScores = samePlayers;
+        for (int i = 0; i < n; i++) {
+            Player p = players.get(i);
+            names[i] = samePlayers && prev.names[i].equals(p.getName()) ? prev.names[i] : p.getName();
+            racks[i] = samePlayers && sameRack(prev.racks[i], p.getRack()) ? prev.racks[i] : readRack(p.getRack());
+            scores[i] = p.getScore();
+            errors[i] = p.getLastError();
+            computers[i] = p instanceof AIPlayer;
+            sameScores &= samePlayers && prev.scores[i] == scores[i];
+        }
+        if (samePlayers && Arrays.equals(prev.names, names)) names = prev.names;
+        if (sameScores) scores = prev.scores;
+        if (samePlayers && Arrays.equals(prev.errors, errors)) errors = prev.errors;
+        if (samePlayers && Arrays.equals(prev.computers, computers)) computers = prev.computers;
+
+        int[] counts = new int[BLANK + 1];
+        for (Tile t : bag) counts[symbol(t)]++;
+        if (prev != null && Arrays.equals(prev.bagCounts, counts)) counts = prev.bagCounts;
+
+        return new PersistentGameState(version, rows, names, racks, scores, errors, computers, counts, bag.size(),
+                currentPlayer, firstMove, board, board.getMoveCount(), board.getHash(), lastPlaced);
+    }
+
+    private static char[] readRow(Board board, int r) {
+        char[] row = new char[board.getSize()];
+        for (int c = 0; c < row.length; c++) {
+            if (!board.squareHasTile(r, c)) continue;
+            Tile t = board.getSquare(r, c).getTile();
+            row[c] = t.isBlank() ? Character.toLowerCase(t.getLetter()) : t.getLetter();
+        }
+        return row;
+    }
+
+    private static byte[] readRack(List<Tile> rack) {
+        byte[] symbols = new byte[rack.size()];
+        for (int i = 0; i < symbols.length; i++) symbols[i] = symbol(rack.get(i));
+        return symbols;
+    }
+
+    private static boolean sameRack(byte[] symbols, List<Tile> rack) {
+        if (symbols.length != rack.size()) return false;
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i] != symbol(rack.get(i))) return false;
+        }
+        return true;
+    }
+
+    private static byte symbol(Tile t) {
+        return t.isBlank() ? BLANK : (byte) (t.getLetter() - 'A');
+    }
+
+    // --------------------------
+    //         READERS
+    // --------------------------
+
+    /** State version this snapshot was taken at (see GameModel.getStateVersion). */
+    public long getVersion() { return version; }
+
+    public int getBoardSize() { return rows.length; }
+
+    /** Number of placeWord calls the board had seen. */
+    public int getMoveCount() { return moveCount; }
+
+    public long getBoardHash() { return boardHash; }
+
+    /** Squares (row * size + col) filled by the board's last placement. */
+    public int[] getLastPlacedSquares() {
+        return lastPlaced == null ? new int[0] : lastPlaced.clone();
+    }
+
+    /** Letter on a square, or ' ' if it is empty. */
+    public char letterAt(int row, int col) {
+        char ch = rows[row][col];
+        return ch == EMPTY ? ' ' : Character.toUpperCase(ch);
+    }
+
+    public boolean hasTile(int row, int col) {
+        return rows[row][col] != EMPTY;
+    }
+
+    /** Whether the tile on a square is a blank standing in for its letter. */
+    public boolean isBlankAt(int row, int col) {
+        return Character.isLowerCase(rows[row][col]);
+    }
+
+    public int getPlayerCount() { return names.length; }
+    public String getPlayerName(int player) { return names[player]; }
+    public int getScore(int player) { return scores[player]; }
+    public String getLastError(int player) { return errors == null ? null : errors[player]; }
+    public boolean isComputer(int player) { return computers != null && computers[player]; }
+    public int getCurrentPlayer() { return currentPlayer; }
+    public boolean isFirstMove() { return firstMove; }
+
+    /** A player's rack in order, '?' for blanks. */
+    public String getRack(int player) {
+        byte[] rack = racks[player];
+        char[] letters = new char[rack.length];
+        for (int i = 0; i < rack.length; i++) letters[i] = rack[i] == BLANK ? '?' : (char) ('A' + rack[i]);
+        return new String(letters);
+    }
+
+    public int getBagSize() { return bagSize; }
+
+    /** Number of a letter (or '?' for blanks) left in the bag. */
+    public int getBagCount(char letter) {
+        if (letter == '?' || letter == '*') return bagCounts[BLANK];
+        char l = Character.toUpperCase(letter);
+        return l >= 'A' && l <= 'Z' ? bagCounts[l - 'A'] : 0;
+    }
+
+    /** Whether this and another version share the array for a board row (used to check sharing). */
+    boolean sharesRow(PersistentGameState other, int row) {
+        return rows[row] == other.rows[row];
+    }
+
+    /** Whether this and another version share a player's rack array. */
+    boolean sharesRack(PersistentGameState other, int player) {
+        return racks[player] == other.racks[player];
+    }
+}
@@ -98,6 +98,50 @@ public class Player implements Serializable {
         }
     }
 
+    /**
+     * Plays a move in place for this player: places the tiles (see Board.applyMove),
+     * adds the points and refills the rack from the front of the bag.
+     * Everything is recorded on the stack for undoMove; nothing is allocated.
+     *
+     * @param board Board to play on
+     * @param move Move to play
+     * @param bag Bag to draw from, or null to skip drawing
+     * @param stack Stack receiving the undo record
+     * @return Points scored
+     */
+    public int applyMove(Board board, Move move, Deque<Tile> bag, MoveStack stack) {
+        int points = board.applyMove(move, rack, stack);
+        int frame = stack.top();
+        score += points;
+        int drawn = 0;
+        if (bag != null) {
+            while (rack.size() < 7 && !bag.isEmpty() && drawn < stack.tileCount(frame)) {
+                rack.add(bag.pollFirst());
+                drawn++;
+            }
+        }
+        stack.setDrawCount(frame, drawn);
+        return points;
+    }
+
+    /**
+     * Reverses the most recent applyMove: returns drawn tiles to the front of
+     * the bag in their original order, removes the points and takes the tiles
+     * back off the board.
+     *
+     * @param board Board the move was played on
+     * @param bag Bag the tiles were drawn from (null if none were drawn)
+     * @param stack Stack holding the undo record
+     */
+    public void undoMove(Board board, Deque<Tile> bag, MoveStack stack) {
+        int frame = stack.top();
+        for (int i = stack.drawCount(frame); i > 0; i--) {
+            bag.addFirst(rack.remove(rack.size() - 1));
+        }
+        score -= stack.score(frame);
+        board.undoMove(rack, stack);
+    }
+
     public Player copy() {
         Player p = new Player(this.name);
         p.score = this.score;
@@ -0,0 +1,67 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * PlayersPanel shows one row per player with their score and rack.
+ * Each row only has its text replaced when that player's score, rack or
+ * turn status actually changed.
+ */
+public class PlayersPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private JLabel[] rows = new JLabel[0];
+    private String[] shown = new String[0];
+
+    public PlayersPanel() {
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+    }
+
+    /**
+     * Updates the rows for the given players. Must be called on the event dispatch thread.
+     *
+     * @param players Players in turn order
+     * @param currentPlayer Player whose turn it is
+     */
+    public void render(List<Player> players, Player currentPlayer) {
+        if (players.size() != rows.length) {
+            buildRows(players.size());
+        }
+        for (int i = 0; i < players.size(); i++) {
+            Player p = players.get(i);
+            String text = rowText(p, p == currentPlayer);
+            if (!text.equals(shown[i])) {
+                rows[i].setText(text);
+                shown[i] = text;
+            }
+        }
+    }
+
+    private void buildRows(int count) {
+        removeAll();
+        rows = new JLabel[count];
+        shown = new String[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new JLabel();
+            rows[i].setFont(new Font("Monospaced", Font.PLAIN, 14));
+            rows[i].setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+            add(rows[i]);
+        }
+        revalidate();
+    }
+
+    private String rowText(Player p, boolean current) {
+        StringBuilder sb = new StringBuilder("<html>");
+        if (current) sb.append("<b>&#9654; ");
+        sb.append(escape(p.getName())).append(" - Score: ").append(p.getScore());
+        if (current) sb.append("</b>");
+        sb.append("<br>Tiles: ");
+        for (Tile t : p.getRack()) sb.append(t).append(' ');
+        return sb.append("</html>").toString();
+    }
+
+    private String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
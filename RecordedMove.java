@@ -0,0 +1,90 @@
+import java.io.Serializable;
+
+/**
+ * One turn of a game record, kept in GameModel's move history and written to
+ * or read from GCG files. Words use GCG notation: letters already on the board
+ * are '.', letters played with a blank are lower case. Racks use '?' for blanks.
+ */
+public class RecordedMove implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * WITHDRAWAL takes back the player's previous play after a successful
+     * challenge ("--"); CHALLENGE_BONUS awards points for an unsuccessful
+     * challenge of the player's play ("(challenge)").
+     */
+    public enum Type { PLAY, PASS, EXCHANGE, END_RACK, WITHDRAWAL, CHALLENGE_BONUS }
+
+    private final Type type;
+    private final String player;
+    private final String rack;
+    private final String word;        // PLAY: GCG word; EXCHANGE: tiles exchanged; END_RACK: opponent's rack
+    private final int row;
+    private final int col;
+    private final boolean horizontal;
+    private final int score;
+    private final int total;
+
+    private RecordedMove(Type type, String player, String rack, String word, int row, int col,
+                         boolean horizontal, int score, int total) {
+        this.type = type;
+        this.player = player;
+        this.rack = rack;
+        this.word = word;
+        this.row = row;
+        this.col = col;
+        this.horizontal = horizontal;
+        this.score = score;
+        this.total = total;
+    }
+
+    public static RecordedMove play(String player, String rack, String word, int row, int col,
+                                    boolean horizontal, int score, int total) {
+        return new RecordedMove(Type.PLAY, player, rack, word, row, col, horizontal, score, total);
+    }
+
+    public static RecordedMove pass(String player, String rack, int total) {
+        return new RecordedMove(Type.PASS, player, rack, "", -1, -1, false, 0, total);
+    }
+
+    public static RecordedMove exchange(String player, String rack, String tiles, int total) {
+        return new RecordedMove(Type.EXCHANGE, player, rack, tiles, -1, -1, false, 0, total);
+    }
+
+    public static RecordedMove withdrawal(String player, String rack, int score, int total) {
+        return new RecordedMove(Type.WITHDRAWAL, player, rack, "", -1, -1, false, score, total);
+    }
+
+    public static RecordedMove challengeBonus(String player, String rack, int score, int total) {
+        return new RecordedMove(Type.CHALLENGE_BONUS, player, rack, "", -1, -1, false, score, total);
+    }
+
+    public static RecordedMove endRack(String player, String opponentRack, int score, int total) {
+        return new RecordedMove(Type.END_RACK, player, "", opponentRack, -1, -1, false, score, total);
+    }
+
+    public Type getType() { return type; }
+    public String getPlayer() { return player; }
+    public String getRack() { return rack; }
+    public String getWord() { return word; }
+    public int getRow() { return row; }
+    public int getCol() { return col; }
+    public boolean isHorizontal() { return horizontal; }
+    public int getScore() { return score; }
+    public int getTotal() { return total; }
+
+    /**
+     * Returns the GCG coordinate of a play: row then column across ("8H"),
+     * column then row down ("H8").
+     */
+    public String getPosition() {
+        String r = Integer.toString(row + 1);
+        String c = Character.toString((char) ('A' + col));
+        return horizontal ? r + c : c + r;
+    }
+
+    @Override
+    public String toString() {
+        return GcgWriter.formatMove(this, player);
+    }
+}
@@ -0,0 +1,238 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+
+/**
+ * SimulatingAIPlayer is a stronger AI strategy that looks one reply ahead.
+ * It takes the top static candidates (score plus leave), then repeatedly
+ * samples an opponent rack from the tiles it cannot see (bag plus opponent
+ * racks) and plays the opponent's best reply to every candidate on a board
+ * copy. Samples run in parallel on a shared worker pool against a private
+ * copy of the position, so the game may go on once the search returns; the
+ * search stops once the best candidate's confidence interval separates from
+ * the rest or the time budget runs out, and samples still running then are
+ * interrupted. The budget is measured on a nanosecond clock that defaults to
+ * System.nanoTime.
+ */
+public class SimulatingAIPlayer extends AIPlayer {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_CANDIDATES = 8;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 2000;
+
+    private static final int MIN_SAMPLES = 16;    // samples before intervals are trusted
+    private static final double Z = 1.96;         // 95% confidence intervals
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "scrabble-simulation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private int candidateCount = DEFAULT_CANDIDATES;
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    private transient LongSupplier clock;
+    private transient double lastPliesPerSecond;
+    private transient long lastSampleCount;
+
+    public SimulatingAIPlayer(String name) {
+        super(name);
+    }
+
+    public void setCandidateCount(int candidateCount) {
+        this.candidateCount = Math.max(1, candidateCount);
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+    }
+
+    /**
+     * Replaces the clock the time budget is measured on, so the budget can be
+     * checked without depending on how fast the machine is.
+     */
+    void setClock(LongSupplier nanoClock) {
+        this.clock = nanoClock;
+    }
+
+    /**
+     * Returns how many samples the last simulation completed within its budget.
+     */
+    public long getLastSampleCount() {
+        return lastSampleCount;
+    }
+
+    /**
+     * Returns the throughput of the last simulation, in plies (candidate moves
+     * and opponent replies) per second.
+     */
+    public double getLastPliesPerSecond() {
+        return lastPliesPerSecond;
+    }
+
+    /**
+     * Picks the candidate with the best simulated outcome: its score plus leave
+     * value minus the opponent's average best reply.
+     * Falls back to the static choice when simulation cannot help: an empty bag
+     * (racks are known) or fewer than two candidates.
+     */
+    @Override
+    public Move findBestMove(GameModel model) {
+        lastSampleCount = 0;
+        if (model.getBag().isEmpty()) return super.findBestMove(model);
+
+        Board board = model.getBoard();
+        Dictionary dictionary = model.getDictionary();
+        LeaveTable leaves = LeaveTable.getDefault();
+        List<Move> candidates = new MoveGenerator(dictionary)
+                .topMoves(board, getRack(), model.isFirstMove(), leaves, candidateCount);
+        if (candidates.size() < 2) return candidates.isEmpty() ? null : candidates.get(0);
+
+        SimulationEvent event = new SimulationEvent();
+        event.begin();
+        LongSupplier now = clock != null ? clock : System::nanoTime; // transient, null after loading a save
+        long start = now.getAsLong();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+
+        // The static part of each candidate's value does not depend on the sample
+        int n = candidates.size();
+        double[] base = new double[n];
+        byte[] leave = new byte[getRack().size()];
+        for (int i = 0; i < n; i++) {
+            Move m = candidates.get(i);
+            base[i] = m.getScore() + leaves.value(leave, LeaveTable.leaveAfter(board, getRack(), m, leave));
+        }
+
+        // Workers read this copy; the live board changes as soon as the move is played
+        Board position = board.copy();
+        List<Tile> unseen = unseenTiles(model);
+        List<Tile> rack = new ArrayList<>(getRack());
+        Sample[] samples = new Sample[n];
+        for (int i = 0; i < n; i++) samples[i] = new Sample();
+
+        boolean separated = false;
+        long sampleCount = 0;
+        while (!separated && now.getAsLong() < deadline) {
+            List<Callable<double[]>> round = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                round.add(() -> simulate(position, rack, candidates, unseen, dictionary, leaves));
+            }
+            try {
+                for (Future<double[]> f : WORKERS.invokeAll(round, Math.max(0, deadline - now.getAsLong()), TimeUnit.NANOSECONDS)) {
+                    if (f.isCancelled()) continue;
+                    double[] replies = f.get();
+                    for (int i = 0; i < n; i++) samples[i].add(base[i] - replies[i]);
+                    sampleCount++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Simulation failed", e.getCause());
+            }
+            separated = sampleCount >= MIN_SAMPLES && bestIsSeparated(samples);
+        }
+
+        int best = 0;
+        for (int i = 1; i < n; i++) {
+            if (samples[i].mean() > samples[best].mean()) best = i;
+        }
+        if (sampleCount == 0) best = 0; // no sample finished in time, keep the static ranking
+
+        long plies = sampleCount * n * 2;
+        double seconds = Math.max(1e-9, (now.getAsLong() - start) / 1e9);
+        lastPliesPerSecond = plies / seconds;
+        lastSampleCount = sampleCount;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = getName();
+            event.candidates = n;
+            event.samples = sampleCount;
+            event.plies = plies;
+            event.pliesPerSecond = lastPliesPerSecond;
+            event.bestWord = candidates.get(best).getWord();
+            event.separated = separated;
+            event.commit();
+        }
+        return candidates.get(best);
+    }
+
+    /**
+     * Plays one sample: draws an opponent rack from the unseen tiles and finds
+     * their best reply to each candidate. Every candidate faces the same rack,
+     * which keeps the comparison between candidates low-variance.
+     *
+     * @return Opponent reply score for each candidate
+     * @throws CancellationException If the worker is interrupted because the budget ran out
+     */
+    private static double[] simulate(Board board, List<Tile> rack, List<Move> candidates, List<Tile> unseen,
+                                     Dictionary dictionary, LeaveTable leaves) {
+        List<Tile> pool = new ArrayList<>(unseen);
+        Collections.shuffle(pool, ThreadLocalRandom.current());
+        List<Tile> opponentRack = new ArrayList<>(pool.subList(0, Math.min(7, pool.size())));
+
+        MoveGenerator generator = new MoveGenerator(dictionary);
+        double[] replies = new double[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            if (Thread.interrupted()) throw new CancellationException("Simulation budget exhausted");
+            Move m = candidates.get(i);
+            Board clone = board.copy();
+            Player me = new Player("simulation");
+            for (Tile t : rack) me.getRack().add(t.copy());
+            clone.placeWord(m.getWord(), m.getRow(), m.getCol(), m.isHorizontal(), me);
+
+            Move reply = generator.findBest(clone, opponentRack, false, leaves);
+            replies[i] = reply == null ? 0 : reply.getScore();
+        }
+        return replies;
+    }
+
+    /**
+     * Returns the tiles this player cannot see: the bag and the other players' racks.
+     */
+    private List<Tile> unseenTiles(GameModel model) {
+        List<Tile> unseen = new ArrayList<>(model.getBag());
+        for (Player p : model.getPlayers()) {
+            if (p != this) unseen.addAll(p.getRack());
+        }
+        return unseen;
+    }
+
+    private static boolean bestIsSeparated(Sample[] samples) {
+        int best = 0;
+        for (int i = 1; i < samples.length; i++) {
+            if (samples[i].mean() > samples[best].mean()) best = i;
+        }
+        double lower = samples[best].mean() - Z * samples[best].standardError();
+        for (int i = 0; i < samples.length; i++) {
+            if (i != best && samples[i].mean() + Z * samples[i].standardError() >= lower) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Running mean and variance (Welford's method).
+     */
+    private static class Sample {
+        long count;
+        double mean;
+        double m2;
+
+        void add(double x) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        }
+
+        double mean() {
+            return count == 0 ? Double.NEGATIVE_INFINITY : mean;
+        }
+
+        double standardError() {
+            return count < 2 ? Double.POSITIVE_INFINITY : Math.sqrt(m2 / (count - 1) / count);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted once per SimulatingAIPlayer search.
+ */
+@Name("scrabble.Simulation")
+@Label("AI Simulation")
+@Category({"Scrabble", "AI"})
+@Description("Monte Carlo evaluation of candidate moves by SimulatingAIPlayer")
+public class SimulationEvent extends Event {
+
+    @Label("Player")
+    String player;
+
+    @Label("Candidates")
+    int candidates;
+
+    @Label("Samples")
+    long samples;
+
+    @Label("Plies")
+    long plies;
+
+    @Label("Plies Per Second")
+    double pliesPerSecond;
+
+    @Label("Best Word")
+    String bestWord;
+
+    @Label("Intervals Separated")
+    boolean separated;
+}
@@ -22,6 +22,18 @@ public class Square implements Serializable {
         else throw new IllegalStateException("Square already has a tile!");
     }
 
+    /**
+     * Takes the tile off this square, used by search code to undo a placement.
+     *
+     * @return The tile that was on the square
+     */
+    public Tile removeTile() {
+        if (!hasTile()) throw new IllegalStateException("Square has no tile!");
+        Tile t = tile;
+        tile = null;
+        return t;
+    }
+
     public Bonus getBonus() { return bonus; }
     public void setBonus(Bonus bonus) { this.bonus = bonus; }
     public char getLetter() { return getTile().getLetter();
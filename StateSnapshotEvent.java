@@ -0,0 +1,54 @@
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted by GameModel.createStateSnapshot and restoreState.
+ * The snapshot size is only measured while the event is enabled in a recording.
+ */
+@Name("scrabble.StateSnapshot")
+@Label("State Snapshot")
+@Category({"Scrabble", "Engine"})
+@Description("Game state snapshot or restore used by undo/redo and loading")
+public class StateSnapshotEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Returns the serialized size of the given state, or -1 if it cannot be serialized.
+     *
+     * @param state Object to measure
+     * @return Size in bytes of its Java serialized form
+     */
+    static long serializedSize(Serializable state) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(counter)) {
+            oos.writeObject(state);
+        } catch (IOException e) {
+            return -1;
+        }
+        return counter.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) { count++; }
+
+        @Override
+        public void write(byte[] b, int off, int len) { count += len; }
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache keyed on 64-bit position hashes.
+ * Entries are spread over independently locked stripes, each evicting its
+ * least recently used entry once full, so concurrent searches rarely contend.
+ *
+ * @param <V> Type of the cached value
+ */
+public class TranspositionCache<V> {
+
+    private final Stripe<V>[] stripes;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries Approximate maximum number of entries kept
+     * @param stripeCount Number of lock stripes, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TranspositionCache(int maxEntries, int stripeCount) {
+        int n = 1;
+        while (n < stripeCount) n <<= 1;
+        stripes = (Stripe<V>[]) new Stripe<?>[n];
+        int perStripe = Math.max(1, maxEntries / n);
+        for (int i = 0; i < n; i++) stripes[i] = new Stripe<>(perStripe);
+        mask = n - 1;
+    }
+
+    public V get(long key) {
+        Stripe<V> stripe = stripeFor(key);
+        V value;
+        synchronized (stripe) {
+            value = stripe.get(key);
+        }
+        if (value == null) misses.increment();
+        else hits.increment();
+        return value;
+    }
+
+    public void put(long key, V value) {
+        Stripe<V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, value);
+        }
+    }
+
+    public void clear() {
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Stripe<V> stripeFor(long key) {
+        return stripes[(int) Zobrist.mix(key) & mask];
+    }
+
+    /**
+     * One stripe: an access-ordered map that drops its eldest entry when full.
+     */
+    private static class Stripe<V> extends LinkedHashMap<Long, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * UndoHistory holds the undo and redo snapshots of a game within fixed bounds.
+ * The most recent snapshots are kept as live GameState objects so ordinary
+ * undo is instant; older ones are serialized and Deflate-compressed, which
+ * shrinks a snapshot to a small fraction of its live size. Once the history
+ * holds more than maxDepth snapshots or its compressed part exceeds maxBytes,
+ * the oldest snapshots are dropped, so a marathon session uses constant memory
+ * while still allowing deep undo.
+ */
+public class UndoHistory implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_MAX_DEPTH = 200;
+    public static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+    public static final int DEFAULT_LIVE_ENTRIES = 4;
+
+    private final Deque<Entry> undo = new ArrayDeque<>();   // newest first
+    private final Deque<Entry> redo = new ArrayDeque<>();   // newest first
+    private int maxDepth;
+    private long maxBytes;
+    private int liveEntries;
+    private long compressedBytes;
+
+    public UndoHistory() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_BYTES, DEFAULT_LIVE_ENTRIES);
+    }
+
+    /**
+     * @param maxDepth Most snapshots kept for undo
+     * @param maxBytes Most bytes the compressed snapshots may take
+     * @param liveEntries Number of newest undo snapshots kept uncompressed
+     */
+    public UndoHistory(int maxDepth, long maxBytes, int liveEntries) {
+        if (maxDepth < 1 || maxBytes < 1 || liveEntries < 0) throw new IllegalArgumentException("Invalid undo limits");
+        this.maxDepth = maxDepth;
+        this.maxBytes = maxBytes;
+        this.liveEntries = liveEntries;
+    }
+
+    /**
+     * Records the state before a new move and forgets anything that could be redone.
+     */
+    public void push(GameState state) {
+        clearRedo();
+        undo.addFirst(new Entry(state));
+        compact();
+    }
+
+    /**
+     * Steps back one move.
+     *
+     * @param current State to return to on redo
+     * @return State to restore, or null if there is nothing to undo
+     */
+    public GameState undo(GameState current) {
+        Entry e = undo.pollFirst();
+        if (e == null) return null;
+        compressedBytes -= e.compressedSize();
+        redo.addFirst(new Entry(current));
+        compact();
+        return e.state();
+    }
+
+    /**
+     * Steps forward one undone move.
+     *
+     * @param current State to return to on undo
+     * @return State to restore, or null if there is nothing to redo
+     */
+    public GameState redo(GameState current) {
+        Entry e = redo.pollFirst();
+        if (e == null) return null;
+        compressedBytes -= e.compressedSize();
+        undo.addFirst(new Entry(current));
+        compact();
+        return e.state();
+    }
+
+    public boolean canUndo() { return !undo.isEmpty(); }
+    public boolean canRedo() { return !redo.isEmpty(); }
+    public int undoDepth() { return undo.size(); }
+    public int redoDepth() { return redo.size(); }
+
+    /** Bytes currently taken by compressed snapshots. */
+    public long getCompressedBytes() { return compressedBytes; }
+
+    public void clear() {
+        undo.clear();
+        redo.clear();
+        compressedBytes = 0;
+    }
+
+    /**
+     * Changes the limits, dropping old snapshots at once if they are now exceeded.
+     */
+    public void setLimits(int maxDepth, long maxBytes, int liveEntries) {
+        if (maxDepth < 1 || maxBytes < 1 || liveEntries < 0) throw new IllegalArgumentException("Invalid undo limits");
+        this.maxDepth = maxDepth;
+        this.maxBytes = maxBytes;
+        this.liveEntries = liveEntries;
+        compact();
+    }
+
+    private void clearRedo() {
+        for (Entry e : redo) compressedBytes -= e.compressedSize();
+        redo.clear();
+    }
+
+    /**
+     * Compresses snapshots past the live window and drops the oldest ones until
+     * the depth and memory limits hold. Redo snapshots are dropped only after
+     * every undo snapshot is gone.
+     */
+    private void compact() {
+        compactOlder(undo, liveEntries);
+        compactOlder(redo, liveEntries);
+        while (undo.size() + redo.size() > maxDepth || compressedBytes > maxBytes) {
+            Entry dropped = undo.isEmpty() ? redo.pollLast() : undo.pollLast();
+            if (dropped == null) break;
+            compressedBytes -= dropped.compressedSize();
+        }
+    }
+
+    private void compactOlder(Deque<Entry> entries, int keepLive) {
+        int i = 0;
+        for (Iterator<Entry> it = entries.iterator(); it.hasNext(); i++) {
+            Entry e = it.next();
+            if (i >= keepLive && e.isLive()) compressedBytes += e.compress();
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        compactOlder(undo, 0);  // saves only ever hold the compressed form
+        compactOlder(redo, 0);
+        out.defaultWriteObject();
+    }
+
+    /**
+     * One snapshot, held either as a live object or as compressed bytes.
+     */
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private transient GameState live;
+        private byte[] packed;
+        private int rawLength;
+
+        Entry(GameState state) {
+            this.live = state;
+        }
+
+        boolean isLive() {
+            return live != null;
+        }
+
+        long compressedSize() {
+            return packed == null ? 0 : packed.length;
+        }
+
+        /** Compresses the snapshot and returns the number of bytes it now takes. */
+        long compress() {
+            try {
+                ByteArrayOutputStream raw = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(raw)) {
+                    oos.writeObject(live);
+                }
+                byte[] bytes = raw.toByteArray();
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                deflater.setInput(bytes);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) out.write(buffer, 0, deflater.deflate(buffer));
+                deflater.end();
+                packed = out.toByteArray();
+                rawLength = bytes.length;
+                live = null;
+                return packed.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not compress undo snapshot", e);
+            }
+        }
+
+        GameState state() {
+            if (live != null) return live;
+            try {
+                Inflater inflater = new Inflater();
+                inflater.setInput(packed);
+                byte[] bytes = new byte[rawLength];
+                int n = 0;
+                while (n < rawLength && !inflater.finished()) n += inflater.inflate(bytes, n, rawLength - n);
+                inflater.end();
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes, 0, n))) {
+                    return (GameState) ois.readObject();
+                }
+            } catch (IOException | ClassNotFoundException | DataFormatException e) {
+                throw new IllegalStateException("Corrupt undo snapshot", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+import java.util.*;
+
+/**
+ * WordTrie is a read-only trie over the lexicon answering pattern queries such
+ * as "?A??S": fixed letters, open slots, a length range and, optionally, a rack
+ * that open slots must be filled from. Nodes are stored in flat arrays (each
+ * node's children are a contiguous run of edges) and a query walks them with an
+ * explicit stack, so matches are produced lazily and whole subtrees are skipped
+ * as soon as a fixed letter or the rack rules them out.
+ */
+public class WordTrie {
+
+    /** Pattern character for a slot any letter may fill. */
+    public static final char OPEN = '?';
+
+    private final int[] childStart;     // edges of node n are [childStart[n], childStart[n + 1])
+    private final char[] edgeLetter;
+    private final int[] edgeTarget;
+    private final boolean[] terminal;
+    private final int maxLength;
+
+    /**
+     * Builds the trie. Words containing anything other than A-Z are skipped.
+     *
+     * @param lexicon Upper-case words
+     */
+    public WordTrie(Collection<String> lexicon) {
+        List<String> sorted = new ArrayList<>();
+        int longest = 0;
+        for (String w : lexicon) {
+            if (w.isEmpty() || !w.chars().allMatch(ch -> ch >= 'A' && ch <= 'Z')) continue;
+            sorted.add(w);
+            longest = Math.max(longest, w.length());
+        }
+        Collections.sort(sorted);
+        maxLength = longest;
+
+        // Build with per-node child tables, then flatten into edge runs
+        List<int[]> children = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        children.add(new int[26]);
+        ends.add(false);
+        int edges = 0;
+        for (String w : sorted) {
+            int node = 0;
+            for (int i = 0; i < w.length(); i++) {
+                int l = w.charAt(i) - 'A';
+                if (children.get(node)[l] == 0) {
+                    children.get(node)[l] = children.size();
+                    children.add(new int[26]);
+                    ends.add(false);
+                    edges++;
+                }
+                node = children.get(node)[l];
+            }
+            ends.set(node, true);
+        }
+
+        int nodes = children.size();
+        childStart = new int[nodes + 1];
+        edgeLetter = new char[edges];
+        edgeTarget = new int[edges];
+        terminal = new boolean[nodes];
+        int e = 0;
+        for (int n = 0; n < nodes; n++) {
+            childStart[n] = e;
+            terminal[n] = ends.get(n);
+            int[] table = children.get(n);
+            for (int l = 0; l < 26; l++) {
+                if (table[l] != 0) {
+                    edgeLetter[e] = (char) ('A' + l);
+                    edgeTarget[e] = table[l];
+                    e++;
+                }
+            }
+        }
+        childStart[nodes] = e;
+    }
+
+    public int nodeCount() {
+        return terminal.length;
+    }
+
+    /**
+     * Returns the words matching a pattern, in alphabetical order, computed lazily.
+     * A word matches if its length is between minLength and the pattern length,
+     * each letter agrees with the pattern character at its position, and (when a
+     * rack is given) the letters in open slots can be taken from the rack.
+     *
+     * @param pattern Letters A-Z for fixed squares and '?' for open slots
+     * @param minLength Shortest word wanted
+     * @param rackLetters Letters open slots are filled from, '*' or '?' for blanks, or null for no limit
+     * @return Iterator over the matching words
+     */
+    public Iterator<String> match(String pattern, int minLength, String rackLetters) {
+        return new Matcher(pattern.toUpperCase(), Math.max(1, minLength), rackLetters);
+    }
+
+    /**
+     * Depth-first walk kept on explicit stacks so it can stop after any match.
+     */
+    private class Matcher implements Iterator<String> {
+        private static final byte NONE = 0, FROM_RACK = 1, FROM_BLANK = 2;
+
+        private final char[] pattern;
+        private final int minLength;
+        private final int maxDepth;
+        private final int[] rack;       // null when open slots are unrestricted
+        private int blanks;
+
+        private final int[] node;
+        private final int[] cursor;
+        private final byte[] source;    // how the letter leading to each depth was paid for
+        private final char[] path;
+        private int depth;
+        private String next;
+
+        Matcher(String pattern, int minLength, String rackLetters) {
+            this.pattern = pattern.toCharArray();
+            this.minLength = minLength;
+            this.maxDepth = Math.min(this.pattern.length, maxLength);
+            if (rackLetters == null) {
+                rack = null;
+            } else {
+                rack = new int[26];
+                for (char ch : rackLetters.toUpperCase().toCharArray()) {
+                    if (ch == '*' || ch == OPEN) blanks++;
+                    else if (ch >= 'A' && ch <= 'Z') rack[ch - 'A']++;
+                }
+            }
+            node = new int[maxDepth + 1];
+            cursor = new int[maxDepth + 1];
+            source = new byte[maxDepth + 1];
+            path = new char[maxDepth];
+            cursor[0] = childStart[0];
+            next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) throw new NoSuchElementException();
+            String result = next;
+            next = advance();
+            return result;
+        }
+
+        private String advance() {
+            while (depth >= 0) {
+                int n = node[depth];
+                if (depth == maxDepth || cursor[depth] == childStart[n + 1]) {
+                    pop();
+                    continue;
+                }
+                int e = cursor[depth]++;
+                char letter = edgeLetter[e];
+                char want = pattern[depth];
+
+                byte paid = NONE;
+                if (want != OPEN) {
+                    if (want != letter) continue;
+                } else if (rack != null) {
+                    if (rack[letter - 'A'] > 0) {
+                        rack[letter - 'A']--;
+                        paid = FROM_RACK;
+                    } else if (blanks > 0) {
+                        blanks--;
+                        paid = FROM_BLANK;
+                    } else {
+                        continue;
+                    }
+                }
+
+                path[depth] = letter;
+                depth++;
+                node[depth] = edgeTarget[e];
+                cursor[depth] = childStart[edgeTarget[e]];
+                source[depth] = paid;
+                if (terminal[node[depth]] && depth >= minLength) return new String(path, 0, depth);
+            }
+            return null;
+        }
+
+        private void pop() {
+            if (depth > 0) {
+                if (source[depth] == FROM_RACK) rack[path[depth - 1] - 'A']++;
+                else if (source[depth] == FROM_BLANK) blanks++;
+            }
+            depth--;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.List;
+
+/**
+ * Zobrist keys for board squares and rack contents.
+ * Keys are derived on the fly from a 64-bit mixing function rather than read
+ * from a random table, so any board size is supported without precomputation.
+ */
+public final class Zobrist {
+
+    private static final long SQUARE_SEED = 0x6A09E667F3BCC908L;
+    private static final long RACK_SEED = 0xBB67AE8584CAA73BL;
+
+    /** Key mixed into position hashes when the next move is the opening move. */
+    public static final long FIRST_MOVE = mix(0x3C6EF372FE94F82BL);
+
+    private Zobrist() {
+    }
+
+    /**
+     * Finalizer from SplitMix64, a cheap bijective 64-bit mixer.
+     *
+     * @param z Value to mix
+     * @return Well-distributed 64-bit value
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the key for a tile on a square.
+     *
+     * @param square Square index (row * size + col)
+     * @param letter Letter shown on the tile
+     * @param blank Whether the tile is a placed blank
+     * @return Key to XOR into the board hash
+     */
+    public static long square(int square, char letter, boolean blank) {
+        int code = (Character.toUpperCase(letter) - 'A') * 2 + (blank ? 1 : 0);
+        return mix(SQUARE_SEED + ((long) square << 6) + code);
+    }
+
+    /**
+     * Returns the hash of a rack, independent of tile order.
+     *
+     * @param rack Tiles on the rack
+     * @return Hash of the multiset of letters (blanks counted separately)
+     */
+    public static long rack(List<Tile> rack) {
+        int[] counts = new int[27];
+        for (Tile t : rack) counts[t.isBlank() ? 26 : t.getLetter() - 'A']++;
+        long hash = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) hash ^= mix(RACK_SEED + i * 16L + counts[i]);
+        }
+        return hash;
+    }
+}